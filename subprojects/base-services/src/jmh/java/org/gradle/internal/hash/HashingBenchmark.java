@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares hashing a file through a stream with hashing it from memory mapped regions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class HashingBenchmark {
+    @Param({"MD5", Murmur3MessageDigest.ALGORITHM})
+    String algorithm;
+
+    @Param({"1048576", "67108864"})
+    int fileSize;
+
+    File file;
+
+    @Setup
+    public void createFile() throws IOException {
+        file = File.createTempFile("hashing-benchmark", ".bin");
+        byte[] buffer = new byte[64 * 1024];
+        Random random = new Random(fileSize);
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            for (int remaining = fileSize; remaining > 0; remaining -= buffer.length) {
+                random.nextBytes(buffer);
+                outputStream.write(buffer, 0, Math.min(remaining, buffer.length));
+            }
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @TearDown
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Benchmark
+    public HashValue stream() throws IOException {
+        return HashUtil.createHash(new FileInputStream(file), algorithm);
+    }
+
+    @Benchmark
+    public HashValue mapped() throws IOException {
+        return HashUtil.createMappedHash(new FileInputStream(file), algorithm);
+    }
+}
@@ -17,12 +17,32 @@ package org.gradle.internal.hash;
 
 import org.gradle.api.UncheckedIOException;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.os.OperatingSystem;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 public class HashUtil {
+    /**
+     * Files at least this large are hashed from memory mapped regions of the file, rather than read through a stream.
+     */
+    static final long MAPPED_HASH_THRESHOLD = 1024 * 1024;
+    /**
+     * Files larger than this are read through the file channel into a reusable direct buffer instead. A mapped region is only released once it is
+     * garbage collected, so mapping larger files would hold on to a lot of address space in a long running process.
+     */
+    static final long MAPPED_HASH_LIMIT = 64 * 1024 * 1024;
+    static final int READ_BUFFER_SIZE = 256 * 1024;
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        }
+    };
+
     public static HashValue createHash(String scriptText, String algorithm) {
         MessageDigest messageDigest = createMessageDigest(algorithm);
         messageDigest.update(scriptText.getBytes());
@@ -31,7 +51,15 @@ public class HashUtil {
 
     public static HashValue createHash(File file, String algorithm) {
         try {
-            return createHash(new FileInputStream(file), algorithm);
+            long length = file.length();
+            if (length < MAPPED_HASH_THRESHOLD) {
+                return createHash(new FileInputStream(file), algorithm);
+            }
+            // A file cannot be deleted on Windows while it is mapped, and the mapping is only released once garbage collected
+            if (length <= MAPPED_HASH_LIMIT && !OperatingSystem.current().isWindows()) {
+                return createMappedHash(new FileInputStream(file), algorithm);
+            }
+            return createChannelHash(new FileInputStream(file), algorithm);
         } catch (UncheckedIOException e) {
             // Catch any unchecked io exceptions and add the file path for troubleshooting
             throw new UncheckedIOException(String.format("Failed to create %s hash for file %s.", algorithm, file.getAbsolutePath()), e.getCause());
@@ -62,7 +90,65 @@ public class HashUtil {
         return new HashValue(messageDigest.digest());
     }
 
+    /**
+     * Hashes the content of the given stream by mapping it into memory, which avoids copying the content through
+     * a heap buffer for digests that read mapped buffers in place. Only used for files of at most {@link #MAPPED_HASH_LIMIT} bytes.
+     */
+    static HashValue createMappedHash(FileInputStream instr, String algorithm) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = createMessageDigest(algorithm);
+            try {
+                FileChannel channel = instr.getChannel();
+                messageDigest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new HashValue(messageDigest.digest());
+    }
+
+    /**
+     * Hashes the content of the given stream by reading it through its channel into a direct buffer that is reused by the
+     * calling thread, which reads large files in far fewer and larger chunks than a stream.
+     */
+    static HashValue createChannelHash(FileInputStream instr, String algorithm) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = createMessageDigest(algorithm);
+            ByteBuffer buffer = READ_BUFFER.get();
+            try {
+                FileChannel channel = instr.getChannel();
+                while (true) {
+                    buffer.clear();
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    messageDigest.update(buffer);
+                }
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new HashValue(messageDigest.digest());
+    }
+
+    /**
+     * Returns the length in bytes of the digests calculated by the given algorithm.
+     */
+    public static int getDigestLength(String algorithm) {
+        return createMessageDigest(algorithm).getDigestLength();
+    }
+
     private static MessageDigest createMessageDigest(String algorithm) {
+        if (Murmur3MessageDigest.ALGORITHM.equalsIgnoreCase(algorithm)) {
+            return new Murmur3MessageDigest();
+        }
         try {
             return MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException e) {
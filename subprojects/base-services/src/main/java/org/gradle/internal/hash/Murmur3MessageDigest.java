@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+
+/**
+ * A streaming implementation of the 128 bit, x64 variant of MurmurHash3, using a seed of 0. The digest is the two 64 bit halves of the
+ * hash, each in little endian byte order, which is the same representation as used by Guava.
+ *
+ * <p>This is not a cryptographic hash function. It is meant for detecting changes to local files, where it is several times faster than MD5.</p>
+ */
+public class Murmur3MessageDigest extends MessageDigest {
+    public static final String ALGORITHM = "MURMUR3-128";
+
+    private static final int BLOCK_SIZE = 16;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private int buffered;
+    private long length;
+    private long h1;
+    private long h2;
+
+    public Murmur3MessageDigest() {
+        super(ALGORITHM);
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        buffer[buffered++] = input;
+        length++;
+        if (buffered == BLOCK_SIZE) {
+            processBlock(buffer, 0);
+            buffered = 0;
+        }
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        length += len;
+        int end = offset + len;
+        if (buffered > 0) {
+            int count = Math.min(BLOCK_SIZE - buffered, len);
+            System.arraycopy(input, offset, buffer, buffered, count);
+            buffered += count;
+            offset += count;
+            if (buffered < BLOCK_SIZE) {
+                return;
+            }
+            processBlock(buffer, 0);
+            buffered = 0;
+        }
+        while (end - offset >= BLOCK_SIZE) {
+            processBlock(input, offset);
+            offset += BLOCK_SIZE;
+        }
+        buffered = end - offset;
+        System.arraycopy(input, offset, buffer, 0, buffered);
+    }
+
+    /**
+     * Reads the content of a direct or mapped buffer in place, rather than copying it to the heap first.
+     */
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        if (input.hasArray()) {
+            super.engineUpdate(input);
+            return;
+        }
+        ByteOrder order = input.order();
+        input.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            length += input.remaining();
+            if (buffered > 0) {
+                while (buffered < BLOCK_SIZE && input.hasRemaining()) {
+                    buffer[buffered++] = input.get();
+                }
+                if (buffered < BLOCK_SIZE) {
+                    return;
+                }
+                processBlock(buffer, 0);
+                buffered = 0;
+            }
+            while (input.remaining() >= BLOCK_SIZE) {
+                processBlock(input.getLong(), input.getLong());
+            }
+            while (input.hasRemaining()) {
+                buffer[buffered++] = input.get();
+            }
+        } finally {
+            input.order(order);
+        }
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        processTail();
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = mix(h1);
+        h2 = mix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        byte[] digest = new byte[BLOCK_SIZE];
+        putLong(digest, 0, h1);
+        putLong(digest, 8, h2);
+        engineReset();
+        return digest;
+    }
+
+    @Override
+    protected void engineReset() {
+        buffered = 0;
+        length = 0;
+        h1 = 0;
+        h2 = 0;
+    }
+
+    private void processBlock(byte[] bytes, int offset) {
+        processBlock(getLong(bytes, offset), getLong(bytes, offset + 8));
+    }
+
+    private void processBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private void processTail() {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = buffered - 1; i >= 8; i--) {
+            k2 ^= (long) (buffer[i] & 0xff) << ((i - 8) * 8);
+        }
+        for (int i = Math.min(buffered, 8) - 1; i >= 0; i--) {
+            k1 ^= (long) (buffer[i] & 0xff) << (i * 8);
+        }
+        if (buffered > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (buffered > 0) {
+            h1 ^= mixK1(k1);
+        }
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xffL)
+            | (bytes[offset + 1] & 0xffL) << 8
+            | (bytes[offset + 2] & 0xffL) << 16
+            | (bytes[offset + 3] & 0xffL) << 24
+            | (bytes[offset + 4] & 0xffL) << 32
+            | (bytes[offset + 5] & 0xffL) << 40
+            | (bytes[offset + 6] & 0xffL) << 48
+            | (bytes[offset + 7] & 0xffL) << 56;
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            bytes[offset + i] = (byte) (value >>> (i * 8));
+        }
+    }
+}
@@ -20,6 +20,8 @@ import org.gradle.api.UncheckedIOException
 import spock.lang.Issue
 import spock.lang.Specification
 
+import java.security.MessageDigest
+
 class HashUtilTest extends Specification {
     String stringToHash = "a test string"
     String md5HashString = "b1a4cf30d3f4095f0a7d2a6676bcae77"
@@ -42,6 +44,65 @@ class HashUtilTest extends Specification {
         file.delete()
     }
 
+    def "createHash from large File returns the same #algorithm hash as reading it through a stream" () {
+        setup:
+        File file = File.createTempFile("HashUtilTest", null)
+        def bytes = new byte[(int) HashUtil.MAPPED_HASH_THRESHOLD + 17]
+        new Random(17).nextBytes(bytes)
+        file.bytes = bytes
+
+        expect:
+        HashUtil.createHash(file, algorithm) == HashUtil.createHash(new ByteArrayInputStream(bytes), algorithm)
+        HashUtil.createMappedHash(new FileInputStream(file), algorithm) == HashUtil.createHash(new ByteArrayInputStream(bytes), algorithm)
+
+        cleanup:
+        file.delete()
+
+        where:
+        algorithm << ["MD5", "SHA1", "MURMUR3-128"]
+    }
+
+    def "createChannelHash returns the #algorithm digest of the content of a file spanning several reads" () {
+        setup:
+        File file = File.createTempFile("HashUtilTest", null)
+        def bytes = new byte[3 * HashUtil.READ_BUFFER_SIZE + 17]
+        new Random(17).nextBytes(bytes)
+        file.bytes = bytes
+
+        expect:
+        HashUtil.createChannelHash(new FileInputStream(file), algorithm).asByteArray() == MessageDigest.getInstance(algorithm).digest(bytes)
+
+        cleanup:
+        file.delete()
+
+        where:
+        algorithm << ["MD5", "SHA1"]
+    }
+
+    def "createHash from File larger than the mapping limit returns MD5 hash of its content" () {
+        setup:
+        File file = File.createTempFile("HashUtilTest", null)
+        def randomAccessFile = new RandomAccessFile(file, "rw")
+        randomAccessFile.setLength(HashUtil.MAPPED_HASH_LIMIT + 17)
+        randomAccessFile.seek(HashUtil.MAPPED_HASH_LIMIT)
+        randomAccessFile.write("end of file".bytes)
+        randomAccessFile.close()
+
+        def digest = MessageDigest.getInstance("MD5")
+        def zeros = new byte[1024 * 1024]
+        for (int i = 0; i < HashUtil.MAPPED_HASH_LIMIT / zeros.length; i++) {
+            digest.update(zeros)
+        }
+        digest.update("end of file".bytes)
+        digest.update(new byte[6])
+
+        expect:
+        HashUtil.createHash(file, "MD5").asByteArray() == digest.digest()
+
+        cleanup:
+        file.delete()
+    }
+
     @Issue("https://issues.gradle.org/browse/GRADLE-2967")
     def "createHash from File adds filename to UncheckedIOException" () {
         setup:
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import spock.lang.Specification
+
+import java.security.MessageDigest
+
+class Murmur3MessageDigestTest extends Specification {
+    def "calculates hash of #input"() {
+        expect:
+        new HashValue(new Murmur3MessageDigest().digest(input.bytes)).asZeroPaddedHexString(32) == hash
+
+        where:
+        input                                         | hash
+        ""                                            | "00000000000000000000000000000000"
+        "hello"                                       | "029bbd41b3a7d8cb191dae486a901e5b"
+        "a test string"                               | "152e3daada8b0d699d03b6ca5ad5fea3"
+        "The quick brown fox jumps over the lazy dog" | "6c1b07bc7bbc4be347939ac4a93c437a"
+    }
+
+    def "produces the same hash regardless of how input is split"() {
+        def bytes = new byte[1000]
+        new Random(42).nextBytes(bytes)
+        def expected = new Murmur3MessageDigest().digest(bytes)
+
+        when:
+        MessageDigest digest = new Murmur3MessageDigest()
+        int offset = 0
+        [1, 3, 16, 17, 1, 200, 31, 700, 31].each { count ->
+            if (count == 1) {
+                digest.update(bytes[offset])
+            } else {
+                digest.update(bytes, offset, count)
+            }
+            offset += count
+        }
+
+        then:
+        offset == bytes.length
+        digest.digest() == expected
+    }
+
+    def "can be reused after digest is calculated"() {
+        def digest = new Murmur3MessageDigest()
+        digest.update("something else".bytes)
+        digest.digest()
+
+        expect:
+        new HashValue(digest.digest("hello".bytes)).asZeroPaddedHexString(32) == "029bbd41b3a7d8cb191dae486a901e5b"
+    }
+
+    def "is used for the MURMUR3-128 algorithm"() {
+        expect:
+        HashUtil.createHash("hello", "MURMUR3-128").asZeroPaddedHexString(32) == "029bbd41b3a7d8cb191dae486a901e5b"
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.jsoup.Jsoup
+import org.jsoup.nodes.Document
+
+class CriticalPathSchedulingIntegrationTest extends AbstractIntegrationSpec {
+
+    def setup() {
+        file('settings.gradle') << 'include "a", "b"'
+        buildFile << '''
+allprojects {
+    task slow {
+        outputs.file "build/slow.txt"
+        doLast {
+            sleep 200
+            file("build/slow.txt").text = "slow"
+        }
+    }
+    task fast {
+        outputs.file "build/fast.txt"
+        doLast {
+            file("build/fast.txt").text = "fast"
+        }
+    }
+    task all(dependsOn: [slow, fast])
+}
+gradle.buildFinished {
+    file("criticalPath.txt").text = gradle.startParameter.criticalPathScheduling
+}
+'''
+    }
+
+    def "can build with critical path scheduling enabled"() {
+        when:
+        args("--critical-path", "--parallel")
+        run "all"
+
+        then:
+        file("criticalPath.txt").text == "true"
+        file("a/build/slow.txt").text == "slow"
+        file("b/build/fast.txt").text == "fast"
+
+        when:
+        args("--critical-path", "--parallel", "--rerun-tasks")
+        run "all"
+
+        then:
+        file("criticalPath.txt").text == "true"
+        executedAndNotSkipped(":a:slow", ":a:fast", ":b:slow", ":b:fast")
+    }
+
+    def "reports critical path in profile report"() {
+        given:
+        args("--critical-path")
+        run "all"
+
+        when:
+        args("--critical-path", "--profile", "--rerun-tasks")
+        run "all"
+
+        then:
+        def reportFile = file('build/reports/profile').listFiles().find { it.name ==~ /profile-.+.html/ }
+        Document document = Jsoup.parse(reportFile, null);
+        document.text().contains("Critical Path")
+        !document.select("TD:contains(:a:slow)").isEmpty()
+    }
+
+    def "does not use critical path scheduling by default"() {
+        when:
+        run "all"
+
+        then:
+        file("criticalPath.txt").text == "false"
+    }
+}
@@ -76,6 +76,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     private boolean configureOnDemand;
     private int maxWorkerCount;
     private boolean continuousModeEnabled;
+    private boolean criticalPathScheduling;
 
     /**
      * Sets the project's cache location. Set to null to use the default location.
@@ -160,6 +161,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         p.parallelProjectExecution = parallelProjectExecution;
         p.configureOnDemand = configureOnDemand;
         p.maxWorkerCount = maxWorkerCount;
+        p.criticalPathScheduling = criticalPathScheduling;
         return p;
     }
 
@@ -678,6 +680,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
                 + ", parallelProjectExecution=" + parallelProjectExecution
                 + ", configureOnDemand=" + configureOnDemand
                 + ", maxWorkerCount=" + maxWorkerCount
+                + ", criticalPathScheduling=" + criticalPathScheduling
                 + '}';
     }
 
@@ -702,4 +705,23 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     public void setContinuousModeEnabled(boolean continuousModeEnabled) {
         this.continuousModeEnabled = continuousModeEnabled;
     }
+
+    /**
+     * Returns true if tasks that are ready to execute in parallel should be started in order of the longest estimated remaining critical path,
+     * based on the execution times recorded for them by previous builds, rather than in execution plan order.
+     */
+    @Incubating
+    public boolean isCriticalPathScheduling() {
+        return criticalPathScheduling;
+    }
+
+    /**
+     * Specifies whether tasks that are ready to execute in parallel should be started in order of the longest estimated remaining critical path.
+     *
+     * @see #isCriticalPathScheduling()
+     */
+    @Incubating
+    public void setCriticalPathScheduling(boolean criticalPathScheduling) {
+        this.criticalPathScheduling = criticalPathScheduling;
+    }
 }
@@ -60,6 +60,8 @@ import java.util.concurrent.TimeUnit;
  *     cacheDynamicVersionsFor 10*60, 'seconds'
  *     // don't cache changing modules at all
  *     cacheChangingModulesFor 0, 'seconds'
+ *     // don't look for missing modules again for 4 hours
+ *     cacheMissingModulesFor 4, 'hours'
  *   }
  * }
  * </pre>
@@ -222,6 +224,33 @@ public interface ResolutionStrategy {
      */
     void cacheChangingModulesFor(int value, TimeUnit units);
 
+    /**
+     * Sets the length of time that missing modules will be cached, with units expressed as a String.
+     *
+     * <p>A convenience method for {@link #cacheMissingModulesFor(int, java.util.concurrent.TimeUnit)} with units expressed as a String.
+     * Units are resolved by calling the {@code valueOf(String)} method of {@link java.util.concurrent.TimeUnit} with the upper-cased string value.</p>
+     * @param value The number of time units
+     * @param units The units
+     * @since 2.5
+     */
+    @Incubating
+    void cacheMissingModulesFor(int value, String units);
+
+    /**
+     * Sets the length of time that missing modules will be cached.
+     *
+     * <p>Gradle remembers when a module could not be found in a repository. By default, this is only relied on for the rest of the build,
+     * and the next build looks for the module in the repository again.</p>
+     * <p>Use this method to rely on the cached entry for the given length of time instead, so that repositories are not searched again for a
+     * module that is known to be missing. A module that is published to the repository during this time is not found until the cached entry expires,
+     * or until dependencies are refreshed with {@code --refresh-dependencies}.</p>
+     * @param value The number of time units
+     * @param units The units
+     * @since 2.5
+     */
+    @Incubating
+    void cacheMissingModulesFor(int value, TimeUnit units);
+
     /**
      * Returns the currently configured version selection rules object.
      *
@@ -536,7 +536,7 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
         }
     }
 
-    private static class ClosureTaskAction implements ContextAwareTaskAction {
+    private static class ClosureTaskAction implements ClassLoaderAwareTaskAction {
         private final Closure closure;
 
         private ClosureTaskAction(Closure closure) {
@@ -546,6 +546,14 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
         public void contextualise(TaskExecutionContext context) {
         }
 
+        public ClassLoader getClassLoader() {
+            return closure.getClass().getClassLoader();
+        }
+
+        public String getActionClassName() {
+            return closure.getClass().getName();
+        }
+
         public void execute(Task task) {
             closure.setDelegate(task);
             closure.setResolveStrategy(Closure.DELEGATE_FIRST);
@@ -569,7 +577,7 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
         }
     }
 
-    private static class TaskActionWrapper implements ContextAwareTaskAction {
+    private static class TaskActionWrapper implements ClassLoaderAwareTaskAction {
         private final Action<? super Task> action;
 
         public TaskActionWrapper(Action<? super Task> action) {
@@ -582,6 +590,14 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
             }
         }
 
+        public ClassLoader getClassLoader() {
+            return action.getClass().getClassLoader();
+        }
+
+        public String getActionClassName() {
+            return action.getClass().getName();
+        }
+
         public void execute(Task task) {
             ClassLoader original = Thread.currentThread().getContextClassLoader();
             Thread.currentThread().setContextClassLoader(action.getClass().getClassLoader());
@@ -29,6 +29,12 @@ public interface CachePolicy {
 
     boolean mustRefreshMissingModule(ModuleComponentIdentifier component, long ageMillis);
 
+    /**
+     * Returns true when a module that was not found in a repository is assumed to be missing until the cached entry expires. Otherwise, the module
+     * is looked for again in each build.
+     */
+    boolean isCachingMissingModules();
+
     boolean mustRefreshModule(ModuleComponentIdentifier component, ResolvedModuleVersion resolvedModuleVersion, long ageMillis);
 
     boolean mustRefreshChangingModule(ModuleComponentIdentifier component, ResolvedModuleVersion resolvedModuleVersion, long ageMillis);
@@ -44,7 +44,7 @@ public class MinimalPersistentCache<K, V> implements Cache<K, V>, Stoppable {
         cacheAccess = cacheRepository
                 .cache(identifier)
                 .withDisplayName(cacheName + " cache")
-                .withLockOptions(mode(FileLockManager.LockMode.None))
+                .withLockOptions(mode(FileLockManager.LockMode.None).concurrentAccess())
                 .open();
 
         PersistentIndexedCacheParameters<K, V> params =
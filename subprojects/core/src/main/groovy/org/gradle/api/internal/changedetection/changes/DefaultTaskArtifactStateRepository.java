@@ -25,11 +25,14 @@ import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.api.internal.changedetection.rules.TaskStateChanges;
 import org.gradle.api.internal.changedetection.rules.TaskUpToDateState;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
+import org.gradle.api.internal.changedetection.state.TaskCacheKeyCalculator;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
+import org.gradle.util.Clock;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -41,13 +44,16 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private final FileCollectionSnapshotter outputFilesSnapshotter;
     private final FileCollectionSnapshotter inputFilesSnapshotter;
     private final Instantiator instantiator;
+    private final TaskCacheKeyCalculator cacheKeyCalculator;
 
     public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, Instantiator instantiator,
-                                              FileCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter) {
+                                              FileCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter,
+                                              TaskCacheKeyCalculator cacheKeyCalculator) {
         this.taskHistoryRepository = taskHistoryRepository;
         this.instantiator = instantiator;
         this.outputFilesSnapshotter = outputFilesSnapshotter;
         this.inputFilesSnapshotter = inputFilesSnapshotter;
+        this.cacheKeyCalculator = cacheKeyCalculator;
     }
 
     public TaskArtifactState getStateFor(final TaskInternal task) {
@@ -59,6 +65,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         private final TaskHistoryRepository.History history;
         private boolean upToDate;
         private TaskUpToDateState states;
+        private Clock clock;
 
         public TaskArtifactStateImpl(TaskInternal task, TaskHistoryRepository.History history) {
             this.task = task;
@@ -97,6 +104,10 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return messages.isEmpty();
         }
 
+        public TaskCacheKey calculateCacheKey() {
+            return cacheKeyCalculator.calculate(task, history.getCurrentExecution(), getStates().getCurrentInputFilesSnapshot());
+        }
+
         public FileCollection getOutputFiles() {
             TaskExecution lastExecution = history.getPreviousExecution();
             return lastExecution != null && lastExecution.getOutputFilesSnapshot() != null ? lastExecution.getOutputFilesSnapshot().getFiles() : new SimpleFileCollection();
@@ -107,6 +118,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         }
 
         public void beforeTask() {
+            clock = new Clock();
         }
 
         public void afterTask() {
@@ -114,6 +126,9 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
                 return;
             }
 
+            if (clock != null) {
+                history.getCurrentExecution().setExecutionTime(clock.getTimeInMs());
+            }
             getStates().getAllTaskChanges().snapshotAfterTask();
             history.update();
         }
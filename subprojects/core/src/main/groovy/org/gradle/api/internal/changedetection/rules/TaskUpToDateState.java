@@ -26,6 +26,7 @@ import org.gradle.api.internal.changedetection.state.*;
 public class TaskUpToDateState {
     private static final int MAX_OUT_OF_DATE_MESSAGES = 3;
     private final FilesSnapshotSet inputFilesSnapshot;
+    private final FileCollectionSnapshot currentInputFilesSnapshot;
 
     private TaskStateChanges noHistoryState;
     private TaskStateChanges inputFilesState;
@@ -53,6 +54,7 @@ public class TaskUpToDateState {
         // Capture inputs state
         try {
             FileCollectionSnapshot inputFilesSnapshot = inputFilesSnapshotter.snapshot(task.getInputs().getFiles());
+            this.currentInputFilesSnapshot = inputFilesSnapshot;
             this.inputFilesSnapshot = inputFilesSnapshot.getSnapshot();
             inputFilesState = caching(InputFilesStateChangeRule.create(lastExecution, thisExecution, inputFilesSnapshot));
         } catch (UncheckedIOException e) {
@@ -82,4 +84,8 @@ public class TaskUpToDateState {
     public FilesSnapshotSet getInputFilesSnapshot() {
         return inputFilesSnapshot;
     }
+
+    public FileCollectionSnapshot getCurrentInputFilesSnapshot() {
+        return currentInputFilesSnapshot;
+    }
 }
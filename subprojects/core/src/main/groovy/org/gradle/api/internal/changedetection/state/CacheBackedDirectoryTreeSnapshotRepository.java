@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.file.collections.DirectoryTreeSnapshot;
+import org.gradle.cache.PersistentIndexedCache;
+
+import java.io.File;
+import java.util.TreeMap;
+
+public class CacheBackedDirectoryTreeSnapshotRepository implements DirectoryTreeSnapshotRepository {
+    private final PersistentIndexedCache<String, DirectoryTreeSnapshot> cache;
+
+    public CacheBackedDirectoryTreeSnapshotRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        cache = cacheAccess.createCache("directoryTreeSnapshots", String.class, new DirectoryTreeSnapshotSerializer());
+    }
+
+    public DirectoryTreeSnapshot get(File rootDir) {
+        DirectoryTreeSnapshot snapshot = cache.get(rootDir.getAbsolutePath());
+        if (snapshot == null) {
+            return new DirectoryTreeSnapshot();
+        }
+        // The cache may hand out the same instance to concurrent builds, so update a copy
+        return new DirectoryTreeSnapshot(new TreeMap<String, DirectoryTreeSnapshot.DirectoryListing>(snapshot.getListings()));
+    }
+
+    public void put(File rootDir, DirectoryTreeSnapshot snapshot) {
+        cache.put(rootDir.getAbsolutePath(), snapshot);
+    }
+}
@@ -239,6 +239,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                 execution.inputFilesSnapshotId = decoder.readLong();
                 execution.outputFilesSnapshotId = decoder.readLong();
                 execution.setTaskClass(decoder.readString());
+                execution.setExecutionTime(decoder.readLong());
                 int outputFiles = decoder.readInt();
                 Set<String> files = new HashSet<String>();
                 for (int j = 0; j < outputFiles; j++) {
@@ -260,6 +261,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                 encoder.writeLong(execution.inputFilesSnapshotId);
                 encoder.writeLong(execution.outputFilesSnapshotId);
                 encoder.writeString(execution.getTaskClass());
+                encoder.writeLong(execution.getExecutionTime());
                 encoder.writeInt(execution.getOutputFiles().size());
                 for (String outputFile : execution.getOutputFiles()) {
                     encoder.writeString(outputFile);
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.internal.hash.DefaultHasher;
 import org.gradle.api.internal.hash.Hasher;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
@@ -25,28 +26,78 @@ import org.gradle.internal.serialize.Serializer;
 import java.io.File;
 
 public class CachingFileSnapshotter implements FileSnapshotter {
+    private static final String CACHE_NAME = "fileHashes";
+
     private final PersistentIndexedCache<File, FileInfo> cache;
     private final Hasher hasher;
     private final FileInfoSerializer serializer = new FileInfoSerializer();
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store) {
+        this(hasher, store, CACHE_NAME);
+    }
+
+    public CachingFileSnapshotter(Hasher hasher, PersistentStore store, String cacheName) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", File.class, serializer);
+        this.cache = store.createCache(cacheName, File.class, serializer);
+    }
+
+    public CachingFileSnapshotter(Hasher hasher, PersistentIndexedCache<File, FileInfo> cache) {
+        this.hasher = hasher;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the name of the cache holding the hashes calculated with the given algorithm. Hashes calculated with different algorithms
+     * are kept in separate caches, so that changing the algorithm never compares hashes of different kinds.
+     */
+    public static String getCacheName(String hashAlgorithm) {
+        if (hashAlgorithm.equalsIgnoreCase(DefaultHasher.DEFAULT_ALGORITHM)) {
+            return CACHE_NAME;
+        }
+        return CACHE_NAME + "-" + hashAlgorithm.toLowerCase();
     }
 
     public FileInfo snapshot(File file) {
-        FileInfo info = cache.get(file);
+        return snapshot(file, file.length(), file.lastModified());
+    }
+
+    public FileInfo snapshot(File file, long length, long timestamp) {
+        FileInfo info = getCached(file, length, timestamp);
+        if (info != null) {
+            return info;
+        }
 
-        long length = file.length();
-        long timestamp = file.lastModified();
+        info = calculate(file, length, timestamp);
+        cache.put(file, info);
+        return info;
+    }
+
+    /**
+     * Returns the cached snapshot of the given file, if it is still valid for the given length and timestamp. Requires access to the cache.
+     *
+     * @return the cached snapshot, or null if there is no valid cached snapshot.
+     */
+    public FileInfo getCached(File file, long length, long timestamp) {
+        FileInfo info = cache.get(file);
         if (info != null && length == info.length && timestamp == info.timestamp) {
             return info;
         }
+        return null;
+    }
 
+    /**
+     * Calculates the snapshot of the given file, without using the cache. Does not require access to the cache, and can be called concurrently.
+     */
+    public FileInfo calculate(File file, long length, long timestamp) {
         byte[] hash = hasher.hash(file);
-        info = new FileInfo(hash, length, timestamp);
+        return new FileInfo(hash, length, timestamp);
+    }
+
+    /**
+     * Adds a snapshot calculated by {@link #calculate(java.io.File, long, long)} to the cache. Requires access to the cache.
+     */
+    public void cache(File file, FileInfo info) {
         cache.put(file, info);
-        return info;
     }
 
     public static class FileInfo implements FileSnapshot {
@@ -63,6 +114,14 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         public byte[] getHash() {
             return hash;
         }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
     }
 
     private static class FileInfoSerializer implements Serializer<FileInfo> {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderHierarchy;
+import org.gradle.internal.classloader.ClassLoaderVisitor;
+import org.gradle.internal.hash.HashValue;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Calculates a hash of the classes that a class loader can load, so that a task implementation can be identified in a task cache key.
+ *
+ * <p>Classes loaded by Gradle's own class loaders are identified by the Gradle version, so these class loaders are not hashed. Other class loaders
+ * are hashed using the contents of their class path. A class loader that is neither can't be identified, and has no hash.</p>
+ */
+public class ClassLoaderHasher {
+    private final Set<ClassLoader> gradleClassLoaders = Sets.newSetFromMap(new IdentityHashMap<ClassLoader, Boolean>());
+    private final FileSnapshotter fileSnapshotter;
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    // The classes of a class loader do not change once it has been created, so its hash is calculated only once
+    private final Cache<ClassLoader, Optional<HashValue>> hashes = CacheBuilder.newBuilder().weakKeys().build();
+
+    public ClassLoaderHasher(ClassLoaderRegistry classLoaderRegistry, FileSnapshotter fileSnapshotter, TaskArtifactStateCacheAccess cacheAccess) {
+        this.fileSnapshotter = fileSnapshotter;
+        this.cacheAccess = cacheAccess;
+        gradleClassLoaders.add(classLoaderRegistry.getGradleCoreApiClassLoader());
+        gradleClassLoaders.add(classLoaderRegistry.getGradleApiClassLoader());
+        gradleClassLoaders.add(classLoaderRegistry.getRuntimeClassLoader());
+        gradleClassLoaders.add(classLoaderRegistry.getPluginsClassLoader());
+        for (ClassLoader classLoader = ClassLoader.getSystemClassLoader(); classLoader != null; classLoader = classLoader.getParent()) {
+            gradleClassLoaders.add(classLoader);
+        }
+    }
+
+    /**
+     * Returns the hash of the given class loader, or null when the classes it can load can't be identified.
+     */
+    public HashValue getHash(final ClassLoader classLoader) {
+        if (classLoader == null) {
+            // The bootstrap class loader
+            return new HashValue(new byte[0]);
+        }
+        Optional<HashValue> hash = hashes.getIfPresent(classLoader);
+        if (hash == null) {
+            hash = Optional.fromNullable(cacheAccess.useCache("Hash class loader", new Factory<HashValue>() {
+                public HashValue create() {
+                    HashingVisitor visitor = new HashingVisitor();
+                    visitor.visit(classLoader);
+                    return visitor.getHash();
+                }
+            }));
+            hashes.put(classLoader, hash);
+        }
+        return hash.orNull();
+    }
+
+    private class HashingVisitor extends ClassLoaderVisitor {
+        private final Set<ClassLoader> visited = Sets.newSetFromMap(new IdentityHashMap<ClassLoader, Boolean>());
+        private final MessageDigest digest;
+        private boolean identified = true;
+
+        HashingVisitor() {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        HashValue getHash() {
+            return identified ? new HashValue(digest.digest()) : null;
+        }
+
+        @Override
+        public void visit(ClassLoader classLoader) {
+            if (!identified || !visited.add(classLoader) || gradleClassLoaders.contains(classLoader)) {
+                return;
+            }
+            if (!(classLoader instanceof URLClassLoader) && !(classLoader instanceof ClassLoaderHierarchy)) {
+                identified = false;
+                return;
+            }
+            super.visit(classLoader);
+        }
+
+        @Override
+        public void visitClassPath(URL[] classPath) {
+            for (URL url : classPath) {
+                if (!url.getProtocol().equals("file")) {
+                    identified = false;
+                    return;
+                }
+                try {
+                    hash(new File(url.toURI()), "");
+                } catch (URISyntaxException e) {
+                    identified = false;
+                    return;
+                }
+            }
+        }
+
+        private void hash(File file, String relativePath) {
+            if (file.isFile()) {
+                update(relativePath);
+                digest.update(fileSnapshotter.snapshot(file).getHash());
+            } else if (file.isDirectory()) {
+                File[] children = file.listFiles();
+                if (children == null) {
+                    return;
+                }
+                Arrays.sort(children);
+                for (File child : children) {
+                    hash(child, relativePath + "/" + child.getName());
+                }
+            }
+        }
+
+        private void update(String value) {
+            try {
+                digest.update(value.getBytes("UTF-8"));
+                digest.update((byte) 0);
+            } catch (UnsupportedEncodingException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+}
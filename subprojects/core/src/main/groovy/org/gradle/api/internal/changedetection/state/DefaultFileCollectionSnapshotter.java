@@ -16,8 +16,16 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.collect.Maps;
+import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileCollection;
-import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.collections.*;
+import org.gradle.internal.Factory;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 import org.gradle.internal.serialize.SerializerRegistry;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
@@ -28,11 +36,20 @@ import java.util.*;
 
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter {
     private final FileSnapshotter snapshotter;
-    private TaskArtifactStateCacheAccess cacheAccess;
+    protected final TaskArtifactStateCacheAccess cacheAccess;
+    private final DirectoryTreeSnapshotRepository directoryTreeSnapshots;
 
     public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess) {
+        this(snapshotter, cacheAccess, null);
+    }
+
+    /**
+     * @param directoryTreeSnapshots used to avoid listing unchanged directories again, or null to always list directories.
+     */
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, DirectoryTreeSnapshotRepository directoryTreeSnapshots) {
         this.snapshotter = snapshotter;
         this.cacheAccess = cacheAccess;
+        this.directoryTreeSnapshots = directoryTreeSnapshots;
     }
 
     public void registerSerializers(SerializerRegistry<FileCollectionSnapshot> registry) {
@@ -44,15 +61,94 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
     }
 
     public FileCollectionSnapshot snapshot(FileCollection input) {
-        final Set<File> files = input.getAsFileTree().getFiles();
+        final Map<File, FileVisitDetails> files = listFiles(input);
         if (files.isEmpty()) {
             return new FileCollectionSnapshotImpl(Collections.<String, IncrementalFileSnapshot>emptyMap());
         }
         final Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
+        snapshotFiles(files, snapshots);
+        return new FileCollectionSnapshotImpl(snapshots);
+    }
+
+    /**
+     * Returns the files of the given collection, along with the details of each file as seen while visiting it.
+     */
+    private Map<File, FileVisitDetails> listFiles(FileCollection input) {
+        final Map<File, FileVisitDetails> files = new LinkedHashMap<File, FileVisitDetails>();
+        FileVisitor visitor = new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                File file = fileDetails.getFile();
+                if (!files.containsKey(file)) {
+                    files.put(file, fileDetails);
+                }
+            }
+        };
+        if (directoryTreeSnapshots == null) {
+            input.getAsFileTree().visit(visitor);
+            return files;
+        }
+
+        DefaultFileCollectionResolveContext context = new DefaultFileCollectionResolveContext();
+        context.add(input.getAsFileTree());
+        final Map<File, DirectoryTreeSnapshot> treeSnapshots = new LinkedHashMap<File, DirectoryTreeSnapshot>();
+        for (FileTreeInternal fileTree : context.resolveAsFileTrees()) {
+            if (fileTree instanceof FileTreeAdapter && ((FileTreeAdapter) fileTree).getTree() instanceof DirectoryFileTree) {
+                DirectoryFileTree directoryTree = (DirectoryFileTree) ((FileTreeAdapter) fileTree).getTree();
+                directoryTree.visit(visitor, getTreeSnapshot(directoryTree.getDir(), treeSnapshots));
+            } else {
+                fileTree.visit(visitor);
+            }
+        }
+        storeTreeSnapshots(treeSnapshots);
+        return files;
+    }
+
+    private DirectoryTreeSnapshot getTreeSnapshot(final File rootDir, Map<File, DirectoryTreeSnapshot> treeSnapshots) {
+        DirectoryTreeSnapshot treeSnapshot = treeSnapshots.get(rootDir);
+        if (treeSnapshot == null) {
+            treeSnapshot = cacheAccess.useCache("Load directory tree snapshot", new Factory<DirectoryTreeSnapshot>() {
+                public DirectoryTreeSnapshot create() {
+                    return directoryTreeSnapshots.get(rootDir);
+                }
+            });
+            treeSnapshots.put(rootDir, treeSnapshot);
+        }
+        return treeSnapshot;
+    }
+
+    private void storeTreeSnapshots(Map<File, DirectoryTreeSnapshot> treeSnapshots) {
+        final Map<File, DirectoryTreeSnapshot> modified = new LinkedHashMap<File, DirectoryTreeSnapshot>();
+        for (Map.Entry<File, DirectoryTreeSnapshot> entry : treeSnapshots.entrySet()) {
+            if (entry.getValue().isModified()) {
+                modified.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (modified.isEmpty()) {
+            return;
+        }
+        cacheAccess.useCache("Store directory tree snapshots", new Runnable() {
+            public void run() {
+                for (Map.Entry<File, DirectoryTreeSnapshot> entry : modified.entrySet()) {
+                    directoryTreeSnapshots.put(entry.getKey(), entry.getValue());
+                }
+            }
+        });
+    }
+
+    protected void snapshotFiles(final Map<File, FileVisitDetails> files, final Map<String, IncrementalFileSnapshot> snapshots) {
         cacheAccess.useCache("Create file snapshot", new Runnable() {
             public void run() {
-                for (File file : files) {
-                    if (file.isFile()) {
+                for (Map.Entry<File, FileVisitDetails> entry : files.entrySet()) {
+                    File file = entry.getKey();
+                    FileVisitDetails fileDetails = entry.getValue();
+                    if (hasFileAttributes(fileDetails)) {
+                        if (fileDetails.isDirectory()) {
+                            snapshots.put(file.getAbsolutePath(), new DirSnapshot());
+                        } else {
+                            snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(snapshotter.snapshot(file, fileDetails.getSize(), fileDetails.getLastModified()).getHash()));
+                        }
+                    } else if (file.isFile()) {
                         snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(snapshotter.snapshot(file).getHash()));
                     } else if (file.isDirectory()) {
                         snapshots.put(file.getAbsolutePath(), new DirSnapshot());
@@ -62,11 +158,20 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
                 }
             }
         });
-        return new FileCollectionSnapshotImpl(snapshots);
+    }
+
+    /**
+     * Returns true when the type, size and modification time of the file were read while visiting it, in which case the file existed
+     * at that point and these do not need to be queried again.
+     */
+    protected static boolean hasFileAttributes(FileVisitDetails fileDetails) {
+        return fileDetails instanceof DefaultFileVisitDetails && ((DefaultFileVisitDetails) fileDetails).hasFileAttributes();
     }
 
     static interface IncrementalFileSnapshot {
         boolean isUpToDate(IncrementalFileSnapshot snapshot);
+
+        void appendToCacheKey(TaskCacheKeyBuilder builder);
     }
 
     static class FileHashSnapshot implements IncrementalFileSnapshot, FileSnapshot {
@@ -85,6 +190,11 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             return Arrays.equals(hash, other.hash);
         }
 
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            builder.putByte((byte) 1);
+            builder.putBytes(hash);
+        }
+
         @Override
         public String toString() {
             return new BigInteger(1, hash).toString(16);
@@ -99,24 +209,85 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         public boolean isUpToDate(IncrementalFileSnapshot snapshot) {
             return snapshot instanceof DirSnapshot;
         }
+
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            builder.putByte((byte) 2);
+        }
     }
 
     static class MissingFileSnapshot implements IncrementalFileSnapshot {
         public boolean isUpToDate(IncrementalFileSnapshot snapshot) {
             return snapshot instanceof MissingFileSnapshot;
         }
+
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            builder.putByte((byte) 3);
+        }
     }
 
     static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-        final Map<String, IncrementalFileSnapshot> snapshots;
+        // Either the snapshots of a new collection, or the encoded snapshots of a collection read from the task history. The latter are only decoded when used
+        private final Map<String, IncrementalFileSnapshot> snapshots;
+        private final EncodedFileSnapshots encodedSnapshots;
+        private volatile String[] sortedPaths;
+        private volatile EncodedFileSnapshots encodedNewSnapshots;
 
         public FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots) {
             this.snapshots = snapshots;
+            this.encodedSnapshots = null;
+        }
+
+        public FileCollectionSnapshotImpl(EncodedFileSnapshots encodedSnapshots) {
+            this.snapshots = null;
+            this.encodedSnapshots = encodedSnapshots;
+        }
+
+        Map<String, IncrementalFileSnapshot> getSnapshots() {
+            if (snapshots != null) {
+                return snapshots;
+            }
+            EncodedFileSnapshots.Reader reader = encodedSnapshots.read();
+            Map<String, IncrementalFileSnapshot> decoded = new HashMap<String, IncrementalFileSnapshot>(reader.getCount() * 4 / 3 + 1);
+            while (reader.next()) {
+                decoded.put(reader.getPath(), reader.getSnapshot());
+            }
+            return decoded;
+        }
+
+        /**
+         * Returns a cursor over the snapshots of this collection, in the order of their paths.
+         */
+        FileSnapshotCursor cursor() {
+            if (encodedSnapshots != null) {
+                return encodedSnapshots.read();
+            }
+            String[] paths = sortedPaths;
+            if (paths == null) {
+                paths = snapshots.keySet().toArray(new String[snapshots.size()]);
+                Arrays.sort(paths);
+                sortedPaths = paths;
+            }
+            return new SortedPathsCursor(paths, snapshots);
+        }
+
+        /**
+         * Returns the encoded form of the snapshots. The snapshots of a new collection are encoded once, as they are encoded both to weigh them and to write them to the task history.
+         */
+        EncodedFileSnapshots getEncodedSnapshots() {
+            if (encodedSnapshots != null) {
+                return encodedSnapshots;
+            }
+            EncodedFileSnapshots encoded = encodedNewSnapshots;
+            if (encoded == null) {
+                encoded = EncodedFileSnapshots.encode(snapshots);
+                encodedNewSnapshots = encoded;
+            }
+            return encoded;
         }
 
         public FileCollection getFiles() {
             List<File> files = new ArrayList<File>();
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
+            for (Map.Entry<String, IncrementalFileSnapshot> entry : getSnapshots().entrySet()) {
                 if (entry.getValue() instanceof FileHashSnapshot) {
                     files.add(new File(entry.getKey()));
                 }
@@ -125,6 +296,7 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
 
         public FilesSnapshotSet getSnapshot() {
+            final Map<String, IncrementalFileSnapshot> snapshots = getSnapshots();
             return new FilesSnapshotSet() {
                 public FileSnapshot findSnapshot(File file) {
                     IncrementalFileSnapshot s = snapshots.get(file.getAbsolutePath());
@@ -136,43 +308,43 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             };
         }
 
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            builder.putInt(encodedSnapshots != null ? encodedSnapshots.read().getCount() : snapshots.size());
+            FileSnapshotCursor cursor = cursor();
+            while (cursor.next()) {
+                builder.putString(cursor.getPath());
+                cursor.getSnapshot().appendToCacheKey(builder);
+            }
+        }
+
         public ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot) {
             FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
-            final Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(other.snapshots);
-            final Iterator<String> currentFiles = snapshots.keySet().iterator();
+            final SnapshotMergeJoin join = new SnapshotMergeJoin(cursor(), other.cursor());
 
             return new ChangeIterator<String>() {
-                private Iterator<String> removedFiles;
-
                 public boolean next(ChangeListener<String> listener) {
-                    while (currentFiles.hasNext()) {
-                        String currentFile = currentFiles.next();
-                        IncrementalFileSnapshot otherFile = otherSnapshots.remove(currentFile);
-
-                        if (otherFile == null) {
-                            listener.added(currentFile);
+                    switch (join.nextChange()) {
+                        case ADDED:
+                            listener.added(join.getCurrentPath());
                             return true;
-                        } else if (!snapshots.get(currentFile).isUpToDate(otherFile)) {
-                            listener.changed(currentFile);
+                        case REMOVED:
+                            listener.removed(join.getOldPath());
                             return true;
-                        }
-                    }
-
-                    // Create a single iterator to use for all of the removed files
-                    if (removedFiles == null) {
-                        removedFiles = otherSnapshots.keySet().iterator();
-                    }
-
-                    if (removedFiles.hasNext()) {
-                        listener.removed(removedFiles.next());
-                        return true;
+                        case CHANGED:
+                            listener.changed(join.getCurrentPath());
+                            return true;
+                        default:
+                            return false;
                     }
-
-                    return false;
                 }
             };
         }
 
+        public boolean hasChangesSince(FileCollectionSnapshot oldSnapshot) {
+            FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
+            return new SnapshotMergeJoin(cursor(), other.cursor()).nextChange() != SnapshotMergeJoin.Change.NONE;
+        }
+
         public Diff changesSince(final FileCollectionSnapshot oldSnapshot) {
             final FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
             return new Diff() {
@@ -182,28 +354,131 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
                 public FileCollectionSnapshot applyTo(FileCollectionSnapshot snapshot, final ChangeListener<Merge> listener) {
                     FileCollectionSnapshotImpl target = (FileCollectionSnapshotImpl) snapshot;
-                    final Map<String, IncrementalFileSnapshot> newSnapshots = new HashMap<String, IncrementalFileSnapshot>(target.snapshots);
-                    diff(snapshots, other.snapshots, new MapMergeChangeListener<String, IncrementalFileSnapshot>(listener, newSnapshots));
+                    if (!hasChangesSince(other)) {
+                        // Nothing to apply, so keep the target as it is rather than copying it
+                        return target;
+                    }
+                    final Map<String, IncrementalFileSnapshot> newSnapshots = new HashMap<String, IncrementalFileSnapshot>(target.getSnapshots());
+                    diff(new SnapshotMergeJoin(cursor(), other.cursor()), new MapMergeChangeListener<String, IncrementalFileSnapshot>(listener, newSnapshots));
                     return new FileCollectionSnapshotImpl(newSnapshots);
                 }
             };
         }
 
-        private void diff(Map<String, IncrementalFileSnapshot> snapshots, Map<String, IncrementalFileSnapshot> oldSnapshots,
-                          ChangeListener<Map.Entry<String, IncrementalFileSnapshot>> listener) {
-            Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(oldSnapshots);
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
-                IncrementalFileSnapshot otherFile = otherSnapshots.remove(entry.getKey());
-                if (otherFile == null) {
-                    listener.added(entry);
-                } else if (!entry.getValue().isUpToDate(otherFile)) {
-                    listener.changed(entry);
+        private static void diff(SnapshotMergeJoin join, ChangeListener<Map.Entry<String, IncrementalFileSnapshot>> listener) {
+            SnapshotMergeJoin.Change change;
+            while ((change = join.nextChange()) != SnapshotMergeJoin.Change.NONE) {
+                switch (change) {
+                    case ADDED:
+                        listener.added(Maps.immutableEntry(join.getCurrentPath(), join.getCurrentSnapshot()));
+                        break;
+                    case REMOVED:
+                        listener.removed(Maps.immutableEntry(join.getOldPath(), join.getOldSnapshot()));
+                        break;
+                    case CHANGED:
+                        listener.changed(Maps.immutableEntry(join.getCurrentPath(), join.getCurrentSnapshot()));
+                        break;
                 }
             }
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : otherSnapshots.entrySet()) {
-                listener.removed(entry);
+        }
+    }
+
+    private static class SortedPathsCursor implements FileSnapshotCursor {
+        private final String[] paths;
+        private final Map<String, IncrementalFileSnapshot> snapshots;
+        private int index = -1;
+
+        SortedPathsCursor(String[] paths, Map<String, IncrementalFileSnapshot> snapshots) {
+            this.paths = paths;
+            this.snapshots = snapshots;
+        }
+
+        public boolean next() {
+            if (index + 1 >= paths.length) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public String getPath() {
+            return paths[index];
+        }
+
+        public IncrementalFileSnapshot getSnapshot() {
+            return snapshots.get(paths[index]);
+        }
+    }
+
+    /**
+     * Walks over the current and the old snapshots of a collection at the same time, in the order of their paths, reporting one difference at a time.
+     */
+    private static class SnapshotMergeJoin {
+        enum Change { ADDED, REMOVED, CHANGED, NONE }
+
+        private final FileSnapshotCursor current;
+        private final FileSnapshotCursor old;
+        private String currentPath;
+        private IncrementalFileSnapshot currentSnapshot;
+        private String oldPath;
+        private IncrementalFileSnapshot oldSnapshot;
+        private boolean advanceCurrent = true;
+        private boolean advanceOld = true;
+
+        SnapshotMergeJoin(FileSnapshotCursor current, FileSnapshotCursor old) {
+            this.current = current;
+            this.old = old;
+        }
+
+        /**
+         * Moves to the next difference between the snapshots, and returns its type. The paths and snapshots of the difference are then available from this join.
+         */
+        Change nextChange() {
+            while (true) {
+                if (advanceCurrent) {
+                    currentPath = current.next() ? current.getPath() : null;
+                    currentSnapshot = currentPath == null ? null : current.getSnapshot();
+                    advanceCurrent = false;
+                }
+                if (advanceOld) {
+                    oldPath = old.next() ? old.getPath() : null;
+                    oldSnapshot = oldPath == null ? null : old.getSnapshot();
+                    advanceOld = false;
+                }
+                if (currentPath == null && oldPath == null) {
+                    return Change.NONE;
+                }
+                int comparison = currentPath == null ? 1 : oldPath == null ? -1 : currentPath.compareTo(oldPath);
+                if (comparison < 0) {
+                    advanceCurrent = true;
+                    return Change.ADDED;
+                }
+                if (comparison > 0) {
+                    advanceOld = true;
+                    return Change.REMOVED;
+                }
+                advanceCurrent = true;
+                advanceOld = true;
+                if (!currentSnapshot.isUpToDate(oldSnapshot)) {
+                    return Change.CHANGED;
+                }
             }
         }
 
+        String getCurrentPath() {
+            return currentPath;
+        }
+
+        IncrementalFileSnapshot getCurrentSnapshot() {
+            return currentSnapshot;
+        }
+
+        String getOldPath() {
+            return oldPath;
+        }
+
+        IncrementalFileSnapshot getOldSnapshot() {
+            return oldSnapshot;
+        }
     }
 }
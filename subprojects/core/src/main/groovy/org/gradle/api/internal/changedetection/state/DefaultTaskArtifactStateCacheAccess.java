@@ -26,6 +26,7 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
+import java.io.File;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
@@ -38,7 +39,7 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
                 .withDisplayName("task history cache")
-                .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                .withLockOptions(mode(FileLockManager.LockMode.None).concurrentAccess()) // Lock on demand, shared by the threads executing tasks
                 .open();
     }
 
@@ -46,6 +47,10 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
         cache.close();
     }
 
+    public File getBaseDir() {
+        return cache.getBaseDir();
+    }
+
     public <K, V> PersistentIndexedCache<K, V> createCache(final String cacheName, final Class<K> keyType, final Serializer<V> valueSerializer) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
                 .cacheDecorator(inMemoryDecorator);
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.file.collections.DirectoryTreeSnapshot;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+class DirectoryTreeSnapshotSerializer implements Serializer<DirectoryTreeSnapshot> {
+    public DirectoryTreeSnapshot read(Decoder decoder) throws Exception {
+        SortedMap<String, DirectoryTreeSnapshot.DirectoryListing> listings = new TreeMap<String, DirectoryTreeSnapshot.DirectoryListing>();
+        int listingsCount = decoder.readSmallInt();
+        for (int i = 0; i < listingsCount; i++) {
+            String path = decoder.readString();
+            long lastModified = decoder.readLong();
+            int childCount = decoder.readSmallInt();
+            String[] names = new String[childCount];
+            boolean[] files = new boolean[childCount];
+            for (int j = 0; j < childCount; j++) {
+                names[j] = decoder.readString();
+                files[j] = decoder.readBoolean();
+            }
+            listings.put(path, new DirectoryTreeSnapshot.DirectoryListing(lastModified, names, files));
+        }
+        return new DirectoryTreeSnapshot(listings);
+    }
+
+    public void write(Encoder encoder, DirectoryTreeSnapshot value) throws Exception {
+        encoder.writeSmallInt(value.getListings().size());
+        for (Map.Entry<String, DirectoryTreeSnapshot.DirectoryListing> entry : value.getListings().entrySet()) {
+            DirectoryTreeSnapshot.DirectoryListing listing = entry.getValue();
+            encoder.writeString(entry.getKey());
+            encoder.writeLong(listing.getLastModified());
+            encoder.writeSmallInt(listing.size());
+            for (int i = 0; i < listing.size(); i++) {
+                encoder.writeString(listing.getName(i));
+                encoder.writeBoolean(listing.isFile(i));
+            }
+        }
+    }
+}
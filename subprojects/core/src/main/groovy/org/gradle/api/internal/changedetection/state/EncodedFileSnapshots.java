@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The snapshots of a collection of files, in a compact encoded form that can be decoded one file at a time.
+ *
+ * <p>The files are sorted by path, and each path is written as the length of the prefix it shares with the path before it, followed by the rest of the path.
+ * As the files of a collection are mostly located in a few directory trees, this means that the directory part of most paths is not repeated.</p>
+ */
+class EncodedFileSnapshots {
+    private static final byte DIR_SNAPSHOT = 1;
+    private static final byte MISSING_FILE_SNAPSHOT = 2;
+    private static final byte FILE_HASH_SNAPSHOT = 3;
+    private static final DefaultFileCollectionSnapshotter.DirSnapshot DIR = new DefaultFileCollectionSnapshotter.DirSnapshot();
+    private static final DefaultFileCollectionSnapshotter.MissingFileSnapshot MISSING_FILE = new DefaultFileCollectionSnapshotter.MissingFileSnapshot();
+
+    private final byte[] encoded;
+
+    EncodedFileSnapshots(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    static EncodedFileSnapshots encode(Map<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot> snapshots) {
+        List<String> paths = new ArrayList<String>(snapshots.keySet());
+        Collections.sort(paths);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        try {
+            encoder.writeSmallInt(paths.size());
+            String previousPath = "";
+            for (String path : paths) {
+                int prefixLength = commonPrefixLength(previousPath, path);
+                encoder.writeSmallInt(prefixLength);
+                encoder.writeString(path.substring(prefixLength));
+                writeSnapshot(encoder, snapshots.get(path));
+                previousPath = path;
+            }
+            encoder.flush();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return new EncodedFileSnapshots(outputStream.toByteArray());
+    }
+
+    private static int commonPrefixLength(String previousPath, String path) {
+        int maxLength = Math.min(previousPath.length(), path.length());
+        for (int i = 0; i < maxLength; i++) {
+            if (previousPath.charAt(i) != path.charAt(i)) {
+                return i;
+            }
+        }
+        return maxLength;
+    }
+
+    private static void writeSnapshot(Encoder encoder, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot snapshot) throws IOException {
+        if (snapshot instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
+            encoder.writeByte(DIR_SNAPSHOT);
+        } else if (snapshot instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
+            encoder.writeByte(MISSING_FILE_SNAPSHOT);
+        } else if (snapshot instanceof DefaultFileCollectionSnapshotter.FileHashSnapshot) {
+            encoder.writeByte(FILE_HASH_SNAPSHOT);
+            encoder.writeBinary(((DefaultFileCollectionSnapshotter.FileHashSnapshot) snapshot).hash);
+        } else {
+            throw new IllegalArgumentException("Unexpected file snapshot type: " + snapshot);
+        }
+    }
+
+    byte[] toByteArray() {
+        return encoded;
+    }
+
+    /**
+     * Returns a reader that decodes the snapshots in the order of their paths.
+     */
+    Reader read() {
+        return new Reader(new KryoBackedDecoder(new ByteArrayInputStream(encoded), Math.min(encoded.length, 4096) + 1));
+    }
+
+    static class Reader implements FileSnapshotCursor {
+        private final Decoder decoder;
+        private final int count;
+        private final StringBuilder path = new StringBuilder();
+        private int position;
+        private String currentPath;
+        private DefaultFileCollectionSnapshotter.IncrementalFileSnapshot snapshot;
+
+        private Reader(Decoder decoder) {
+            this.decoder = decoder;
+            try {
+                this.count = decoder.readSmallInt();
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        /**
+         * The number of snapshots available from this reader.
+         */
+        int getCount() {
+            return count;
+        }
+
+        public boolean next() {
+            if (position == count) {
+                return false;
+            }
+            position++;
+            try {
+                int prefixLength = decoder.readSmallInt();
+                path.setLength(prefixLength);
+                path.append(decoder.readString());
+                currentPath = path.toString();
+                snapshot = readSnapshot(decoder);
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            return true;
+        }
+
+        public String getPath() {
+            return currentPath;
+        }
+
+        public DefaultFileCollectionSnapshotter.IncrementalFileSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        private static DefaultFileCollectionSnapshotter.IncrementalFileSnapshot readSnapshot(Decoder decoder) throws IOException {
+            byte fileSnapshotKind = decoder.readByte();
+            switch (fileSnapshotKind) {
+                case DIR_SNAPSHOT:
+                    return DIR;
+                case MISSING_FILE_SNAPSHOT:
+                    return MISSING_FILE;
+                case FILE_HASH_SNAPSHOT:
+                    return new DefaultFileCollectionSnapshotter.FileHashSnapshot(decoder.readBinary());
+                default:
+                    throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
+            }
+        }
+    }
+}
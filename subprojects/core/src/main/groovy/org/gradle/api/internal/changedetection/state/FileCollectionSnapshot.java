@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 import org.gradle.util.ChangeListener;
 
 /**
@@ -26,12 +27,22 @@ public interface FileCollectionSnapshot {
 
     ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot);
 
+    /**
+     * Returns true when this snapshot differs in any way from the given snapshot. Stops looking at the first difference.
+     */
+    boolean hasChangesSince(FileCollectionSnapshot oldSnapshot);
+
     Diff changesSince(FileCollectionSnapshot oldSnapshot);
 
     FileCollection getFiles();
 
     FilesSnapshotSet getSnapshot();
 
+    /**
+     * Adds the paths and contents of the files in this snapshot to the given cache key, in a stable order.
+     */
+    void appendToCacheKey(TaskCacheKeyBuilder builder);
+
     public interface Diff {
         /**
          * Applies this diff to the given snapshot. Adds any added or changed files in this diff to the given snapshot.
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+/**
+ * Iterates over the file snapshots of a collection in the order of their paths, so that two collections can be compared by walking over both of them once.
+ */
+interface FileSnapshotCursor {
+    /**
+     * Moves to the next snapshot.
+     *
+     * @return false when there are no more snapshots.
+     */
+    boolean next();
+
+    String getPath();
+
+    DefaultFileCollectionSnapshotter.IncrementalFileSnapshot getSnapshot();
+}
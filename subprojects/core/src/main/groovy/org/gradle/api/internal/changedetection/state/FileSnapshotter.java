@@ -24,4 +24,9 @@ public interface FileSnapshotter {
      */
     FileSnapshot snapshot(File file);
 
+    /**
+     * Takes a snapshot of the current content of the given file, whose length and modification time are already known.
+     */
+    FileSnapshot snapshot(File file, long length, long timestamp);
+
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.execution.taskgraph.TaskExecutionTimeEstimator;
+
+/**
+ * Estimates the execution time of a task as the execution time recorded in its task history by the previous execution.
+ */
+public class HistoricalTaskExecutionTimeEstimator implements TaskExecutionTimeEstimator {
+    private final TaskHistoryRepository taskHistoryRepository;
+
+    public HistoricalTaskExecutionTimeEstimator(TaskHistoryRepository taskHistoryRepository) {
+        this.taskHistoryRepository = taskHistoryRepository;
+    }
+
+    public long estimateExecutionTime(TaskInternal task) {
+        TaskExecution previousExecution = taskHistoryRepository.getHistory(task).getPreviousExecution();
+        return previousExecution == null ? 0 : previousExecution.getExecutionTime();
+    }
+}
@@ -18,45 +18,86 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.Striped;
+import org.apache.commons.io.output.NullOutputStream;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.cache.internal.FileLock;
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
+/**
+ * Keeps the contents of the task history caches in memory, so that they can be reused by later builds run by the same daemon.
+ *
+ * <p>All caches share a single in-memory tier, which is bounded by the approximate number of bytes retained by its entries rather than by a number of entries.
+ * The weight of each value is the size of its serialized form. File collection snapshots are retained and weighed in their encoded form.</p>
+ *
+ * <p>Each entry records the lock state of its cache that it was loaded or written under, and is only used while the cache has not been written to by another
+ * process since. Entries that are out of date are reloaded from the backing cache when next used, or are eventually evicted.</p>
+ */
 public class InMemoryTaskArtifactCache implements CacheDecorator {
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
+    private final static int LOCK_STRIPES = 64;
+    // Approximate number of bytes used to hold an entry, in addition to its key and value
+    private final static int ENTRY_OVERHEAD = 64;
+    // The share of the heap that may be used by the cache by default
+    private final static int HEAP_FRACTION = 10;
 
-    private static final Map<String, Integer> CACHE_CAPS = new HashMap<String, Integer>();
+    private final static OutputStream NULL_OUTPUT = new NullOutputStream();
+    private final static ThreadLocal<KryoBackedEncoder> WEIGHING_ENCODER = new ThreadLocal<KryoBackedEncoder>() {
+        @Override
+        protected KryoBackedEncoder initialValue() {
+            return new KryoBackedEncoder(NULL_OUTPUT, 512);
+        }
+    };
 
-    static {
-        //it's the simplest implementation, not very nice
-        //at very least, the max size should be provided at creation, by the creator of the cache
-        //however, max size is a bit awkward in general and we should look into other options,
-        //like using the Weighter and relate the cache size to the available heap, etc.
-        CACHE_CAPS.put("fileSnapshots", 10000);
-        CACHE_CAPS.put("taskArtifacts", 2000);
-        CACHE_CAPS.put("outputFileStates", 3000);
-        CACHE_CAPS.put("fileHashes", 140000);
-        CACHE_CAPS.put("compilationState", 1000);
+    private final long maxWeight;
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Cache<EntryKey, Entry> cache;
+    private final ConcurrentMap<String, CacheState> cacheStates = new ConcurrentHashMap<String, CacheState>();
 
-        //In general, the in-memory cache must be capped at some level, otherwise it is reduces performance in truly gigantic builds
+    public InMemoryTaskArtifactCache() {
+        this(Runtime.getRuntime().maxMemory() / HEAP_FRACTION);
     }
 
-    private final Object lock = new Object();
-    private final Cache<String, Cache<Object, Object>> cache = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_CAPS.size() * 2) //X2 to factor in a child build (for example buildSrc)
-            .build();
-
-    private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
+    public InMemoryTaskArtifactCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(new Weigher<EntryKey, Entry>() {
+                    public int weigh(EntryKey key, Entry entry) {
+                        return entry.weight;
+                    }
+                })
+                .removalListener(new RemovalListener<EntryKey, Entry>() {
+                    public void onRemoval(RemovalNotification<EntryKey, Entry> notification) {
+                        weight.addAndGet(-notification.getValue().weight);
+                    }
+                })
+                // Only the eviction count is used. Hits and misses are counted separately, as a stale entry is a miss
+                .recordStats()
+                .build();
+    }
 
-    public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, final MultiProcessSafePersistentIndexedCache<K, V> original) {
-        final Cache<Object, Object> data = loadData(cacheId, cacheName);
+    public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, final Serializer<V> valueSerializer, final MultiProcessSafePersistentIndexedCache<K, V> original) {
+        final CacheState cacheState = stateOf(cacheId);
+        // Hits are served without locking. Misses and updates lock the key, so that the in-memory entry stays in sync with the backing cache when it is used by several threads
+        final Striped<Lock> keyLocks = Striped.lock(LOCK_STRIPES);
 
         return new MultiProcessSafePersistentIndexedCache<K, V>() {
             public void close() {
@@ -65,62 +106,253 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
 
             public V get(K key) {
                 assert key instanceof String || key instanceof Long || key instanceof File : "Unsupported key type: " + key;
-                Object value = data.getIfPresent(key);
-                if (value == NULL) {
-                    return null;
+                EntryKey entryKey = new EntryKey(cacheId, key);
+                Entry entry = cache.getIfPresent(entryKey);
+                if (entry != null && cacheState.isUpToDate(entry)) {
+                    hits.incrementAndGet();
+                    return entry.value == NULL ? null : (V) entry.value;
                 }
-                if (value != null) {
-                    return (V) value;
+                Lock keyLock = keyLocks.get(key);
+                keyLock.lock();
+                try {
+                    entry = cache.getIfPresent(entryKey);
+                    if (entry != null && cacheState.isUpToDate(entry)) {
+                        hits.incrementAndGet();
+                        return entry.value == NULL ? null : (V) entry.value;
+                    }
+                    misses.incrementAndGet();
+                    V out = original.get(key);
+                    return store(entryKey, out, valueSerializer, cacheState);
+                } finally {
+                    keyLock.unlock();
                 }
-                V out = original.get(key);
-                data.put(key, out == null ? NULL : out);
-                return out;
             }
 
             public void put(K key, V value) {
-                original.put(key, value);
-                data.put(key, value);
+                Lock keyLock = keyLocks.get(key);
+                keyLock.lock();
+                try {
+                    original.put(key, value);
+                    store(new EntryKey(cacheId, key), value, valueSerializer, cacheState);
+                } finally {
+                    keyLock.unlock();
+                }
             }
 
             public void remove(K key) {
-                data.put(key, NULL);
-                original.remove(key);
+                Lock keyLock = keyLocks.get(key);
+                keyLock.lock();
+                try {
+                    store(new EntryKey(cacheId, key), null, valueSerializer, cacheState);
+                    original.remove(key);
+                } finally {
+                    keyLock.unlock();
+                }
             }
 
             public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
-                boolean outOfDate;
-                synchronized (lock) {
-                    FileLock.State previousState = states.get(cacheId);
-                    outOfDate = previousState == null || currentCacheState.hasBeenUpdatedSince(previousState);
-                }
-
-                if (outOfDate) {
-                    LOG.info("Invalidating in-memory cache of {}", cacheId);
-                    data.invalidateAll();
-                }
+                cacheState.startWork(currentCacheState);
+                original.onStartWork(operationDisplayName, currentCacheState);
             }
 
             public void onEndWork(FileLock.State currentCacheState) {
-                synchronized (lock) {
-                    states.put(cacheId, currentCacheState);
-                }
+                // Let the backing cache write any pending changes before the cache is released
+                original.onEndWork(currentCacheState);
+                cacheState.endWork(currentCacheState);
             }
         };
     }
 
-    private Cache<Object, Object> loadData(String cacheId, String cacheName) {
-        Cache<Object, Object> theData;
-        synchronized (lock) {
-            theData = this.cache.getIfPresent(cacheId);
-            if (theData != null) {
-                LOG.info("In-memory cache of {}: Size{{}}, {}", cacheId, theData.size() , theData.stats());
-            } else {
-                Integer maxSize = CACHE_CAPS.get(cacheName);
-                assert maxSize != null : "Unknown cache.";
-                theData = CacheBuilder.newBuilder().maximumSize(maxSize).build();
-                this.cache.put(cacheId, theData);
+    private CacheState stateOf(String cacheId) {
+        CacheState cacheState = cacheStates.get(cacheId);
+        if (cacheState == null) {
+            cacheState = new CacheState(cacheId);
+            CacheState existing = cacheStates.putIfAbsent(cacheId, cacheState);
+            if (existing != null) {
+                cacheState = existing;
+            }
+        } else {
+            LOG.info("In-memory cache of {}: {}", cacheId, getStatistics());
+        }
+        return cacheState;
+    }
+
+    /**
+     * Stores the given value, and returns the value to use in its place.
+     */
+    private <V> V store(EntryKey key, V value, Serializer<V> valueSerializer, CacheState cacheState) {
+        V retained = value;
+        int valueWeight = 0;
+        if (value instanceof DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl) {
+            // Retain the encoded snapshots rather than the snapshots of a new collection, so that the entry holds no more than its weight
+            EncodedFileSnapshots encodedSnapshots = ((DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl) value).getEncodedSnapshots();
+            retained = (V) new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(encodedSnapshots);
+            valueWeight = encodedSnapshots.toByteArray().length;
+        } else if (value != null) {
+            valueWeight = serializedSize(value, valueSerializer);
+        }
+        int entryWeight = ENTRY_OVERHEAD + key.weight() + valueWeight;
+        cache.put(key, new Entry(retained == null ? NULL : retained, cacheState.getValidState(), entryWeight));
+        weight.addAndGet(entryWeight);
+        return retained;
+    }
+
+    private static <V> int serializedSize(V value, Serializer<V> valueSerializer) {
+        KryoBackedEncoder encoder = WEIGHING_ENCODER.get();
+        encoder.reset(NULL_OUTPUT);
+        try {
+            valueSerializer.write(encoder, value);
+            encoder.flush();
+            return encoder.getWritePosition();
+        } catch (Exception e) {
+            // Not expected, as the value is written to the backing cache using the same serializer. Assume a moderately sized value
+            return 1024;
+        }
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(hits.get(), misses.get(), cache.stats().evictionCount(), weight.get(), maxWeight);
+    }
+
+    /**
+     * A snapshot of the usage of the in-memory cache.
+     */
+    public static class Statistics {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long weight;
+        private final long maxWeight;
+
+        public Statistics(long hitCount, long missCount, long evictionCount, long weight, long maxWeight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+        }
+
+        public long getRequestCount() {
+            return hitCount + missCount;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * The number of lookups that had to go to the backing cache, including those for stale entries.
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * The approximate number of bytes retained by the cache.
+         */
+        public long getWeight() {
+            return weight;
+        }
+
+        public long getMaxWeight() {
+            return maxWeight;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Weight{%d of %d bytes}, Requests{%d}, Hits{%d}, Misses{%d}, Evictions{%d}", weight, maxWeight, getRequestCount(), getHitCount(), getMissCount(), getEvictionCount());
+        }
+    }
+
+    /**
+     * Tracks the lock state of a cache that its in-memory entries are known to be consistent with.
+     */
+    private static class CacheState {
+        private final String cacheId;
+        // The lock state that entries loaded or written now are recorded against. Only changes when another process has written to the cache
+        private volatile FileLock.State validState;
+        // The lock state at the end of the most recent work on the cache by this process
+        private FileLock.State lastState;
+
+        CacheState(String cacheId) {
+            this.cacheId = cacheId;
+        }
+
+        FileLock.State getValidState() {
+            return validState;
+        }
+
+        synchronized void startWork(FileLock.State currentState) {
+            if (lastState == null || currentState.hasBeenUpdatedSince(lastState)) {
+                if (lastState != null) {
+                    LOG.info("In-memory cache of {} has been updated by another process", cacheId);
+                }
+                validState = currentState;
             }
         }
-        return theData;
+
+        synchronized void endWork(FileLock.State currentState) {
+            // Changes made by this process are written through to the in-memory entries, so the entries stay valid against the new state
+            lastState = currentState;
+        }
+
+        boolean isUpToDate(Entry entry) {
+            FileLock.State current = validState;
+            return entry.state == current || (entry.state != null && current != null && !current.hasBeenUpdatedSince(entry.state));
+        }
+    }
+
+    private static class EntryKey {
+        private final String cacheId;
+        private final Object key;
+
+        EntryKey(String cacheId, Object key) {
+            this.cacheId = cacheId;
+            this.key = key;
+        }
+
+        int weight() {
+            if (key instanceof String) {
+                return 48 + 2 * ((String) key).length();
+            }
+            if (key instanceof File) {
+                return 64 + 2 * ((File) key).getPath().length();
+            }
+            return 24;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            EntryKey other = (EntryKey) obj;
+            return cacheId.equals(other.cacheId) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cacheId.hashCode() + key.hashCode();
+        }
+    }
+
+    private static class Entry {
+        final Object value;
+        // The lock state of the cache that the value was loaded or written under
+        final FileLock.State state;
+        final int weight;
+
+        Entry(Object value, FileLock.State state, int weight) {
+            this.value = value;
+            this.state = state;
+            this.weight = weight;
+        }
     }
 }
@@ -0,0 +1,544 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.util.GFileUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link PersistentIndexedCache} of file hashes, backed by an open addressing hash table in a memory mapped file.
+ *
+ * <p>Each entry is a fixed size record containing a 128 bit fingerprint of the absolute path of the file, the length and timestamp of
+ * the file, the hash of the file and a checksum of the record. The size of the record depends on the length of the digest used to hash
+ * files. Lookups probe the mapped table directly, without serializing the key or reading blocks from disk, and without taking any lock
+ * other than the monitor of this cache.</p>
+ *
+ * <p>Each update is also appended to a log file. The table is rebuilt from the log when the table file is missing or cannot be
+ * read, and a record with an invalid checksum is treated as missing. The log is compacted when it grows much larger than the table.
+ * The compacted log is written to a separate file, which then replaces the log. Each compaction increments a log generation number held
+ * in the header of the table, so that other processes know to reopen the log.</p>
+ *
+ * <p>The table is not safe for use by multiple processes at the same time, so it must only be accessed while holding the
+ * cross-process lock of the cache it belongs to.</p>
+ */
+public class MappedFileHashCache implements PersistentIndexedCache<File, CachingFileSnapshotter.FileInfo>, Closeable {
+    private static final int MAGIC = 0x46484331;
+    private static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int RECORD_SIZE_OFFSET = 16;
+    private static final int LOG_GENERATION_OFFSET = 20;
+
+    // Record layout: path fingerprint (2 longs), length, timestamp, hash length, hash (padded to a whole number of longs), checksum
+    private static final int LENGTH_OFFSET = 16;
+    private static final int TIMESTAMP_OFFSET = 24;
+    private static final int HASH_LENGTH_OFFSET = 32;
+    private static final int HASH_OFFSET = 40;
+
+    private static final int INITIAL_CAPACITY = 1 << 14;
+    private static final long REMOVED = -1L;
+
+    private final File tableFile;
+    private final File logFile;
+    private final int maxHashLength;
+    private final int hashWordCount;
+    private final int recordSize;
+    private final int checksumOffset;
+    private final ByteBuffer logRecord;
+    private RandomAccessFile table;
+    private RandomAccessFile log;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+    private long logRecords;
+    private int logGeneration;
+
+    /**
+     * @param digestLength the length in bytes of the digests used to hash files.
+     */
+    public MappedFileHashCache(File tableFile, int digestLength) {
+        this.tableFile = tableFile;
+        this.logFile = new File(tableFile.getParentFile(), tableFile.getName() + ".log");
+        // A hash may have an additional sign byte, as it is the byte array form of a positive BigInteger
+        this.maxHashLength = digestLength + 1;
+        this.hashWordCount = (maxHashLength + 7) / 8;
+        this.checksumOffset = HASH_OFFSET + hashWordCount * 8;
+        this.recordSize = checksumOffset + 8;
+        this.logRecord = ByteBuffer.allocate(recordSize);
+    }
+
+    public synchronized CachingFileSnapshotter.FileInfo get(File key) {
+        open();
+        String path = key.getAbsolutePath();
+        long fingerprint1 = fingerprint1(path);
+        long fingerprint2 = fingerprint2(path);
+        int slot = findSlot(fingerprint1, fingerprint2);
+        if (slot < 0) {
+            return null;
+        }
+        int offset = offset(slot);
+        long length = buffer.getLong(offset + LENGTH_OFFSET);
+        long timestamp = buffer.getLong(offset + TIMESTAMP_OFFSET);
+        long hashLength = buffer.getLong(offset + HASH_LENGTH_OFFSET);
+        long[] hashWords = readHashWords(buffer, offset);
+        if (buffer.getLong(offset + checksumOffset) != checksum(fingerprint1, fingerprint2, length, timestamp, hashLength, hashWords) || hashLength < 0 || hashLength > maxHashLength) {
+            // A partially written record, treat as missing
+            return null;
+        }
+        byte[] hash = new byte[(int) hashLength];
+        for (int i = 0; i < hash.length; i++) {
+            hash[i] = (byte) (hashWords[i / 8] >>> (56 - 8 * (i % 8)));
+        }
+        return new CachingFileSnapshotter.FileInfo(hash, length, timestamp);
+    }
+
+    public synchronized void put(File key, CachingFileSnapshotter.FileInfo value) {
+        byte[] hash = value.getHash();
+        if (hash.length > maxHashLength) {
+            throw new IllegalArgumentException(String.format("Cannot store a %s byte hash for file '%s', at most %s byte hashes are supported.", hash.length, key, maxHashLength));
+        }
+        open();
+        String path = key.getAbsolutePath();
+        long fingerprint1 = fingerprint1(path);
+        long fingerprint2 = fingerprint2(path);
+        long[] hashWords = new long[hashWordCount];
+        for (int i = 0; i < hash.length; i++) {
+            hashWords[i / 8] |= (hash[i] & 0xFFL) << (56 - 8 * (i % 8));
+        }
+        appendToLog(fingerprint1, fingerprint2, value.getLength(), value.getTimestamp(), hash.length, hashWords);
+        insert(fingerprint1, fingerprint2, value.getLength(), value.getTimestamp(), hash.length, hashWords);
+    }
+
+    public synchronized void remove(File key) {
+        open();
+        String path = key.getAbsolutePath();
+        long fingerprint1 = fingerprint1(path);
+        long fingerprint2 = fingerprint2(path);
+        long[] hashWords = new long[hashWordCount];
+        appendToLog(fingerprint1, fingerprint2, REMOVED, 0, 0, hashWords);
+        delete(fingerprint1, fingerprint2);
+    }
+
+    public synchronized void close() {
+        if (table == null) {
+            return;
+        }
+        try {
+            buffer.force();
+            unmap(buffer);
+            table.close();
+            log.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            table = null;
+            log = null;
+            buffer = null;
+        }
+    }
+
+    private void open() {
+        if (table != null) {
+            // Another process may have resized the table, appended to the log or replaced the log while this process did not hold the lock
+            if (buffer.getInt(CAPACITY_OFFSET) != capacity) {
+                map(buffer.getInt(CAPACITY_OFFSET));
+            }
+            size = buffer.getInt(SIZE_OFFSET);
+            try {
+                if (buffer.getInt(LOG_GENERATION_OFFSET) != logGeneration) {
+                    log.close();
+                    log = new RandomAccessFile(logFile, "rw");
+                    logGeneration = buffer.getInt(LOG_GENERATION_OFFSET);
+                }
+                logRecords = log.length() / recordSize;
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not open file hash cache log '%s'.", logFile), e);
+            }
+            return;
+        }
+        try {
+            GFileUtils.mkdirs(tableFile.getParentFile());
+            boolean valid = isValid(tableFile);
+            table = new RandomAccessFile(tableFile, "rw");
+            log = new RandomAccessFile(logFile, "rw");
+            logRecords = log.length() / recordSize;
+            if (valid) {
+                map(readCapacity());
+                size = buffer.getInt(SIZE_OFFSET);
+                logGeneration = buffer.getInt(LOG_GENERATION_OFFSET);
+            } else {
+                table.setLength(0);
+                map(INITIAL_CAPACITY);
+                writeHeader(0);
+                logGeneration = 0;
+                buffer.putInt(LOG_GENERATION_OFFSET, logGeneration);
+                replayLog();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not open file hash cache '%s'.", tableFile), e);
+        }
+    }
+
+    private int readCapacity() throws IOException {
+        table.seek(CAPACITY_OFFSET);
+        return table.readInt();
+    }
+
+    private boolean isValid(File tableFile) throws IOException {
+        if (tableFile.length() < HEADER_SIZE) {
+            return false;
+        }
+        RandomAccessFile file = new RandomAccessFile(tableFile, "r");
+        try {
+            int magic = file.readInt();
+            int version = file.readInt();
+            int capacity = file.readInt();
+            int size = file.readInt();
+            int recordSize = file.readInt();
+            return magic == MAGIC && version == VERSION && recordSize == this.recordSize && capacity > 0 && Integer.bitCount(capacity) == 1 && size >= 0 && size <= capacity
+                    && file.length() >= (long) HEADER_SIZE + (long) capacity * recordSize;
+        } finally {
+            file.close();
+        }
+    }
+
+    private void map(int newCapacity) {
+        MappedByteBuffer oldBuffer = buffer;
+        try {
+            buffer = table.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * recordSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not map file hash cache '%s'.", tableFile), e);
+        }
+        capacity = newCapacity;
+        if (oldBuffer != null) {
+            unmap(oldBuffer);
+        }
+    }
+
+    /**
+     * Releases the given mapping, which must not be used afterwards. A mapping is otherwise only released once it is garbage collected,
+     * which keeps the address space of each smaller table reserved after the table has grown.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            // Not supported by this JVM, leave the mapping to be released by the garbage collector
+        }
+    }
+
+    private void writeHeader(int newSize) {
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SIZE_OFFSET, newSize);
+        buffer.putInt(RECORD_SIZE_OFFSET, recordSize);
+        size = newSize;
+    }
+
+    private void replayLog() throws IOException {
+        FileChannel channel = log.getChannel();
+        long records = channel.size() / recordSize;
+        channel.position(0);
+        for (long i = 0; i < records; i++) {
+            logRecord.clear();
+            while (logRecord.hasRemaining()) {
+                if (channel.read(logRecord) < 0) {
+                    return;
+                }
+            }
+            long fingerprint1 = logRecord.getLong(0);
+            long fingerprint2 = logRecord.getLong(8);
+            long length = logRecord.getLong(LENGTH_OFFSET);
+            long timestamp = logRecord.getLong(TIMESTAMP_OFFSET);
+            long hashLength = logRecord.getLong(HASH_LENGTH_OFFSET);
+            long[] hashWords = readHashWords(logRecord, 0);
+            if (logRecord.getLong(checksumOffset) != checksum(fingerprint1, fingerprint2, length, timestamp, hashLength, hashWords)) {
+                // A partially written record at the end of the log
+                break;
+            }
+            if (length == REMOVED) {
+                delete(fingerprint1, fingerprint2);
+            } else {
+                insert(fingerprint1, fingerprint2, length, timestamp, hashLength, hashWords);
+            }
+        }
+        channel.position(channel.size());
+    }
+
+    private void appendToLog(long fingerprint1, long fingerprint2, long length, long timestamp, long hashLength, long[] hashWords) {
+        try {
+            if (logRecords > 4L * Math.max(size, INITIAL_CAPACITY)) {
+                compactLog();
+            }
+            writeRecord(logRecord, 0, fingerprint1, fingerprint2, length, timestamp, hashLength, hashWords);
+            logRecord.clear();
+            FileChannel channel = log.getChannel();
+            long position = channel.size();
+            while (logRecord.hasRemaining()) {
+                position += channel.write(logRecord, position);
+            }
+            logRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write to file hash cache log '%s'.", logFile), e);
+        }
+    }
+
+    /**
+     * Replaces the log with the live entries of the table. The new log is written to a temporary file first, so that the current
+     * log is still available to rebuild the table from if the process stops part way through.
+     */
+    private void compactLog() throws IOException {
+        File compactedLogFile = new File(logFile.getParentFile(), logFile.getName() + ".tmp");
+        RandomAccessFile compactedLog = new RandomAccessFile(compactedLogFile, "rw");
+        long position = 0;
+        try {
+            FileChannel channel = compactedLog.getChannel();
+            channel.truncate(0);
+            for (int slot = 0; slot < capacity; slot++) {
+                if (isEmpty(slot)) {
+                    continue;
+                }
+                int offset = offset(slot);
+                logRecord.clear();
+                for (int i = 0; i < recordSize; i++) {
+                    logRecord.put(i, buffer.get(offset + i));
+                }
+                while (logRecord.hasRemaining()) {
+                    position += channel.write(logRecord, position);
+                }
+            }
+            channel.force(false);
+        } finally {
+            compactedLog.close();
+        }
+
+        log.close();
+        if (!compactedLogFile.renameTo(logFile)) {
+            // The target cannot be replaced on some platforms
+            GFileUtils.forceDelete(logFile);
+            if (!compactedLogFile.renameTo(logFile)) {
+                throw new IOException(String.format("Could not rename '%s' to '%s'.", compactedLogFile, logFile));
+            }
+        }
+        log = new RandomAccessFile(logFile, "rw");
+        logRecords = position / recordSize;
+        logGeneration++;
+        buffer.putInt(LOG_GENERATION_OFFSET, logGeneration);
+    }
+
+    private void insert(long fingerprint1, long fingerprint2, long length, long timestamp, long hashLength, long[] hashWords) {
+        int slot = findSlot(fingerprint1, fingerprint2);
+        if (slot < 0) {
+            if ((size + 1) * 2 > capacity) {
+                resize(capacity * 2);
+                slot = findSlot(fingerprint1, fingerprint2);
+            }
+            slot = -slot - 1;
+            writeHeader(size + 1);
+        }
+        writeRecord(buffer, offset(slot), fingerprint1, fingerprint2, length, timestamp, hashLength, hashWords);
+    }
+
+    private void delete(long fingerprint1, long fingerprint2) {
+        int slot = findSlot(fingerprint1, fingerprint2);
+        if (slot < 0) {
+            return;
+        }
+        // Backward shift deletion, so that no tombstones are required
+        int mask = capacity - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (true) {
+            if (isEmpty(next)) {
+                break;
+            }
+            int home = home(buffer.getLong(offset(next)));
+            // Move the entry into the hole if its home slot is not between the hole and its current slot
+            boolean canMove = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (canMove) {
+                copySlot(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        clearSlot(hole);
+        writeHeader(size - 1);
+    }
+
+    private void resize(int newCapacity) {
+        int oldCapacity = capacity;
+        int live = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            if (!isEmpty(slot)) {
+                live++;
+            }
+        }
+        byte[] entries = new byte[live * recordSize];
+        int count = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int offset = offset(slot);
+            if (isEmpty(slot)) {
+                continue;
+            }
+            for (int i = 0; i < recordSize; i++) {
+                entries[count * recordSize + i] = buffer.get(offset + i);
+            }
+            count++;
+        }
+        map(newCapacity);
+        for (int slot = 0; slot < newCapacity; slot++) {
+            clearSlot(slot);
+        }
+        writeHeader(0);
+        ByteBuffer entryBuffer = ByteBuffer.wrap(entries);
+        for (int i = 0; i < count; i++) {
+            int offset = i * recordSize;
+            long fingerprint1 = entryBuffer.getLong(offset);
+            long fingerprint2 = entryBuffer.getLong(offset + 8);
+            int slot = -findSlot(fingerprint1, fingerprint2) - 1;
+            for (int j = 0; j < recordSize; j++) {
+                buffer.put(offset(slot) + j, entries[offset + j]);
+            }
+        }
+        writeHeader(count);
+    }
+
+    /**
+     * Returns the slot containing the given fingerprint, or (-slot - 1) where slot is the empty slot where it should be inserted.
+     */
+    private int findSlot(long fingerprint1, long fingerprint2) {
+        int mask = capacity - 1;
+        int slot = home(fingerprint1);
+        while (true) {
+            int offset = offset(slot);
+            long candidate1 = buffer.getLong(offset);
+            long candidate2 = buffer.getLong(offset + 8);
+            if (candidate1 == fingerprint1 && candidate2 == fingerprint2) {
+                return slot;
+            }
+            if (candidate1 == 0) {
+                return -slot - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean isEmpty(int slot) {
+        // The first fingerprint is never 0 for an entry
+        return buffer.getLong(offset(slot)) == 0;
+    }
+
+    private int home(long fingerprint1) {
+        return (int) (fingerprint1 ^ (fingerprint1 >>> 32)) & (capacity - 1);
+    }
+
+    private int offset(int slot) {
+        return HEADER_SIZE + slot * recordSize;
+    }
+
+    private void copySlot(int from, int to) {
+        int fromOffset = offset(from);
+        int toOffset = offset(to);
+        for (int i = 0; i < recordSize; i += 8) {
+            buffer.putLong(toOffset + i, buffer.getLong(fromOffset + i));
+        }
+    }
+
+    private void clearSlot(int slot) {
+        int offset = offset(slot);
+        for (int i = 0; i < recordSize; i += 8) {
+            buffer.putLong(offset + i, 0);
+        }
+    }
+
+    private void writeRecord(ByteBuffer target, int offset, long fingerprint1, long fingerprint2, long length, long timestamp, long hashLength, long[] hashWords) {
+        // Write the fingerprint last, so that a partially written new record is not found
+        target.putLong(offset + LENGTH_OFFSET, length);
+        target.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        target.putLong(offset + HASH_LENGTH_OFFSET, hashLength);
+        for (int i = 0; i < hashWords.length; i++) {
+            target.putLong(offset + HASH_OFFSET + 8 * i, hashWords[i]);
+        }
+        target.putLong(offset + checksumOffset, checksum(fingerprint1, fingerprint2, length, timestamp, hashLength, hashWords));
+        target.putLong(offset + 8, fingerprint2);
+        target.putLong(offset, fingerprint1);
+    }
+
+    private long[] readHashWords(ByteBuffer source, int offset) {
+        long[] words = new long[hashWordCount];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = source.getLong(offset + HASH_OFFSET + 8 * i);
+        }
+        return words;
+    }
+
+    private static long checksum(long fingerprint1, long fingerprint2, long length, long timestamp, long hashLength, long[] hashWords) {
+        long checksum = 0x9E3779B97F4A7C15L;
+        checksum = mix(checksum, fingerprint1);
+        checksum = mix(checksum, fingerprint2);
+        checksum = mix(checksum, length);
+        checksum = mix(checksum, timestamp);
+        checksum = mix(checksum, hashLength);
+        for (long word : hashWords) {
+            checksum = mix(checksum, word);
+        }
+        return checksum;
+    }
+
+    private static long mix(long checksum, long value) {
+        long result = (checksum ^ value) * 0xC2B2AE3D27D4EB4FL;
+        return result ^ (result >>> 31);
+    }
+
+    private static long fingerprint1(String path) {
+        // 64 bit FNV-1a
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long fingerprint2(String path) {
+        long hash = 0x27D4EB2F165667C5L;
+        for (int i = 0; i < path.length(); i++) {
+            hash = mix(hash, path.charAt(i));
+        }
+        return hash;
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
@@ -106,6 +107,10 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
             return filesSnapshot.getSnapshot();
         }
 
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            filesSnapshot.appendToCacheKey(builder);
+        }
+
         public Diff changesSince(final FileCollectionSnapshot oldSnapshot) {
             OutputFilesSnapshot other = (OutputFilesSnapshot) oldSnapshot;
             return new OutputFilesDiff(rootFileIds, other.rootFileIds, filesSnapshot.changesSince(other.filesSnapshot));
@@ -134,6 +139,11 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
             };
         }
 
+        public boolean hasChangesSince(FileCollectionSnapshot oldSnapshot) {
+            OutputFilesSnapshot other = (OutputFilesSnapshot) oldSnapshot;
+            return !rootFileIds.equals(other.rootFileIds) || filesSnapshot.hasChangesSince(other.filesSnapshot);
+        }
+
         private ChangeIterator<String> iterateRootFileIdChanges(final OutputFilesSnapshot other) {
             // Inlining DiffUtil.diff makes the inefficiencies here a bit more explicit
             Map<String, Long> added = new HashMap<String, Long>(rootFileIds);
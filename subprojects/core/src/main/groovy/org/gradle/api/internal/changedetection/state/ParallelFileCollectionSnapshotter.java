@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Transformer;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A {@link DefaultFileCollectionSnapshotter} which reads file metadata and hashes file contents using a bounded pool of threads.
+ *
+ * <p>The file hash cache can only be accessed by the thread that holds the cache lock, so the work is split into phases: the files are
+ * inspected concurrently, the cached hashes are checked on the calling thread, the files with missing or stale hashes are hashed concurrently,
+ * and the new hashes are then written to the cache on the calling thread. Results are collected in the order of the input files, so the
+ * resulting snapshot is the same as the one produced by the sequential implementation.</p>
+ */
+public class ParallelFileCollectionSnapshotter extends DefaultFileCollectionSnapshotter implements Stoppable {
+    private static final int MIN_FILES_FOR_PARALLEL_SNAPSHOT = 64;
+    private static final int FILES_PER_BATCH = 32;
+
+    private final CachingFileSnapshotter snapshotter;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+    private StoppableExecutor executor;
+
+    public ParallelFileCollectionSnapshotter(CachingFileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, ExecutorFactory executorFactory, int maxThreads) {
+        this(snapshotter, cacheAccess, null, executorFactory, maxThreads);
+    }
+
+    public ParallelFileCollectionSnapshotter(CachingFileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, DirectoryTreeSnapshotRepository directoryTreeSnapshots, ExecutorFactory executorFactory, int maxThreads) {
+        super(snapshotter, cacheAccess, directoryTreeSnapshots);
+        this.snapshotter = snapshotter;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    @Override
+    protected void snapshotFiles(Map<File, FileVisitDetails> files, final Map<String, IncrementalFileSnapshot> snapshots) {
+        if (files.size() < MIN_FILES_FOR_PARALLEL_SNAPSHOT) {
+            super.snapshotFiles(files, snapshots);
+            return;
+        }
+
+        // Inspect the files
+        final List<FileDetails> details = inParallel(new ArrayList<Map.Entry<File, FileVisitDetails>>(files.entrySet()), new Transformer<FileDetails, Map.Entry<File, FileVisitDetails>>() {
+            public FileDetails transform(Map.Entry<File, FileVisitDetails> entry) {
+                return new FileDetails(entry.getKey(), entry.getValue());
+            }
+        });
+
+        // Use the cached hashes where they are still valid
+        final List<FileDetails> toHash = new ArrayList<FileDetails>();
+        cacheAccess.useCache("Create file snapshot", new Runnable() {
+            public void run() {
+                for (FileDetails fileDetails : details) {
+                    if (fileDetails.type == FileType.File) {
+                        fileDetails.info = snapshotter.getCached(fileDetails.file, fileDetails.length, fileDetails.timestamp);
+                        if (fileDetails.info == null) {
+                            toHash.add(fileDetails);
+                        }
+                    }
+                }
+            }
+        });
+
+        // Hash the remaining files and update the cache
+        if (!toHash.isEmpty()) {
+            final List<CachingFileSnapshotter.FileInfo> hashed = inParallel(toHash, new Transformer<CachingFileSnapshotter.FileInfo, FileDetails>() {
+                public CachingFileSnapshotter.FileInfo transform(FileDetails fileDetails) {
+                    return snapshotter.calculate(fileDetails.file, fileDetails.length, fileDetails.timestamp);
+                }
+            });
+            cacheAccess.useCache("Update file snapshot cache", new Runnable() {
+                public void run() {
+                    for (int i = 0; i < toHash.size(); i++) {
+                        FileDetails fileDetails = toHash.get(i);
+                        fileDetails.info = hashed.get(i);
+                        snapshotter.cache(fileDetails.file, fileDetails.info);
+                    }
+                }
+            });
+        }
+
+        for (FileDetails fileDetails : details) {
+            String path = fileDetails.file.getAbsolutePath();
+            switch (fileDetails.type) {
+                case File:
+                    snapshots.put(path, new FileHashSnapshot(fileDetails.info.getHash()));
+                    break;
+                case Directory:
+                    snapshots.put(path, new DirSnapshot());
+                    break;
+                default:
+                    snapshots.put(path, new MissingFileSnapshot());
+            }
+        }
+    }
+
+    private <T, R> List<R> inParallel(final List<T> items, final Transformer<R, T> transformer) {
+        StoppableExecutor executor = getExecutor();
+        List<Future<List<R>>> batches = new ArrayList<Future<List<R>>>();
+        for (int start = 0; start < items.size(); start += FILES_PER_BATCH) {
+            final List<T> batch = items.subList(start, Math.min(start + FILES_PER_BATCH, items.size()));
+            batches.add(executor.submit(new Callable<List<R>>() {
+                public List<R> call() {
+                    List<R> results = new ArrayList<R>(batch.size());
+                    for (T item : batch) {
+                        results.add(transformer.transform(item));
+                    }
+                    return results;
+                }
+            }));
+        }
+
+        List<R> results = new ArrayList<R>(items.size());
+        try {
+            for (Future<List<R>> batch : batches) {
+                results.addAll(batch.get());
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } finally {
+            for (Future<List<R>> batch : batches) {
+                batch.cancel(false);
+            }
+        }
+        return results;
+    }
+
+    private synchronized StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("File snapshotter", maxThreads);
+        }
+        return executor;
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+
+    private enum FileType {
+        File, Directory, Missing
+    }
+
+    private static class FileDetails {
+        final File file;
+        final FileType type;
+        final long length;
+        final long timestamp;
+        CachingFileSnapshotter.FileInfo info;
+
+        FileDetails(File file, FileVisitDetails fileDetails) {
+            this.file = file;
+            if (hasFileAttributes(fileDetails)) {
+                type = fileDetails.isDirectory() ? FileType.Directory : FileType.File;
+                length = fileDetails.getSize();
+                timestamp = fileDetails.getLastModified();
+            } else if (file.isFile()) {
+                type = FileType.File;
+                length = file.length();
+                timestamp = file.lastModified();
+            } else {
+                type = file.isDirectory() ? FileType.Directory : FileType.Missing;
+                length = 0;
+                timestamp = 0;
+            }
+        }
+    }
+}
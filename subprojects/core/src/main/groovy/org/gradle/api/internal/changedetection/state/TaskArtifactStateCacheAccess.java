@@ -18,8 +18,11 @@ package org.gradle.api.internal.changedetection.state;
 import org.gradle.cache.CacheAccess;
 import org.gradle.cache.PersistentStore;
 
+import java.io.File;
+
 /**
  * Provides access to the task history cache.
  */
 public interface TaskArtifactStateCacheAccess extends PersistentStore, CacheAccess {
+    File getBaseDir();
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.ClassLoaderAwareTaskAction;
+import org.gradle.api.internal.tasks.ContextAwareTaskAction;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GradleVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Calculates the task output cache key for a task execution, from the task type, the implementation of the task and its actions,
+ * the input properties, the output locations and the contents of the input files.
+ */
+public class TaskCacheKeyCalculator {
+    private static final Logger LOGGER = Logging.getLogger(TaskCacheKeyCalculator.class);
+    private final ClassLoaderHasher classLoaderHasher;
+
+    public TaskCacheKeyCalculator(ClassLoaderHasher classLoaderHasher) {
+        this.classLoaderHasher = classLoaderHasher;
+    }
+
+    /**
+     * Returns the cache key for the given execution, or null when the implementation of the task can't be identified, and so the task must not be cached.
+     */
+    public TaskCacheKey calculate(TaskInternal task, TaskExecution execution, FileCollectionSnapshot inputFilesSnapshot) {
+        TaskCacheKeyBuilder builder = new TaskCacheKeyBuilder();
+        builder.putString(GradleVersion.current().getVersion());
+        builder.putString(execution.getTaskClass());
+        if (!appendImplementation(builder, task.getClass().getClassLoader())) {
+            LOGGER.info("Not caching {} as the implementation of the task type can't be identified.", task);
+            return null;
+        }
+
+        List<ContextAwareTaskAction> actions = task.getTaskActions();
+        builder.putInt(actions.size());
+        for (ContextAwareTaskAction action : actions) {
+            if (!(action instanceof ClassLoaderAwareTaskAction)) {
+                LOGGER.info("Not caching {} as the implementation of {} can't be identified.", task, action);
+                return null;
+            }
+            ClassLoaderAwareTaskAction classLoaderAwareAction = (ClassLoaderAwareTaskAction) action;
+            builder.putString(classLoaderAwareAction.getActionClassName());
+            if (!appendImplementation(builder, classLoaderAwareAction.getClassLoader())) {
+                LOGGER.info("Not caching {} as the implementation of action {} can't be identified.", task, classLoaderAwareAction.getActionClassName());
+                return null;
+            }
+        }
+
+        builder.putBytes(serializeInputProperties(task, execution.getInputProperties()));
+
+        List<String> outputFiles = new ArrayList<String>(execution.getOutputFiles());
+        Collections.sort(outputFiles);
+        builder.putInt(outputFiles.size());
+        for (String outputFile : outputFiles) {
+            builder.putString(outputFile);
+        }
+
+        inputFilesSnapshot.appendToCacheKey(builder);
+        return builder.build();
+    }
+
+    private boolean appendImplementation(TaskCacheKeyBuilder builder, ClassLoader classLoader) {
+        HashValue hash = classLoaderHasher.getHash(classLoader);
+        if (hash == null) {
+            return false;
+        }
+        builder.putBytes(hash.asByteArray());
+        return true;
+    }
+
+    private static byte[] serializeInputProperties(TaskInternal task, Map<String, Object> inputProperties) {
+        // Use a sorted copy, so that the key does not depend on the order in which the properties were declared
+        Map<String, Object> properties = new TreeMap<String, Object>(inputProperties);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(bytes);
+        try {
+            new InputPropertiesSerializer(task.getClass().getClassLoader()).write(encoder, properties);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        encoder.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -25,6 +25,7 @@ public abstract class TaskExecution {
     private String taskClass;
     private Map<String, Object> inputProperties;
     private Set<String> outputFiles;
+    private long executionTime;
 
     public Set<String> getOutputFiles() {
         return outputFiles;
@@ -50,6 +51,17 @@ public abstract class TaskExecution {
         this.inputProperties = inputProperties;
     }
 
+    /**
+     * Returns the time in milliseconds that the task actions took to execute, or 0 when not known.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public void setExecutionTime(long executionTime) {
+        this.executionTime = executionTime;
+    }
+
     /**
      * @return May return null.
      */
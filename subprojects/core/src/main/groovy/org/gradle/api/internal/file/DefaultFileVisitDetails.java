@@ -25,13 +25,55 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DefaultFileVisitDetails extends DefaultFileTreeElement implements FileVisitDetails {
     private final AtomicBoolean stop;
+    private final boolean hasFileAttributes;
+    private final boolean isDirectory;
+    private final long lastModified;
+    private final long size;
 
     public DefaultFileVisitDetails(File file, RelativePath relativePath, AtomicBoolean stop, Chmod chmod, Stat stat) {
         super(file, relativePath, chmod, stat);
         this.stop = stop;
+        this.hasFileAttributes = false;
+        this.isDirectory = false;
+        this.lastModified = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Creates details for a file whose attributes have already been read, so that they are not queried from the file system again.
+     */
+    public DefaultFileVisitDetails(File file, RelativePath relativePath, AtomicBoolean stop, Chmod chmod, Stat stat, boolean isDirectory, long lastModified, long size) {
+        super(file, relativePath, chmod, stat);
+        this.stop = stop;
+        this.hasFileAttributes = true;
+        this.isDirectory = isDirectory;
+        this.lastModified = lastModified;
+        this.size = size;
     }
 
     public void stopVisiting() {
         stop.set(true);
     }
+
+    /**
+     * Returns true when the attributes of the file were read while visiting, which also means that the file existed at that point.
+     */
+    public boolean hasFileAttributes() {
+        return hasFileAttributes;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return hasFileAttributes ? isDirectory : super.isDirectory();
+    }
+
+    @Override
+    public long getLastModified() {
+        return hasFileAttributes ? lastModified : super.getLastModified();
+    }
+
+    @Override
+    public long getSize() {
+        return hasFileAttributes ? size : super.getSize();
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link DirectoryWalker} that uses {@link File#listFiles()}. When given a {@link DirectoryTreeSnapshot}, the listings of unchanged
+ * directories are replayed from the snapshot instead.
+ */
+public class DefaultDirectoryWalker implements DirectoryWalker {
+    private final FileSystem fileSystem;
+    private final DirectoryTreeSnapshot treeSnapshot;
+
+    public DefaultDirectoryWalker(FileSystem fileSystem) {
+        this(fileSystem, null);
+    }
+
+    public DefaultDirectoryWalker(FileSystem fileSystem, DirectoryTreeSnapshot treeSnapshot) {
+        this.fileSystem = fileSystem;
+        this.treeSnapshot = treeSnapshot;
+    }
+
+    public void walkDir(File file, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        List<FileVisitDetails> dirs = new ArrayList<FileVisitDetails>();
+        if (treeSnapshot == null) {
+            File[] children = listFiles(file);
+            for (int i = 0; !stopFlag.get() && i < children.length; i++) {
+                File child = children[i];
+                visitChild(child, child.isFile(), path, visitor, spec, stopFlag, dirs);
+            }
+        } else {
+            DirectoryTreeSnapshot.DirectoryListing listing = listDir(file);
+            for (int i = 0; !stopFlag.get() && i < listing.size(); i++) {
+                visitChild(new File(file, listing.getName(i)), listing.isFile(i), path, visitor, spec, stopFlag, dirs);
+            }
+        }
+
+        // now handle dirs
+        for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
+            FileVisitDetails dir = dirs.get(i);
+            if (postfix) {
+                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+                visitor.visitDir(dir);
+            } else {
+                visitor.visitDir(dir);
+                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+            }
+        }
+    }
+
+    private void visitChild(File child, boolean isFile, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, List<FileVisitDetails> dirs) {
+        RelativePath childPath = path.append(isFile, child.getName());
+        FileVisitDetails details = new DefaultFileVisitDetails(child, childPath, stopFlag, fileSystem, fileSystem);
+        if (spec.isSatisfiedBy(details)) {
+            if (isFile) {
+                visitor.visitFile(details);
+            } else {
+                dirs.add(details);
+            }
+        }
+    }
+
+    private DirectoryTreeSnapshot.DirectoryListing listDir(File file) {
+        // Read the modification time before listing, so that a change made while listing is picked up by the next walk
+        long lastModified = file.lastModified();
+        DirectoryTreeSnapshot.DirectoryListing listing = treeSnapshot.getListing(file, lastModified);
+        if (listing != null) {
+            return listing;
+        }
+
+        File[] children = listFiles(file);
+        String[] names = new String[children.length];
+        boolean[] files = new boolean[children.length];
+        for (int i = 0; i < children.length; i++) {
+            names[i] = children[i].getName();
+            files[i] = children[i].isFile();
+        }
+        listing = new DirectoryTreeSnapshot.DirectoryListing(lastModified, names, files);
+        treeSnapshot.recordListing(file, listing);
+        return listing;
+    }
+
+    private File[] listFiles(File file) {
+        File[] children = file.listFiles();
+        if (children == null) {
+            if (file.isDirectory() && !file.canRead()) {
+                throw new GradleException(String.format("Could not list contents of directory '%s' as it is not readable.", file));
+            }
+            // else, might be a link which points to nothing, or has been removed while we're visiting, or ...
+            throw new GradleException(String.format("Could not list contents of '%s'.", file));
+        }
+        return children;
+    }
+}
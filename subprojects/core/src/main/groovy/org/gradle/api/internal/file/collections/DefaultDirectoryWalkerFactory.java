@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.Cast;
+import org.gradle.internal.Factory;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.reflect.DirectInstantiator;
+
+/**
+ * Creates the {@link DirectoryWalker} to use for walking directory trees: one that reads the attributes of each entry once, through NIO,
+ * when running on Java 7 or later, and one that uses {@link java.io.File} otherwise.
+ */
+public class DefaultDirectoryWalkerFactory implements Factory<DirectoryWalker> {
+    private static final Logger LOG = Logging.getLogger(DefaultDirectoryWalkerFactory.class);
+
+    private final JavaVersion javaVersion;
+    private final ClassLoader classLoader;
+    private DirectoryWalker walker;
+
+    public DefaultDirectoryWalkerFactory() {
+        this(JavaVersion.current(), DefaultDirectoryWalkerFactory.class.getClassLoader());
+    }
+
+    DefaultDirectoryWalkerFactory(JavaVersion javaVersion, ClassLoader classLoader) {
+        this.javaVersion = javaVersion;
+        this.classLoader = classLoader;
+    }
+
+    public synchronized DirectoryWalker create() {
+        if (walker == null) {
+            walker = createWalker(FileSystems.getDefault());
+        }
+        return walker;
+    }
+
+    private DirectoryWalker createWalker(FileSystem fileSystem) {
+        if (javaVersion.isJava7Compatible()) {
+            try {
+                Class<?> clazz = classLoader.loadClass("org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker");
+                return Cast.uncheckedCast(DirectInstantiator.instantiate(clazz, fileSystem));
+            } catch (ClassNotFoundException e) {
+                LOG.error("Could not load JDK7 class with a JDK7+ JVM, falling back to java.io directory walker.");
+            }
+        }
+        return new DefaultDirectoryWalker(fileSystem);
+    }
+}
@@ -17,7 +17,6 @@
 package org.gradle.api.internal.file.collections;
 
 import com.google.common.base.Function;
-import org.gradle.api.GradleException;
 import org.gradle.api.file.*;
 import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.internal.file.FileSystemSubset;
@@ -26,16 +25,15 @@ import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.Factory;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.nativeintegration.services.FileSystems;
 import org.gradle.util.GFileUtils;
 import org.gradle.util.GUtil;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -56,6 +54,7 @@ public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFile
     };
 
     private static final Logger LOGGER = Logging.getLogger(DirectoryFileTree.class);
+    private static final Factory<DirectoryWalker> DIRECTORY_WALKER_FACTORY = new DefaultDirectoryWalkerFactory();
 
     private final File dir;
 
@@ -120,14 +119,27 @@ public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFile
         visitFrom(visitor, dir, new RelativePath(false));
     }
 
+    /**
+     * Visits this tree, replaying the listings of directories that are unchanged in the given snapshot rather than
+     * listing them again. The snapshot is updated with the listings of any directories that had to be listed.
+     */
+    public void visit(FileVisitor visitor, DirectoryTreeSnapshot treeSnapshot) {
+        visitFrom(visitor, dir, new RelativePath(false), treeSnapshot);
+    }
+
     public void visitFrom(FileVisitor visitor, File dir, RelativePath path) {
+        visitFrom(visitor, dir, path, null);
+    }
+
+    private void visitFrom(FileVisitor visitor, File dir, RelativePath path, DirectoryTreeSnapshot treeSnapshot) {
         AtomicBoolean stopFlag = new AtomicBoolean();
         Spec<FileTreeElement> spec = patternSet.getAsSpec();
         if (dir.exists()) {
             if (dir.isFile()) {
                 processSingleFile(dir, visitor, spec, stopFlag);
             } else {
-                walkDir(dir, path, visitor, spec, stopFlag);
+                DirectoryWalker walker = treeSnapshot == null ? DIRECTORY_WALKER_FACTORY.create() : new DefaultDirectoryWalker(fileSystem, treeSnapshot);
+                walker.walkDir(dir, path, visitor, spec, stopFlag, postfix);
             }
         } else {
             LOGGER.info("file or directory '" + dir + "', not found");
@@ -142,43 +154,6 @@ public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFile
         }
     }
 
-    private void walkDir(File file, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag) {
-        File[] children = file.listFiles();
-        if (children == null) {
-            if (file.isDirectory() && !file.canRead()) {
-                throw new GradleException(String.format("Could not list contents of directory '%s' as it is not readable.", file));
-            }
-            // else, might be a link which points to nothing, or has been removed while we're visiting, or ...
-            throw new GradleException(String.format("Could not list contents of '%s'.", file));
-        }
-        List<FileVisitDetails> dirs = new ArrayList<FileVisitDetails>();
-        for (int i = 0; !stopFlag.get() && i < children.length; i++) {
-            File child = children[i];
-            boolean isFile = child.isFile();
-            RelativePath childPath = path.append(isFile, child.getName());
-            FileVisitDetails details = new DefaultFileVisitDetails(child, childPath, stopFlag, fileSystem, fileSystem);
-            if (isAllowed(details, spec)) {
-                if (isFile) {
-                    visitor.visitFile(details);
-                } else {
-                    dirs.add(details);
-                }
-            }
-        }
-
-        // now handle dirs
-        for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
-            FileVisitDetails dir = dirs.get(i);
-            if (postfix) {
-                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag);
-                visitor.visitDir(dir);
-            } else {
-                visitor.visitDir(dir);
-                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag);
-            }
-        }
-    }
-
     boolean isAllowed(FileTreeElement element, Spec<FileTreeElement> spec) {
         return spec.isSatisfiedBy(element);
     }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The listings of the directories below some root directory, as seen by a previous walk of the tree. A listing is only
+ * replayed while the modification time of its directory is unchanged, so adding, removing or renaming a child causes the
+ * directory to be listed again. Changes to the contents of files do not affect the listings.
+ */
+public class DirectoryTreeSnapshot {
+    /**
+     * Directories that are listed within this period of their last modification may be modified again without their
+     * modification time changing, so their listings are not recorded.
+     */
+    private static final long MODIFICATION_TIME_RESOLUTION = 2000;
+
+    private final SortedMap<String, DirectoryListing> listings;
+    private boolean modified;
+
+    public DirectoryTreeSnapshot() {
+        this(new TreeMap<String, DirectoryListing>());
+    }
+
+    public DirectoryTreeSnapshot(SortedMap<String, DirectoryListing> listings) {
+        this.listings = listings;
+    }
+
+    public SortedMap<String, DirectoryListing> getListings() {
+        return listings;
+    }
+
+    /**
+     * Returns true if listings were recorded or discarded since this snapshot was created.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Returns the listing recorded for the given directory, or null when the directory has not been listed before or has
+     * been modified since.
+     */
+    DirectoryListing getListing(File dir, long lastModified) {
+        DirectoryListing listing = listings.get(dir.getPath());
+        if (listing == null || listing.getLastModified() != lastModified) {
+            return null;
+        }
+        return listing;
+    }
+
+    void recordListing(File dir, DirectoryListing listing) {
+        String path = dir.getPath();
+        if (System.currentTimeMillis() - listing.getLastModified() <= MODIFICATION_TIME_RESOLUTION) {
+            if (listings.remove(path) != null) {
+                modified = true;
+            }
+            return;
+        }
+        DirectoryListing previous = listings.put(path, listing);
+        if (previous != null) {
+            // Forget about the child directories that have gone away, and everything below them
+            Set<String> directories = listing.getDirectoryNames();
+            for (String name : previous.getDirectoryNames()) {
+                if (!directories.contains(name)) {
+                    removeTree(path + File.separatorChar + name);
+                }
+            }
+        }
+        modified = true;
+    }
+
+    private void removeTree(String path) {
+        listings.remove(path);
+        String prefix = path + File.separatorChar;
+        listings.subMap(prefix, prefix + Character.MAX_VALUE).clear();
+    }
+
+    /**
+     * The names of the children of a directory, along with whether each child is a file.
+     */
+    public static class DirectoryListing {
+        private final long lastModified;
+        private final String[] names;
+        private final boolean[] files;
+
+        public DirectoryListing(long lastModified, String[] names, boolean[] files) {
+            this.lastModified = lastModified;
+            this.names = names;
+            this.files = files;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        public String getName(int index) {
+            return names[index];
+        }
+
+        public boolean isFile(int index) {
+            return files[index];
+        }
+
+        Set<String> getDirectoryNames() {
+            Set<String> directories = new HashSet<String>();
+            for (int i = 0; i < names.length; i++) {
+                if (!files[i]) {
+                    directories.add(names[i]);
+                }
+            }
+            return directories;
+        }
+    }
+}
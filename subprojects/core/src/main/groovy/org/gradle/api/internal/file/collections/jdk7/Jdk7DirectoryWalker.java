@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections.jdk7;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.collections.DirectoryWalker;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link DirectoryWalker} that reads the {@link BasicFileAttributes} of each entry once while listing a directory, and hands them to the
+ * visitor with the {@link FileVisitDetails}, so that the type, size and modification time of a file do not have to be queried again.
+ *
+ * <p>{@link Files#walkFileTree} is not used, as it does not visit all files of a directory before its child directories.</p>
+ */
+public class Jdk7DirectoryWalker implements DirectoryWalker {
+    // Whether File.lastModified() truncates timestamps to whole seconds, which it does on some JDKs and platforms. Null until known
+    private static volatile Boolean truncateToSeconds;
+    private final FileSystem fileSystem;
+
+    public Jdk7DirectoryWalker(FileSystem fileSystem) {
+        this.fileSystem = fileSystem;
+    }
+
+    public void walkDir(File file, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        List<FileVisitDetails> dirs = new ArrayList<FileVisitDetails>();
+        DirectoryStream<Path> stream = openDir(file);
+        try {
+            for (Path child : stream) {
+                if (stopFlag.get()) {
+                    break;
+                }
+                visitChild(child, path, visitor, spec, stopFlag, dirs);
+            }
+        } catch (DirectoryIteratorException e) {
+            throw new GradleException(String.format("Could not list contents of '%s'.", file), e.getCause());
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+
+        // now handle dirs
+        for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
+            FileVisitDetails dir = dirs.get(i);
+            if (postfix) {
+                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+                visitor.visitDir(dir);
+            } else {
+                visitor.visitDir(dir);
+                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+            }
+        }
+    }
+
+    private void visitChild(Path child, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, List<FileVisitDetails> dirs) {
+        File childFile = child.toFile();
+        BasicFileAttributes attributes = readAttributes(child);
+        boolean isFile = attributes != null && attributes.isRegularFile();
+        RelativePath childPath = path.append(isFile, childFile.getName());
+        FileVisitDetails details;
+        if (attributes != null) {
+            details = new DefaultFileVisitDetails(childFile, childPath, stopFlag, fileSystem, fileSystem, attributes.isDirectory(), lastModified(childFile, attributes), attributes.size());
+        } else {
+            details = new DefaultFileVisitDetails(childFile, childPath, stopFlag, fileSystem, fileSystem);
+        }
+        if (spec.isSatisfiedBy(details)) {
+            if (isFile) {
+                visitor.visitFile(details);
+            } else {
+                dirs.add(details);
+            }
+        }
+    }
+
+    /**
+     * Returns the modification time of the file with the same precision as {@link File#lastModified()}, so that the timestamp recorded
+     * for a file does not depend on how the file was visited.
+     */
+    private static long lastModified(File file, BasicFileAttributes attributes) {
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long wholeSeconds = lastModified - lastModified % 1000;
+        if (lastModified == wholeSeconds) {
+            return lastModified;
+        }
+        Boolean truncate = truncateToSeconds;
+        if (truncate == null) {
+            long fileLastModified = file.lastModified();
+            if (fileLastModified == lastModified) {
+                truncateToSeconds = false;
+            } else if (fileLastModified == wholeSeconds) {
+                truncateToSeconds = true;
+            }
+            // Otherwise the file has changed since it was listed
+            return fileLastModified;
+        }
+        return truncate ? wholeSeconds : lastModified;
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // might be a link which points to nothing, or has been removed while we're visiting, or ...
+            return null;
+        }
+    }
+
+    private static DirectoryStream<Path> openDir(File file) {
+        try {
+            return Files.newDirectoryStream(file.toPath());
+        } catch (AccessDeniedException e) {
+            throw new GradleException(String.format("Could not list contents of directory '%s' as it is not readable.", file), e);
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not list contents of '%s'.", file), e);
+        }
+    }
+}
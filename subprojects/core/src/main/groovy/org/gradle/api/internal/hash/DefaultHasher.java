@@ -16,11 +16,37 @@
 package org.gradle.api.internal.hash;
 
 import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.Murmur3MessageDigest;
 
 import java.io.File;
 
 public class DefaultHasher implements Hasher {
+    public static final String DEFAULT_ALGORITHM = "MD5";
+
+    private final String algorithm;
+
+    public DefaultHasher() {
+        this(DEFAULT_ALGORITHM);
+    }
+
+    /**
+     * @param algorithm a {@link java.security.MessageDigest} algorithm, or {@link Murmur3MessageDigest#ALGORITHM} for a faster, non-cryptographic hash.
+     */
+    public DefaultHasher(String algorithm) {
+        // Fail early for an unknown algorithm
+        HashUtil.createHash("", algorithm);
+        this.algorithm = algorithm;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getDigestLength() {
+        return HashUtil.getDigestLength(algorithm);
+    }
+
     public byte[] hash(File file) {
-        return HashUtil.createHash(file, "MD5").asByteArray();
+        return HashUtil.createHash(file, algorithm).asByteArray();
     }
 }
\ No newline at end of file
@@ -22,7 +22,7 @@ import org.gradle.api.internal.ConventionTask;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
 import org.gradle.api.internal.project.ProjectInternal;
-import org.gradle.api.internal.tasks.ContextAwareTaskAction;
+import org.gradle.api.internal.tasks.ClassLoaderAwareTaskAction;
 import org.gradle.api.internal.tasks.TaskExecutionContext;
 import org.gradle.api.internal.tasks.execution.TaskValidator;
 import org.gradle.api.specs.Spec;
@@ -227,12 +227,22 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
         }
     }
 
-    public static class IncrementalTaskAction extends StandardTaskAction implements ContextAwareTaskAction {
+    public static class IncrementalTaskAction extends StandardTaskAction implements ClassLoaderAwareTaskAction {
 
+        private final Class<?> declaringClass;
         private TaskArtifactState taskArtifactState;
 
         public IncrementalTaskAction(Method method) {
             super(method);
+            this.declaringClass = method.getDeclaringClass();
+        }
+
+        public ClassLoader getClassLoader() {
+            return declaringClass.getClassLoader();
+        }
+
+        public String getActionClassName() {
+            return declaringClass.getName();
         }
 
         public void contextualise(TaskExecutionContext context) {
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks;
+
+/**
+ * A task action that knows which class implements it, so that the implementation can be identified.
+ */
+public interface ClassLoaderAwareTaskAction extends ContextAwareTaskAction {
+    /**
+     * The class loader that the class implementing this action was loaded by.
+     */
+    ClassLoader getClassLoader();
+
+    /**
+     * The name of the class implementing this action.
+     */
+    String getActionClassName();
+}
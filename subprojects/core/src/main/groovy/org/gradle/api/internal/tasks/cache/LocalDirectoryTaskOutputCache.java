@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * A {@link TaskOutputCache} which stores each entry as a file in a local directory. The total size of the entries is bounded,
+ * and the least recently used entries are evicted when the limit is exceeded. Entries are written to a temporary file and then
+ * moved into place, so that other processes sharing the directory never see a partially written entry.
+ *
+ * <p>The cache directory is shared by all Gradle versions, as the Gradle version is part of the cache key. It is opened when first used.</p>
+ */
+public class LocalDirectoryTaskOutputCache implements TaskOutputCache, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalDirectoryTaskOutputCache.class);
+    private static final String ENTRY_SUFFIX = ".zip";
+
+    private final CacheRepository cacheRepository;
+    private final long maxSize;
+    private PersistentCache persistentCache;
+    private long estimatedSize = -1;
+
+    public LocalDirectoryTaskOutputCache(CacheRepository cacheRepository, long maxSize) {
+        this.cacheRepository = cacheRepository;
+        this.maxSize = maxSize;
+    }
+
+    public String getDescription() {
+        return "local directory cache (" + getDirectory() + ")";
+    }
+
+    private synchronized File getDirectory() {
+        if (persistentCache == null) {
+            persistentCache = cacheRepository
+                    .cache("task-output-cache")
+                    .withCrossVersionCache()
+                    .withDisplayName("Task output cache")
+                    .withLockOptions(mode(FileLockManager.LockMode.None))
+                    .open();
+        }
+        return persistentCache.getBaseDir();
+    }
+
+    public boolean load(TaskCacheKey key, Reader reader) {
+        File entry = entryFor(key);
+        if (!entry.isFile()) {
+            return false;
+        }
+        // Record the access, so that eviction removes the least recently used entries first
+        entry.setLastModified(System.currentTimeMillis());
+        try {
+            InputStream input = new BufferedInputStream(new FileInputStream(entry));
+            try {
+                reader.readFrom(input);
+            } finally {
+                input.close();
+            }
+            return true;
+        } catch (Exception e) {
+            // Treat an entry that cannot be read as a miss, whatever the failure, so that the task is executed instead
+            LOGGER.warn("Could not load entry {} from {}: {}", key, getDescription(), e.getMessage());
+            GFileUtils.deleteQuietly(entry);
+            return false;
+        }
+    }
+
+    public void store(TaskCacheKey key, Writer writer) {
+        File entry = entryFor(key);
+        File tempFile = new File(getDirectory(), key.getHashCode() + "-" + UUID.randomUUID() + ".part");
+        try {
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile));
+            try {
+                writer.writeTo(output);
+            } finally {
+                output.close();
+            }
+            GFileUtils.deleteQuietly(entry);
+            if (!tempFile.renameTo(entry)) {
+                throw new IOException(String.format("Could not move '%s' to '%s'.", tempFile, entry));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not store entry {} in {}: {}", key, getDescription(), e.getMessage());
+            GFileUtils.deleteQuietly(tempFile);
+            return;
+        }
+        recordStored(entry.length());
+    }
+
+    private synchronized void recordStored(long entrySize) {
+        if (estimatedSize < 0) {
+            estimatedSize = totalSize(listEntries());
+        } else {
+            estimatedSize += entrySize;
+        }
+        if (estimatedSize > maxSize) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        // Other processes may have added or removed entries since the size was last calculated, so start from the actual content
+        File[] entries = listEntries();
+        long size = totalSize(entries);
+        Arrays.sort(entries, new Comparator<File>() {
+            public int compare(File o1, File o2) {
+                long diff = o1.lastModified() - o2.lastModified();
+                return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+            }
+        });
+        for (int i = 0; i < entries.length && size > maxSize; i++) {
+            long length = entries[i].length();
+            if (entries[i].delete()) {
+                size -= length;
+            }
+        }
+        estimatedSize = size;
+    }
+
+    private File[] listEntries() {
+        File[] entries = getDirectory().listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(ENTRY_SUFFIX);
+            }
+        });
+        return entries == null ? new File[0] : entries;
+    }
+
+    private static long totalSize(File[] entries) {
+        long size = 0;
+        for (File entry : entries) {
+            size += entry.length();
+        }
+        return size;
+    }
+
+    private File entryFor(TaskCacheKey key) {
+        return new File(getDirectory(), key.getHashCode() + ENTRY_SUFFIX);
+    }
+
+    public synchronized void close() {
+        if (persistentCache != null) {
+            persistentCache.close();
+            persistentCache = null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Accumulates the values that make up a {@link TaskCacheKey}. Each value is written with its length, so that the
+ * boundaries between adjacent values are part of the key.
+ */
+public class TaskCacheKeyBuilder {
+    private final MessageDigest digest;
+
+    public TaskCacheKeyBuilder() {
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    public TaskCacheKeyBuilder putByte(byte value) {
+        digest.update(value);
+        return this;
+    }
+
+    public TaskCacheKeyBuilder putInt(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+        return this;
+    }
+
+    public TaskCacheKeyBuilder putBytes(byte[] bytes) {
+        putInt(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    public TaskCacheKeyBuilder putString(CharSequence value) {
+        try {
+            return putBytes(value.toString().getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    public TaskCacheKey build() {
+        return new TaskCacheKey(new HashValue(digest.digest()));
+    }
+}
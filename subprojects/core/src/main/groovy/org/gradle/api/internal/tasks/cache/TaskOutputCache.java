@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A store for the packed outputs of task executions, addressed by {@link TaskCacheKey}.
+ */
+public interface TaskOutputCache {
+    /**
+     * Loads the outputs stored for the given key, if any.
+     *
+     * @return true if an entry was found and passed to the reader, false otherwise.
+     */
+    boolean load(TaskCacheKey key, Reader reader);
+
+    /**
+     * Stores the outputs produced by the given writer under the given key, replacing any existing entry.
+     */
+    void store(TaskCacheKey key, Writer writer);
+
+    String getDescription();
+
+    interface Reader {
+        void readFrom(InputStream input) throws IOException;
+    }
+
+    interface Writer {
+        void writeTo(OutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import org.gradle.api.Task;
+
+/**
+ * Receives notifications about task output cache lookups.
+ */
+public interface TaskOutputCacheListener {
+    /**
+     * Called when the outputs of the given task have been restored from the cache.
+     */
+    void cacheHit(Task task);
+
+    /**
+     * Called when no cached outputs were available for the given task, so that it has to be executed.
+     */
+    void cacheMiss(Task task);
+}
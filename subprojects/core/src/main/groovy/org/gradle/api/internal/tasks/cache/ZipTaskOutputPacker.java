@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.util.GFileUtils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Packs the output files and directories of a task into a single zip stream, and restores them from it.
+ *
+ * <p>Each output root is identified by its index in the sorted list of roots. An output file is stored as an entry named by the index,
+ * an output directory as a directory entry named by the index followed by the entries for its contents. Roots which did not exist when
+ * the outputs were packed have no entry, and are removed when the outputs are unpacked.</p>
+ */
+public class ZipTaskOutputPacker {
+
+    public void pack(Collection<File> outputRoots, OutputStream output) throws IOException {
+        List<File> roots = sorted(outputRoots);
+        ZipOutputStream zipOutput = new ZipOutputStream(output);
+        for (int i = 0; i < roots.size(); i++) {
+            File root = roots.get(i);
+            String rootName = String.valueOf(i);
+            if (root.isFile()) {
+                packFile(root, rootName, zipOutput);
+            } else if (root.isDirectory()) {
+                packDirectory(root, rootName + "/", zipOutput);
+            }
+        }
+        zipOutput.finish();
+    }
+
+    private void packDirectory(File dir, String path, ZipOutputStream zipOutput) throws IOException {
+        zipOutput.putNextEntry(new ZipEntry(path));
+        zipOutput.closeEntry();
+        File[] children = dir.listFiles();
+        if (children == null) {
+            throw new IOException(String.format("Could not list contents of directory '%s'.", dir));
+        }
+        for (File child : sorted(Arrays.asList(children))) {
+            if (child.isDirectory()) {
+                packDirectory(child, path + child.getName() + "/", zipOutput);
+            } else {
+                packFile(child, path + child.getName(), zipOutput);
+            }
+        }
+    }
+
+    private void packFile(File file, String path, ZipOutputStream zipOutput) throws IOException {
+        ZipEntry entry = new ZipEntry(path);
+        entry.setTime(file.lastModified());
+        zipOutput.putNextEntry(entry);
+        InputStream input = new FileInputStream(file);
+        try {
+            IOUtils.copyLarge(input, zipOutput);
+        } finally {
+            input.close();
+        }
+        zipOutput.closeEntry();
+    }
+
+    /**
+     * Replaces the given output roots with the outputs read from the given stream. Fails with an {@link IOException} when the stream is
+     * not a valid packed output, in which case the output roots are removed so that no partially restored outputs are left behind.
+     */
+    public void unpack(Collection<File> outputRoots, InputStream input) throws IOException {
+        List<File> roots = sorted(outputRoots);
+        removeOutputs(roots);
+        boolean unpacked = false;
+        try {
+            unpackEntries(roots, input);
+            unpacked = true;
+        } finally {
+            if (!unpacked) {
+                removeOutputs(roots);
+            }
+        }
+    }
+
+    private void unpackEntries(List<File> roots, InputStream input) throws IOException {
+        ZipInputStream zipInput = new ZipInputStream(input);
+        ZipEntry entry;
+        while ((entry = zipInput.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (name.startsWith("../") || name.contains("/../") || name.endsWith("/..")) {
+                throw new IOException(String.format("Invalid entry '%s' in cached task output.", name));
+            }
+            int separator = name.indexOf('/');
+            File root = roots.get(rootIndex(separator < 0 ? name : name.substring(0, separator), name, roots.size()));
+            File target = separator < 0 ? root : new File(root, name.substring(separator + 1));
+            if (entry.isDirectory()) {
+                GFileUtils.mkdirs(target);
+            } else {
+                GFileUtils.parentMkdirs(target);
+                OutputStream output = new FileOutputStream(target);
+                try {
+                    IOUtils.copyLarge(zipInput, output);
+                } finally {
+                    output.close();
+                }
+                if (entry.getTime() != -1) {
+                    target.setLastModified(entry.getTime());
+                }
+            }
+        }
+    }
+
+    private static int rootIndex(String rootName, String entryName, int rootCount) throws IOException {
+        int index;
+        try {
+            index = Integer.parseInt(rootName);
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("Invalid entry '%s' in cached task output.", entryName));
+        }
+        if (index < 0 || index >= rootCount) {
+            throw new IOException(String.format("Entry '%s' in cached task output does not match any of the %d output roots.", entryName, rootCount));
+        }
+        return index;
+    }
+
+    private static void removeOutputs(List<File> roots) {
+        for (File root : roots) {
+            GFileUtils.deleteQuietly(root);
+        }
+    }
+
+    private static List<File> sorted(Collection<File> files) {
+        List<File> result = new ArrayList<File>(files);
+        Collections.sort(result);
+        return result;
+    }
+}
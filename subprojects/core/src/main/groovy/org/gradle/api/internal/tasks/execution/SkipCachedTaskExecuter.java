@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskArtifactState;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheListener;
+import org.gradle.api.internal.tasks.cache.ZipTaskOutputPacker;
+import org.gradle.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Restores the outputs of a task from the {@link TaskOutputCache} instead of executing it, when an entry is available for the
+ * task's inputs. Stores the outputs of the task in the cache after it has been executed successfully.
+ */
+public class SkipCachedTaskExecuter implements TaskExecuter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkipCachedTaskExecuter.class);
+    private final TaskOutputCache cache;
+    private final ZipTaskOutputPacker packer;
+    private final TaskOutputCacheListener listener;
+    private final TaskExecuter executer;
+
+    public SkipCachedTaskExecuter(TaskOutputCache cache, ZipTaskOutputPacker packer, TaskOutputCacheListener listener, TaskExecuter executer) {
+        this.cache = cache;
+        this.packer = packer;
+        this.listener = listener;
+        this.executer = executer;
+    }
+
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        TaskArtifactState taskArtifactState = context.getTaskArtifactState();
+        TaskCacheKey cacheKey = taskArtifactState == null ? null : taskArtifactState.calculateCacheKey();
+        if (cacheKey == null) {
+            executer.execute(task, state, context);
+            return;
+        }
+
+        final Set<File> outputFiles = task.getOutputs().getFiles().getFiles();
+        Clock clock = new Clock();
+        boolean found = cache.load(cacheKey, new TaskOutputCache.Reader() {
+            public void readFrom(InputStream input) throws IOException {
+                packer.unpack(outputFiles, input);
+            }
+        });
+        if (found) {
+            LOGGER.info("Restored outputs of {} from {} with cache key {} (took {}).", task, cache.getDescription(), cacheKey, clock.getTime());
+            listener.cacheHit(task);
+            state.skipped("FROM-CACHE");
+            return;
+        }
+        listener.cacheMiss(task);
+
+        executer.execute(task, state, context);
+
+        if (state.getFailure() == null) {
+            cache.store(cacheKey, new TaskOutputCache.Writer() {
+                public void writeTo(OutputStream output) throws IOException {
+                    packer.pack(outputFiles, output);
+                }
+            });
+        }
+    }
+}
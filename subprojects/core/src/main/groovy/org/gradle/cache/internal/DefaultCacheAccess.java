@@ -32,13 +32,21 @@ import org.gradle.internal.serialize.Serializer;
 import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.*;
 
 import static org.gradle.cache.internal.FileLockManager.LockMode.Exclusive;
 import static org.gradle.cache.internal.FileLockManager.LockMode.Shared;
 
+/**
+ * Coordinates access to a cache by the threads of this process and by other processes.
+ *
+ * <p>By default, a thread that uses the cache excludes all other threads of this process from using it. When the cache is opened with {@link LockOptions#isConcurrentAccess()},
+ * any number of threads may use the cache at the same time. The file lock is then held while at least one thread uses the cache, reads of the cache files may happen in
+ * parallel and writes to the cache files are serialized.</p>
+ */
 @ThreadSafe
 public class DefaultCacheAccess implements CacheCoordinator {
 
@@ -53,13 +61,17 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private final Set<MultiProcessSafePersistentIndexedCache> caches = new HashSet<MultiProcessSafePersistentIndexedCache>();
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
-    private Thread owner;
+    private final ReadWriteLock fileAccessLock = new ReentrantReadWriteLock();
+    private final Set<Thread> owners = new HashSet<Thread>();
+    private boolean concurrentAccess;
     private LockOptions lockOptions;
     private FileLock fileLock;
     private FileLock.State stateAtOpen;
     private boolean contended;
     private final CacheAccessOperationsStack operations;
     private int cacheClosedCount;
+    private final WaitTime threadWaitTime = new WaitTime();
+    private final WaitTime fileLockWaitTime = new WaitTime();
 
     public DefaultCacheAccess(String cacheDisplayName, File lockTarget, File baseDir, FileLockManager lockManager, CacheInitializationAction initializationAction) {
         this.cacheDisplayName = cacheDisplayName;
@@ -77,6 +89,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
                 throw new IllegalStateException(String.format("Cannot open the %s, as it has already been opened.", cacheDisplayName));
             }
             this.lockOptions = lockOptions;
+            this.concurrentAccess = lockOptions.isConcurrentAccess();
             if (lockOptions.getMode() == FileLockManager.LockMode.None) {
                 return;
             }
@@ -152,11 +165,12 @@ public class DefaultCacheAccess implements CacheCoordinator {
         lock.lock();
         try {
             // Take ownership
-            if (owner == null) {
-                owner = Thread.currentThread();
-            } else if (lockOptions.getMode() != Shared && owner != Thread.currentThread()) {
-                // TODO:ADAM - The check for shared mode is a work around. Owner should release the lock
-                throw new IllegalStateException(String.format("Cannot close %s as it is currently being used by another thread.", cacheDisplayName));
+            if (!owners.contains(Thread.currentThread())) {
+                if (!owners.isEmpty() && lockOptions.getMode() != Shared) {
+                    // TODO:ADAM - The check for shared mode is a work around. Owner should release the lock
+                    throw new IllegalStateException(String.format("Cannot close %s as it is currently being used by another thread.", cacheDisplayName));
+                }
+                owners.add(Thread.currentThread());
             }
             if (fileLock != null) {
                 closeFileLock();
@@ -164,13 +178,27 @@ public class DefaultCacheAccess implements CacheCoordinator {
             if (cacheClosedCount != 1) {
                 LOG.debug("Cache {} was closed {} times.", cacheDisplayName, cacheClosedCount);
             }
+            reportLockWaitTime();
         } finally {
             lockOptions = null;
-            owner = null;
+            owners.clear();
             lock.unlock();
         }
     }
 
+    private void reportLockWaitTime() {
+        if (threadWaitTime.getCount() == 0 && fileLockWaitTime.getCount() == 0) {
+            return;
+        }
+        String message = "Lock wait time for {}: {}ms waiting for other threads ({} waits), {}ms acquiring the file lock ({} acquisitions).";
+        Object[] args = {cacheDisplayName, threadWaitTime.getMillis(), threadWaitTime.getCount(), fileLockWaitTime.getMillis(), fileLockWaitTime.getCount()};
+        if (threadWaitTime.getCount() > 0) {
+            LOG.info(message, args);
+        } else {
+            LOG.debug(message, args);
+        }
+    }
+
     public void useCache(String operationDisplayName, Runnable action) {
         useCache(operationDisplayName, Factories.toFactory(action));
     }
@@ -194,7 +222,8 @@ public class DefaultCacheAccess implements CacheCoordinator {
             lock.lock();
             try {
                 try {
-                    if (wasStarted) {
+                    // With concurrent access, the work is ended by the last thread to release ownership
+                    if (wasStarted && !concurrentAccess) {
                         onEndWork();
                     }
                 } finally {
@@ -209,18 +238,35 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private void takeOwnership(String operationDisplayName) {
         lock.lock();
         try {
-            while (owner != null && owner != Thread.currentThread()) {
+            awaitOwnership();
+            operations.pushCacheAction(operationDisplayName);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitOwnership() {
+        Thread currentThread = Thread.currentThread();
+        if (!canTakeOwnership(currentThread)) {
+            long start = System.nanoTime();
+            do {
                 try {
                     condition.await();
                 } catch (InterruptedException e) {
                     throw UncheckedException.throwAsUncheckedException(e);
                 }
-            }
-            owner = Thread.currentThread();
-            operations.pushCacheAction(operationDisplayName);
-        } finally {
-            lock.unlock();
+            } while (!canTakeOwnership(currentThread));
+            threadWaitTime.add(start);
         }
+        owners.add(currentThread);
+    }
+
+    private boolean canTakeOwnership(Thread thread) {
+        if (owners.isEmpty() || owners.contains(thread)) {
+            return true;
+        }
+        // Once another process has asked for the file lock, let the current owners finish so that the lock can be released
+        return concurrentAccess && !contended;
     }
 
     private void releaseOwnership() {
@@ -228,14 +274,27 @@ public class DefaultCacheAccess implements CacheCoordinator {
         try {
             operations.popCacheAction();
             if (!operations.isInCacheAction()) {
-                owner = null;
-                condition.signalAll();
+                disown();
             }
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Removes the current thread from the owners of the cache. With concurrent access, the last owner to leave ends the work.
+     *
+     * @return whether the work was ended.
+     */
+    private boolean disown() {
+        try {
+            return concurrentAccess && owners.size() == 1 && onEndWork();
+        } finally {
+            owners.remove(Thread.currentThread());
+            condition.signalAll();
+        }
+    }
+
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
         boolean wasEnded = startLongRunningOperation(operationDisplayName);
         try {
@@ -254,9 +313,12 @@ public class DefaultCacheAccess implements CacheCoordinator {
             }
             if (operations.isInCacheAction()) {
                 checkThreadIsOwner();
-                wasEnded = onEndWork();
-                owner = null;
-                condition.signalAll();
+                if (concurrentAccess) {
+                    wasEnded = disown();
+                } else {
+                    wasEnded = onEndWork();
+                    disown();
+                }
             } else {
                 wasEnded = false;
             }
@@ -273,7 +335,8 @@ public class DefaultCacheAccess implements CacheCoordinator {
             operations.popLongRunningOperation();
             if (operations.isInCacheAction()) {
                 restoreOwner();
-                if (wasEnded) {
+                // With concurrent access, another thread may have ended the work in the meantime
+                if (wasEnded || concurrentAccess) {
                     onStartWork();
                 }
             }
@@ -285,7 +348,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private void checkThreadIsOwner() {
         lock.lock();
         try {
-            if (owner != Thread.currentThread()) {
+            if (!owners.contains(Thread.currentThread())) {
                 throw new IllegalStateException(String.format("Cannot start long running operation, as the %s has not been locked.", cacheDisplayName));
             }
         } finally {
@@ -296,14 +359,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private void restoreOwner() {
         lock.lock();
         try {
-            while (owner != null) {
-                try {
-                    condition.await();
-                } catch (InterruptedException e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
-            }
-            owner = Thread.currentThread();
+            awaitOwnership();
         } finally {
             lock.unlock();
         }
@@ -323,7 +379,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
 
         MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
         CacheDecorator decorator = parameters.getCacheDecorator();
-        indexedCache = decorator == null ? indexedCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), indexedCache);
+        indexedCache = decorator == null ? indexedCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), parameters.getValueSerializer(), indexedCache);
 
         lock.lock();
         try {
@@ -346,7 +402,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
         if (fileLock != null) {
             return false;
         }
+        long start = System.nanoTime();
         fileLock = lockManager.lock(lockTarget, lockOptions.withMode(Exclusive), cacheDisplayName, operations.getDescription());
+        fileLockWaitTime.add(start);
         if (initializationAction.requiresInitialization(fileLock)) {
             fileLock.writeFile(new Runnable() {
                 public void run() {
@@ -377,8 +435,8 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private FileLock getLock() {
         lock.lock();
         try {
-            if (Thread.currentThread() != owner) {
-                throw new IllegalStateException(String.format("The %s has not been locked for this thread. File lock: %s, owner: %s", cacheDisplayName, fileLock != null, owner));
+            if (!owners.contains(Thread.currentThread())) {
+                throw new IllegalStateException(String.format("The %s has not been locked for this thread. File lock: %s, owners: %s", cacheDisplayName, fileLock != null, owners));
             }
         } finally {
             lock.unlock();
@@ -392,16 +450,47 @@ public class DefaultCacheAccess implements CacheCoordinator {
             return cacheDisplayName;
         }
 
+        // The file lock tracks whether the cache files are being written, so writes exclude all other access to the files
+
         public <T> T readFile(Factory<? extends T> action) throws LockTimeoutException {
-            return getLock().readFile(action);
+            FileLock fileLock = getLock();
+            Lock readLock = fileAccessLock.readLock();
+            acquire(readLock);
+            try {
+                return fileLock.readFile(action);
+            } finally {
+                readLock.unlock();
+            }
         }
 
         public void updateFile(Runnable action) throws LockTimeoutException {
-            getLock().updateFile(action);
+            FileLock fileLock = getLock();
+            Lock writeLock = fileAccessLock.writeLock();
+            acquire(writeLock);
+            try {
+                fileLock.updateFile(action);
+            } finally {
+                writeLock.unlock();
+            }
         }
 
         public void writeFile(Runnable action) throws LockTimeoutException {
-            getLock().writeFile(action);
+            FileLock fileLock = getLock();
+            Lock writeLock = fileAccessLock.writeLock();
+            acquire(writeLock);
+            try {
+                fileLock.writeFile(action);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void acquire(Lock fileAccessLock) {
+            if (!fileAccessLock.tryLock()) {
+                long start = System.nanoTime();
+                fileAccessLock.lock();
+                threadWaitTime.add(start);
+            }
         }
     }
 
@@ -410,12 +499,12 @@ public class DefaultCacheAccess implements CacheCoordinator {
             public void run() {
                 lock.lock();
                 try {
-                    LOG.debug("Detected file lock contention of {} (fileLock={}, contended={}, owner={})", cacheDisplayName, fileLock != null, contended, owner);
+                    LOG.debug("Detected file lock contention of {} (fileLock={}, contended={}, owners={})", cacheDisplayName, fileLock != null, contended, owners);
                     if (fileLock == null) {
                         //the lock may have been closed
                         return;
                     }
-                    if (owner != null) {
+                    if (!owners.isEmpty()) {
                         contended = true;
                         return;
                     }
@@ -434,10 +523,46 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     Thread getOwner() {
-        return owner;
+        lock.lock();
+        try {
+            return owners.isEmpty() ? null : owners.iterator().next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Set<Thread> getOwners() {
+        lock.lock();
+        try {
+            return new HashSet<Thread>(owners);
+        } finally {
+            lock.unlock();
+        }
     }
 
     FileAccess getFileAccess() {
         return fileAccess;
     }
+
+    long getLockWaitTime() {
+        return threadWaitTime.getMillis() + fileLockWaitTime.getMillis();
+    }
+
+    private static class WaitTime {
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicInteger count = new AtomicInteger();
+
+        void add(long startNanos) {
+            nanos.addAndGet(System.nanoTime() - startNanos);
+            count.incrementAndGet();
+        }
+
+        long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+        }
+
+        int getCount() {
+            return count.get();
+        }
+    }
 }
\ No newline at end of file
@@ -15,13 +15,27 @@
  */
 package org.gradle.cache.internal;
 
-import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.internal.Factory;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Synchronizes access to the backing btree, which does not support concurrent access, so that the cache can be used by several threads at once.
+ *
+ * <p>Puts and removes are buffered in memory, so that repeated writes to the same key are coalesced. The buffered changes are written to the btree in a single
+ * batch when the cache is closed at the end of the unit of work, or once the buffer is full.</p>
+ */
 public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
+    static final int MAX_PENDING_CHANGES = 1000;
+
     private final FileAccess fileAccess;
     private final Factory<BTreePersistentIndexedCache<K, V>> factory;
+    private final Map<K, V> pendingPuts = new HashMap<K, V>();
+    private final Set<K> pendingRemoves = new HashSet<K>();
     private BTreePersistentIndexedCache<K, V> cache;
 
     public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
@@ -29,8 +43,14 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
         this.fileAccess = fileAccess;
     }
 
-    public V get(final K key) {
-        final PersistentIndexedCache<K, V> cache = getCache();
+    public synchronized V get(final K key) {
+        if (pendingPuts.containsKey(key)) {
+            return pendingPuts.get(key);
+        }
+        if (pendingRemoves.contains(key)) {
+            return null;
+        }
+        final BTreePersistentIndexedCache<K, V> cache = getCache();
         try {
             return fileAccess.readFile(new Factory<V>() {
                 public V create() {
@@ -42,35 +62,49 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
         }
     }
 
-    public void put(final K key, final V value) {
-        final PersistentIndexedCache<K, V> cache = getCache();
-        // Use writeFile because the cache can internally recover from datafile
-        // corruption, so we don't care at this level if it's corrupt
-        fileAccess.writeFile(new Runnable() {
-            public void run() {
-                cache.put(key, value);
-            }
-        });
+    public synchronized void put(final K key, final V value) {
+        if (!canBuffer(key)) {
+            final BTreePersistentIndexedCache<K, V> cache = getCache();
+            // Use writeFile because the cache can internally recover from datafile
+            // corruption, so we don't care at this level if it's corrupt
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    cache.put(key, value);
+                }
+            });
+            return;
+        }
+        pendingRemoves.remove(key);
+        pendingPuts.put(key, value);
+        maybeFlush();
     }
 
-    public void remove(final K key) {
-        final PersistentIndexedCache<K, V> cache = getCache();
-        // Use writeFile because the cache can internally recover from datafile
-        // corruption, so we don't care at this level if it's corrupt
-        fileAccess.writeFile(new Runnable() {
-            public void run() {
-                cache.remove(key);
-            }
-        });
+    public synchronized void remove(final K key) {
+        if (!canBuffer(key)) {
+            final BTreePersistentIndexedCache<K, V> cache = getCache();
+            // Use writeFile because the cache can internally recover from datafile
+            // corruption, so we don't care at this level if it's corrupt
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    cache.remove(key);
+                }
+            });
+            return;
+        }
+        pendingPuts.remove(key);
+        pendingRemoves.add(key);
+        maybeFlush();
     }
 
     public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
     }
 
-    public void onEndWork(FileLock.State currentCacheState) {
+    public synchronized void onEndWork(FileLock.State currentCacheState) {
+        flush();
     }
 
-    public void close() {
+    public synchronized void close() {
+        flush();
         if (cache != null) {
             try {
                 fileAccess.writeFile(new Runnable() {
@@ -84,7 +118,39 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
         }
     }
 
-    private PersistentIndexedCache<K, V> getCache() {
+    /**
+     * Arrays don't implement equals() and hashCode(), so changes to array keys are written through.
+     */
+    private boolean canBuffer(K key) {
+        return !key.getClass().isArray();
+    }
+
+    private void maybeFlush() {
+        if (pendingPuts.size() + pendingRemoves.size() >= MAX_PENDING_CHANGES) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (pendingPuts.isEmpty() && pendingRemoves.isEmpty()) {
+            return;
+        }
+        final BTreePersistentIndexedCache<K, V> cache = getCache();
+        try {
+            // Use writeFile because the cache can internally recover from datafile
+            // corruption, so we don't care at this level if it's corrupt
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    cache.update(pendingPuts, pendingRemoves);
+                }
+            });
+        } finally {
+            pendingPuts.clear();
+            pendingRemoves.clear();
+        }
+    }
+
+    private BTreePersistentIndexedCache<K, V> getCache() {
         if (cache == null) {
             // Use writeFile because the cache can internally recover from datafile
             // corruption, so we don't care at this level if it's corrupt
@@ -17,6 +17,8 @@ package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Cast;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -43,6 +45,7 @@ import java.util.*;
 // todo - use more efficient lookup for free block with nearest size
 public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
+    private static final Object REMOVED = new Object();
     private final File cacheFile;
     private final Serializer<K> keySerializer;
     private final Serializer<V> serializer;
@@ -50,6 +53,12 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private final int minIndexChildNodes;
     private final StateCheckBlockStore store;
     private HeaderBlock header;
+    // The cache is not used by several threads at the same time, so these are reused for each key and value rather than allocated each time
+    private final MessageDigestStream keyDigestStream = new MessageDigestStream();
+    private final KryoBackedEncoder keyEncoder = new KryoBackedEncoder(keyDigestStream, 256);
+    private final ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+    private final KryoBackedEncoder valueEncoder = new KryoBackedEncoder(valueBytes);
+    private KryoBackedDecoder valueDecoder;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this(cacheFile, keySerializer, valueSerializer, (short) 512, 512);
@@ -132,25 +141,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public void put(K key, V value) {
         try {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
-            keySerializer.write(encoder, key);
-            encoder.flush();
-            long hashCode = digestStream.getChecksum();
-            Lookup lookup = header.getRoot().find(hashCode);
-            boolean needNewBlock = true;
-            if (lookup.entry != null) {
-                DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
-                needNewBlock = !block.useNewValue(value);
-                if (needNewBlock) {
-                    store.remove(block);
-                }
-            }
-            if (needNewBlock) {
-                DataBlock block = new DataBlock(value);
-                store.write(block);
-                lookup.indexBlock.put(hashCode, block.getPos());
-            }
+            doPut(hashKey(key), value);
             store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
@@ -159,19 +150,91 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public void remove(K key) {
         try {
-            Lookup lookup = header.getRoot().find(key);
-            if (lookup.entry == null) {
-                return;
-            }
-            lookup.indexBlock.remove(lookup.entry);
-            DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
-            store.remove(block);
+            doRemove(hashKey(key));
             store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
         }
     }
 
+    /**
+     * Adds the given entries and removes the given keys, which must not overlap. The changes are applied in index order and written in a single flush,
+     * so that each modified block is written once.
+     */
+    public void update(Map<K, V> entries, Collection<K> removedKeys) {
+        try {
+            SortedMap<Long, Object> changes = new TreeMap<Long, Object>();
+            for (K key : removedKeys) {
+                changes.put(hashKey(key), REMOVED);
+            }
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                changes.put(hashKey(entry.getKey()), entry.getValue());
+            }
+            for (Map.Entry<Long, Object> change : changes.entrySet()) {
+                if (change.getValue() == REMOVED) {
+                    doRemove(change.getKey());
+                } else {
+                    doPut(change.getKey(), Cast.<V>uncheckedCast(change.getValue()));
+                }
+            }
+            store.flush();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not update %s entries in %s.", entries.size() + removedKeys.size(), this), e);
+        }
+    }
+
+    private long hashKey(K key) throws Exception {
+        keyEncoder.reset(keyDigestStream);
+        keySerializer.write(keyEncoder, key);
+        keyEncoder.flush();
+        return keyDigestStream.getChecksum();
+    }
+
+    private byte[] serialize(V value) throws Exception {
+        valueBytes.reset();
+        valueEncoder.reset(valueBytes);
+        serializer.write(valueEncoder, value);
+        valueEncoder.flush();
+        return valueBytes.toByteArray();
+    }
+
+    private V deserialize(byte[] serialisedValue) throws Exception {
+        InputStream inputStream = new ByteArrayInputStream(serialisedValue);
+        if (valueDecoder == null) {
+            valueDecoder = new KryoBackedDecoder(inputStream);
+        } else {
+            valueDecoder.reset(inputStream);
+        }
+        return serializer.read(valueDecoder);
+    }
+
+    private void doPut(long hashCode, V value) throws Exception {
+        Lookup lookup = header.getRoot().find(hashCode);
+        boolean needNewBlock = true;
+        if (lookup.entry != null) {
+            DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
+            needNewBlock = !block.useNewValue(value);
+            if (needNewBlock) {
+                store.remove(block);
+            }
+        }
+        if (needNewBlock) {
+            DataBlock block = new DataBlock(value);
+            store.write(block);
+            lookup.indexBlock.put(hashCode, block.getPos());
+        }
+    }
+
+    private void doRemove(long hashCode) throws Exception {
+        Lookup lookup = header.getRoot().find(hashCode);
+        if (lookup.entry == null) {
+            return;
+        }
+        lookup.indexBlock.remove(lookup.entry);
+        DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
+        store.remove(block);
+    }
+
     private IndexBlock load(BlockPointer pos, IndexRoot root, IndexBlock parent, int index) {
         IndexBlock block = store.read(pos, IndexBlock.class);
         block.root = root;
@@ -450,12 +513,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
 
         public Lookup find(K key) throws Exception {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
-            keySerializer.write(encoder, key);
-            encoder.flush();
-            long checksum = digestStream.getChecksum();
-            return find(checksum);
+            return find(hashKey(key));
         }
 
         private Lookup find(long hashCode) throws Exception {
@@ -650,16 +708,12 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
 
         public void setValue(V value) throws Exception {
-            ByteArrayOutputStream outStr = new ByteArrayOutputStream();
-            KryoBackedEncoder encoder = new KryoBackedEncoder(outStr);
-            serializer.write(encoder, value);
-            encoder.flush();
-            this.serialisedValue = outStr.toByteArray();
+            this.serialisedValue = serialize(value);
         }
 
         public V getValue() throws Exception {
             if (value == null) {
-                value = serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(serialisedValue)));
+                value = deserialize(serialisedValue);
             }
             return value;
         }
@@ -700,8 +754,12 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private static class MessageDigestStream extends OutputStream {
         MessageDigest messageDigest;
 
-        private MessageDigestStream() throws NoSuchAlgorithmException {
-            messageDigest = MessageDigest.getInstance("MD5");
+        private MessageDigestStream() {
+            try {
+                messageDigest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
         }
 
         @Override
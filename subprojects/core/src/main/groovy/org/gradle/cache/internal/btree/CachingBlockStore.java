@@ -21,7 +21,8 @@ import java.util.*;
 
 public class CachingBlockStore implements BlockStore {
     private final BlockStore store;
-    private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
+    // Sorted by position, so that flushing writes the dirty blocks in file order
+    private final Map<BlockPointer, BlockPayload> dirty = new TreeMap<BlockPointer, BlockPayload>();
     private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
 
@@ -23,6 +23,12 @@ public interface LockOptions {
 
     boolean isUseCrossVersionImplementation();
 
+    /**
+     * Returns true when multiple threads may use the cache at the same time. When false, a thread that uses the cache excludes all other threads
+     * from using it.
+     */
+    boolean isConcurrentAccess();
+
     /**
      * Creates a copy of these options with the given mode.
      */
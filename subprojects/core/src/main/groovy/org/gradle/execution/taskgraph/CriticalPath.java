@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A chain of tasks, each depending on the previous one, together with the execution time of each task.
+ */
+public class CriticalPath {
+    private final Map<String, Long> tasks = new LinkedHashMap<String, Long>();
+    private long executionTime;
+
+    void add(String taskPath, long executionTime) {
+        tasks.put(taskPath, executionTime);
+        this.executionTime += executionTime;
+    }
+
+    /**
+     * Returns the paths of the tasks on this critical path, in execution order, mapped to their execution time in milliseconds.
+     */
+    public Map<String, Long> getTasks() {
+        return Collections.unmodifiableMap(tasks);
+    }
+
+    /**
+     * Returns the total execution time of the tasks on this critical path in milliseconds.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+}
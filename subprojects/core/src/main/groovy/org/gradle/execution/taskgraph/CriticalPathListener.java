@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+/**
+ * Receives the critical path of the task graph once it has been executed with critical path scheduling enabled.
+ */
+public interface CriticalPathListener {
+    /**
+     * Called after the task graph has been executed.
+     *
+     * @param predicted the critical path predicted from the execution times of previous builds.
+     * @param actual the chain of tasks that determined when the last task completed, with their actual execution times.
+     */
+    void criticalPathCompleted(CriticalPath predicted, CriticalPath actual);
+}
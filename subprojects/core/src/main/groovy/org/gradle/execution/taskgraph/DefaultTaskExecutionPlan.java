@@ -18,7 +18,6 @@ package org.gradle.execution.taskgraph;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
@@ -41,7 +40,6 @@ import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.graph.GraphNodeRenderer;
 import org.gradle.logging.StyledTextOutput;
 import org.gradle.util.CollectionUtils;
-import org.gradle.util.TextUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -62,12 +60,28 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
     private final Lock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
+    private final Condition taskAvailable = lock.newCondition();
+    private final Condition tasksComplete = lock.newCondition();
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    private final Queue<TaskInfo> readyTasks = new PriorityQueue<TaskInfo>(11, new Comparator<TaskInfo>() {
+        public int compare(TaskInfo o1, TaskInfo o2) {
+            // Longest remaining critical path first, which is the same for all tasks unless critical path scheduling is used
+            if (o1.getCriticalPathTime() != o2.getCriticalPathTime()) {
+                return o1.getCriticalPathTime() > o2.getCriticalPathTime() ? -1 : 1;
+            }
+            return o1.getExecutionOrder() - o2.getExecutionOrder();
+        }
+    });
+    private final ListMultimap<TaskInfo, TaskInfo> dependents = ArrayListMultimap.create();
+    private final SetMultimap<String, TaskInfo> tasksWaitingForProject = LinkedHashMultimap.create();
+    private final Set<TaskInfo> tasksWaitingForOutputs = new LinkedHashSet<TaskInfo>();
+    private int incompleteTasks;
+    private TaskExecutionTimeEstimator executionTimeEstimator;
+    private final Map<Task, Long> estimatedExecutionTimes = Maps.newIdentityHashMap();
+    private CriticalPath predictedCriticalPath = new CriticalPath();
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
 
@@ -75,7 +89,8 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final BuildCancellationToken cancellationToken;
     private final Multiset<String> projectsWithRunningTasks = HashMultiset.create();
     private final Multiset<String> projectsWithRunningNonParallelizableTasks = HashMultiset.create();
-    private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
+    private final TaskOutputPathTrie runningTaskOutputs = new TaskOutputPathTrie();
+    private final Set<TaskInternal> runningTasksNotIndexed = Sets.newIdentityHashSet();
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
@@ -313,8 +328,130 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             }
         }
-        executionQueue.clear();
-        executionQueue.addAll(executionPlan.values());
+        scheduleExecution();
+    }
+
+    /**
+     * Counts the incomplete dependencies of each task in the plan and queues those that can start straight away. Tasks are queued again as their
+     * remaining dependency count drops to zero, so that workers never have to scan the plan looking for work.
+     */
+    private void scheduleExecution() {
+        readyTasks.clear();
+        dependents.clear();
+        tasksWaitingForProject.clear();
+        tasksWaitingForOutputs.clear();
+        incompleteTasks = 0;
+        List<TaskInfo> tasksToQueue = new ArrayList<TaskInfo>();
+        int executionOrder = 0;
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            taskInfo.setExecutionOrder(executionOrder++);
+            int remainingDependencies = 0;
+            for (TaskInfo dependency : Sets.union(taskInfo.getMustSuccessors(), taskInfo.getDependencySuccessors())) {
+                dependents.put(dependency, taskInfo);
+                if (!dependency.isComplete()) {
+                    remainingDependencies++;
+                }
+            }
+            taskInfo.setRemainingDependencies(remainingDependencies);
+            if (!taskInfo.isComplete()) {
+                incompleteTasks++;
+            }
+            if (taskInfo.isReady() && remainingDependencies == 0) {
+                tasksToQueue.add(taskInfo);
+            }
+        }
+        if (executionTimeEstimator != null) {
+            predictedCriticalPath = calculateCriticalPathTimes();
+        }
+        readyTasks.addAll(tasksToQueue);
+    }
+
+    /**
+     * Calculates for each task the estimated time to execute it and the longest chain of tasks that must wait for it, so that the tasks heading
+     * the longest chains can be started first. The execution plan is in dependency order, so it can be walked backwards to see every task
+     * after all of the tasks that wait for it.
+     *
+     * @return the predicted critical path of the whole plan.
+     */
+    private CriticalPath calculateCriticalPathTimes() {
+        List<TaskInfo> tasks = new ArrayList<TaskInfo>(executionPlan.values());
+        Map<TaskInfo, TaskInfo> nextOnCriticalPath = new HashMap<TaskInfo, TaskInfo>();
+        TaskInfo criticalPathStart = null;
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            TaskInfo taskInfo = tasks.get(i);
+            TaskInfo next = null;
+            for (TaskInfo dependent : dependents.get(taskInfo)) {
+                if (next == null || dependent.getCriticalPathTime() > next.getCriticalPathTime()) {
+                    next = dependent;
+                }
+            }
+            taskInfo.setCriticalPathTime(estimatedExecutionTime(taskInfo) + (next == null ? 0 : next.getCriticalPathTime()));
+            nextOnCriticalPath.put(taskInfo, next);
+            if (criticalPathStart == null || taskInfo.getCriticalPathTime() >= criticalPathStart.getCriticalPathTime()) {
+                criticalPathStart = taskInfo;
+            }
+        }
+
+        CriticalPath criticalPath = new CriticalPath();
+        for (TaskInfo taskInfo = criticalPathStart; taskInfo != null; taskInfo = nextOnCriticalPath.get(taskInfo)) {
+            criticalPath.add(taskInfo.getTask().getPath(), estimatedExecutionTime(taskInfo));
+        }
+        return criticalPath;
+    }
+
+    private long estimatedExecutionTime(TaskInfo taskInfo) {
+        if (taskInfo.isComplete()) {
+            // Will not be executed, unless it is a finalizer that is later enforced
+            return 0;
+        }
+        Long estimate = estimatedExecutionTimes.get(taskInfo.getTask());
+        if (estimate == null) {
+            estimate = executionTimeEstimator.estimateExecutionTime(taskInfo.getTask());
+            estimatedExecutionTimes.put(taskInfo.getTask(), estimate);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the critical path predicted when the plan was determined. Empty unless an execution time estimator is used.
+     */
+    public CriticalPath getPredictedCriticalPath() {
+        return predictedCriticalPath;
+    }
+
+    /**
+     * Returns the chain of executed tasks that determined when the last task completed, with their actual execution times. Starting from the
+     * task that completed last, each step goes back to the dependency of the task that completed last.
+     */
+    public CriticalPath getActualCriticalPath() {
+        lock.lock();
+        try {
+            TaskInfo last = null;
+            for (TaskInfo taskInfo : executionPlan.values()) {
+                if (taskInfo.getExecutionEndTime() > 0 && (last == null || taskInfo.getExecutionEndTime() > last.getExecutionEndTime())) {
+                    last = taskInfo;
+                }
+            }
+            LinkedList<TaskInfo> tasks = new LinkedList<TaskInfo>();
+            while (last != null) {
+                tasks.addFirst(last);
+                TaskInfo previous = null;
+                for (TaskInfo dependency : Sets.union(last.getMustSuccessors(), last.getDependencySuccessors())) {
+                    if (dependency.getExecutionEndTime() > 0 && (previous == null || dependency.getExecutionEndTime() > previous.getExecutionEndTime())) {
+                        previous = dependency;
+                    }
+                }
+                last = previous;
+            }
+
+            CriticalPath criticalPath = new CriticalPath();
+            for (TaskInfo taskInfo : tasks) {
+                criticalPath.add(taskInfo.getTask().getPath(), taskInfo.getExecutionEndTime() - taskInfo.getExecutionStartTime());
+            }
+            return criticalPath;
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -435,13 +572,20 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             graph.clear();
             entryTasks.clear();
             executionPlan.clear();
-            executionQueue.clear();
+            readyTasks.clear();
+            dependents.clear();
+            tasksWaitingForProject.clear();
+            tasksWaitingForOutputs.clear();
+            incompleteTasks = 0;
+            estimatedExecutionTimes.clear();
+            predictedCriticalPath = new CriticalPath();
             failures.clear();
             projectsWithRunningTasks.clear();
             projectsWithRunningNonParallelizableTasks.clear();
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
-            runningTasks.clear();
+            runningTaskOutputs.clear();
+            runningTasksNotIndexed.clear();
         } finally {
             lock.unlock();
         }
@@ -459,6 +603,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         this.failureHandler = handler;
     }
 
+    /**
+     * Starts ready tasks in order of their estimated remaining critical path, rather than in plan order.
+     */
+    public void useExecutionTimeEstimator(TaskExecutionTimeEstimator executionTimeEstimator) {
+        this.executionTimeEstimator = executionTimeEstimator;
+    }
+
     public TaskInfo getTaskToExecute() {
         lock.lock();
         try {
@@ -468,24 +619,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                         tasksCancelled = true;
                     }
                 }
-                TaskInfo nextMatching = null;
-                boolean allTasksComplete = true;
-                Iterator<TaskInfo> iterator = executionQueue.iterator();
-                while (iterator.hasNext()) {
-                    TaskInfo taskInfo = iterator.next();
-                    allTasksComplete = allTasksComplete && taskInfo.isComplete();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
-                        nextMatching = taskInfo;
-                        iterator.remove();
-                        break;
-                    }
-                }
-                if (allTasksComplete) {
+                if (allTasksComplete()) {
                     return null;
                 }
+                TaskInfo nextMatching = nextReadyTask();
                 if (nextMatching == null) {
                     try {
-                        condition.await();
+                        taskAvailable.await();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
                     }
@@ -496,7 +636,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                         return nextMatching;
                     } else {
                         nextMatching.skipExecution();
-                        condition.signalAll();
+                        taskFinished(nextMatching);
                     }
                 }
             }
@@ -505,16 +645,34 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    @Nullable
+    private TaskInfo nextReadyTask() {
+        TaskInfo taskInfo;
+        while ((taskInfo = readyTasks.poll()) != null) {
+            // Queued tasks may since have been started, skipped or had a dependency enforced - drop them, they are queued again when they become ready
+            if (taskInfo.isReady() && taskInfo.getRemainingDependencies() == 0 && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
+                return taskInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the given task can run alongside the currently running tasks. A task that cannot run is parked until a running task that
+     * blocks it completes.
+     */
     private boolean canRunWithWithCurrentlyExecutedTasks(TaskInfo taskInfo) {
         TaskInternal task = taskInfo.getTask();
         String projectPath = task.getProject().getPath();
 
         if (isParallelizable(task)) {
             if (projectsWithRunningNonParallelizableTasks.contains(projectPath)) {
+                tasksWaitingForProject.put(projectPath, taskInfo);
                 return false;
             }
         } else {
             if (projectsWithRunningTasks.contains(projectPath)) {
+                tasksWaitingForProject.put(projectPath, taskInfo);
                 return false;
             }
         }
@@ -526,9 +684,21 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             LOGGER.info("Cannot execute task " + task.getPath() + " in parallel with task " + overlap.left.getPath() + " due to overlapping output: " + overlap.right);
         }
 
+        tasksWaitingForOutputs.add(taskInfo);
         return false;
     }
 
+    private void makeReady(TaskInfo taskInfo) {
+        readyTasks.add(taskInfo);
+        taskAvailable.signal();
+    }
+
+    private void makeReady(Collection<TaskInfo> taskInfos) {
+        for (TaskInfo taskInfo : taskInfos) {
+            makeReady(taskInfo);
+        }
+    }
+
     private Set<String> canonicalizedOutputPaths(TaskInternal task) {
         Set<String> paths = canonicalizedOutputCache.get(task);
         if (paths == null) {
@@ -552,41 +722,28 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     @Nullable
     private Pair<TaskInternal, String> firstTaskWithOverlappingOutput(TaskInternal candidateTask) {
-        if (runningTasks.isEmpty()) {
+        // Running tasks are only indexed once there is a candidate to check against them, so that builds without any parallelism do not
+        // have to resolve the outputs of every task
+        for (TaskInternal runningTask : runningTasksNotIndexed) {
+            for (String outputPath : canonicalizedOutputPaths(runningTask)) {
+                runningTaskOutputs.add(runningTask, outputPath);
+            }
+        }
+        runningTasksNotIndexed.clear();
+        if (runningTaskOutputs.isEmpty()) {
             return null;
         }
 
         for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
-            for (TaskInternal runningTask : runningTasks) {
-                for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
-                    if (pathsOverlap(candidateTaskOutputPath, runningTaskOutputPath)) {
-                        return Pair.of(runningTask, TextUtil.shorterOf(candidateTaskOutputPath, runningTaskOutputPath));
-                    }
-                }
+            Pair<TaskInternal, String> overlap = runningTaskOutputs.findOverlap(candidateTaskOutputPath);
+            if (overlap != null) {
+                return overlap;
             }
         }
 
         return null;
     }
 
-
-    private boolean pathsOverlap(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return true;
-        }
-
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
-        }
-        return longer.startsWith(shorter + StandardSystemProperty.FILE_SEPARATOR.value());
-    }
-
     boolean isParallelizable(TaskInternal task) {
         if (intraProjectParallelization) {
             Boolean safe = isParallelSafeCache.get(task);
@@ -620,7 +777,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.add(projectPath);
         }
         projectsWithRunningTasks.add(projectPath);
-        runningTasks.add(task);
+        runningTasksNotIndexed.add(task);
     }
 
     private void recordTaskCompleted(TaskInfo taskInfo) {
@@ -630,9 +787,41 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.remove(projectPath);
         }
         projectsWithRunningTasks.remove(projectPath);
+        if (!runningTasksNotIndexed.remove(task)) {
+            for (String outputPath : canonicalizedOutputPaths(task)) {
+                runningTaskOutputs.remove(task, outputPath);
+            }
+        }
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
-        runningTasks.remove(task);
+
+        // Give the tasks held back by this one another chance to start
+        makeReady(tasksWaitingForProject.removeAll(projectPath));
+        makeReady(tasksWaitingForOutputs);
+        tasksWaitingForOutputs.clear();
+    }
+
+    private void taskFinished(TaskInfo taskInfo) {
+        incompleteTasks--;
+        for (TaskInfo dependent : dependents.get(taskInfo)) {
+            if (dependent.dependencyCompleted() && dependent.isReady()) {
+                makeReady(dependent);
+            }
+        }
+        if (allTasksComplete()) {
+            taskAvailable.signalAll();
+            tasksComplete.signalAll();
+        }
+    }
+
+    private void taskEnforced(TaskInfo taskInfo) {
+        incompleteTasks++;
+        for (TaskInfo dependent : dependents.get(taskInfo)) {
+            dependent.dependencyEnforced();
+        }
+        if (taskInfo.getRemainingDependencies() == 0) {
+            makeReady(taskInfo);
+        }
     }
 
     public void taskComplete(TaskInfo taskInfo) {
@@ -645,7 +834,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
             taskInfo.finishExecution();
             recordTaskCompleted(taskInfo);
-            condition.signalAll();
+            taskFinished(taskInfo);
         } finally {
             lock.unlock();
         }
@@ -664,7 +853,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             enforceWithDependencies(dependencyNode);
         }
         if (node.isMustNotRun() || node.isRequired()) {
+            boolean wasComplete = node.isMustNotRun();
             node.enforceRun();
+            if (wasComplete && executionPlan.containsKey(node.getTask())) {
+                taskEnforced(node);
+            }
         }
     }
 
@@ -694,6 +887,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
+                taskFinished(taskInfo);
                 aborted = true;
             }
         }
@@ -705,7 +899,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         try {
             while (!allTasksComplete()) {
                 try {
-                    condition.await();
+                    tasksComplete.await();
                 } catch (InterruptedException e) {
                     throw new RuntimeException(e);
                 }
@@ -732,12 +926,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean allTasksComplete() {
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (!taskInfo.isComplete()) {
-                return false;
-            }
-        }
-        return true;
+        return incompleteTasks == 0;
     }
 
     private static class GraphEdge {
@@ -51,6 +51,7 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final ListenerBroadcast<TaskExecutionListener> taskListeners;
     private final ListenerBroadcast<InternalTaskExecutionListener> internalTaskListeners;
     private final DefaultTaskExecutionPlan taskExecutionPlan;
+    private CriticalPathListener criticalPathListener;
     private TaskGraphState taskGraphState = TaskGraphState.EMPTY;
 
     public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, BuildCancellationToken cancellationToken) {
@@ -61,6 +62,15 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         taskExecutionPlan = new DefaultTaskExecutionPlan(cancellationToken);
     }
 
+    /**
+     * Starts ready tasks in order of their estimated remaining critical path, and reports the predicted and actual critical path to the given
+     * listener once the graph has been executed.
+     */
+    public void useCriticalPathScheduling(TaskExecutionTimeEstimator executionTimeEstimator, CriticalPathListener criticalPathListener) {
+        taskExecutionPlan.useExecutionTimeEstimator(executionTimeEstimator);
+        this.criticalPathListener = criticalPathListener;
+    }
+
     public void useFailureHandler(TaskFailureHandler handler) {
         taskExecutionPlan.useFailureHandler(handler);
     }
@@ -93,6 +103,9 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         try {
             taskPlanExecutor.process(taskExecutionPlan, new InternalTaskExecutionListenerAdapter());
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
+            if (criticalPathListener != null) {
+                criticalPathListener.criticalPathCompleted(taskExecutionPlan.getPredictedCriticalPath(), taskExecutionPlan.getActualCriticalPath());
+            }
         } finally {
             taskExecutionPlan.clear();
         }
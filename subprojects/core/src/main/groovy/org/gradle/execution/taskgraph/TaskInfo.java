@@ -36,6 +36,11 @@ public class TaskInfo implements Comparable<TaskInfo> {
     private final TreeSet<TaskInfo> mustSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> shouldSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> finalizers = new TreeSet<TaskInfo>();
+    private int executionOrder;
+    private int remainingDependencies;
+    private long criticalPathTime;
+    private long executionStartTime;
+    private long executionEndTime;
 
     public TaskInfo(TaskInternal task) {
         this.task = task;
@@ -87,11 +92,13 @@ public class TaskInfo implements Comparable<TaskInfo> {
     public void startExecution() {
         assert isReady();
         state = TaskExecutionState.EXECUTING;
+        executionStartTime = System.currentTimeMillis();
     }
 
     public void finishExecution() {
         assert state == TaskExecutionState.EXECUTING;
         state = TaskExecutionState.EXECUTED;
+        executionEndTime = System.currentTimeMillis();
     }
 
     public void skipExecution() {
@@ -175,6 +182,57 @@ public class TaskInfo implements Comparable<TaskInfo> {
         dependenciesProcessed = true;
     }
 
+    public int getExecutionOrder() {
+        return executionOrder;
+    }
+
+    public void setExecutionOrder(int executionOrder) {
+        this.executionOrder = executionOrder;
+    }
+
+    public int getRemainingDependencies() {
+        return remainingDependencies;
+    }
+
+    public void setRemainingDependencies(int remainingDependencies) {
+        this.remainingDependencies = remainingDependencies;
+    }
+
+    /**
+     * Returns the estimated time in milliseconds to execute this task and the longest chain of tasks that must wait for it.
+     */
+    public long getCriticalPathTime() {
+        return criticalPathTime;
+    }
+
+    public void setCriticalPathTime(long criticalPathTime) {
+        this.criticalPathTime = criticalPathTime;
+    }
+
+    public long getExecutionStartTime() {
+        return executionStartTime;
+    }
+
+    public long getExecutionEndTime() {
+        return executionEndTime;
+    }
+
+    /**
+     * Records that one of the dependencies of this task has completed.
+     *
+     * @return true if no incomplete dependencies remain.
+     */
+    public boolean dependencyCompleted() {
+        return --remainingDependencies == 0;
+    }
+
+    /**
+     * Records that one of the dependencies of this task, previously considered complete, is now required to run.
+     */
+    public void dependencyEnforced() {
+        remainingDependencies++;
+    }
+
     public void addDependencySuccessor(TaskInfo toNode) {
         dependencySuccessors.add(toNode);
         toNode.dependencyPredecessors.add(this);
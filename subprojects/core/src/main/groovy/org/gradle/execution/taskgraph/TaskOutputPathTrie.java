@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.StandardSystemProperty;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.internal.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the output paths of running tasks. Two paths overlap when they are the same, or when one is an ancestor of the other.
+ * Looking up the task that owns an overlapping path visits one node per segment of the path, regardless of how many tasks and outputs are
+ * in the index.
+ */
+class TaskOutputPathTrie {
+    private final Splitter splitter;
+    private final Node root = new Node(null, null);
+
+    TaskOutputPathTrie() {
+        this(StandardSystemProperty.FILE_SEPARATOR.value());
+    }
+
+    TaskOutputPathTrie(String separator) {
+        this.splitter = Splitter.on(separator).omitEmptyStrings();
+    }
+
+    void add(TaskInternal task, String path) {
+        Node node = root;
+        for (String segment : splitter.split(path)) {
+            node.descendantOutputs++;
+            node = node.getOrCreateChild(segment);
+        }
+        node.path = path;
+        node.tasks.add(task);
+    }
+
+    void remove(TaskInternal task, String path) {
+        Node node = root;
+        for (String segment : splitter.split(path)) {
+            node = node.children == null ? null : node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+        }
+        if (!node.tasks.remove(task)) {
+            return;
+        }
+        for (Node child = node, parent = node.parent; parent != null; child = parent, parent = parent.parent) {
+            parent.descendantOutputs--;
+            if (child.tasks.isEmpty() && child.descendantOutputs == 0) {
+                parent.children.remove(child.segment);
+            }
+        }
+    }
+
+    /**
+     * Returns a task with an output that overlaps the given path, along with the shorter of the two overlapping paths, or null if there is
+     * no such task.
+     */
+    Pair<TaskInternal, String> findOverlap(String path) {
+        Node node = root;
+        for (String segment : splitter.split(path)) {
+            if (!node.tasks.isEmpty()) {
+                // An ancestor of the path
+                return Pair.of(node.tasks.get(0), node.path);
+            }
+            node = node.children == null ? null : node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        if (!node.tasks.isEmpty()) {
+            return Pair.of(node.tasks.get(0), path);
+        }
+        if (node.descendantOutputs > 0) {
+            // A descendant of the path
+            while (node.tasks.isEmpty()) {
+                node = node.children.values().iterator().next();
+            }
+            return Pair.of(node.tasks.get(0), path);
+        }
+        return null;
+    }
+
+    boolean isEmpty() {
+        return root.tasks.isEmpty() && root.descendantOutputs == 0;
+    }
+
+    void clear() {
+        root.tasks.clear();
+        root.children = null;
+        root.descendantOutputs = 0;
+    }
+
+    private static class Node {
+        private final Node parent;
+        private final String segment;
+        private final List<TaskInternal> tasks = new ArrayList<TaskInternal>(1);
+        private Map<String, Node> children;
+        private int descendantOutputs;
+        private String path;
+
+        Node(Node parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        Node getOrCreateChild(String segment) {
+            if (children == null) {
+                children = new HashMap<String, Node>();
+            }
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node(this, segment);
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
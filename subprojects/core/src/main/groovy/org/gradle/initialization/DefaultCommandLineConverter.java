@@ -49,6 +49,7 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
     private static final String MAX_WORKERS = "max-workers";
 
     private static final String CONFIGURE_ON_DEMAND = "configure-on-demand";
+    private static final String CRITICAL_PATH = "critical-path";
 
     private final CommandLineConverter<LoggingConfiguration> loggingConfigurationCommandLineConverter = new LoggingCommandLineConverter();
     private final SystemPropertiesCommandLineConverter systemPropertiesCommandLineConverter = new SystemPropertiesCommandLineConverter();
@@ -84,6 +85,7 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
                 deprecated("Please use --parallel, optionally in conjunction with --max-workers.").incubating();
         parser.option(MAX_WORKERS).hasArgument().hasDescription("Configure the number of concurrent workers Gradle is allowed to use.").incubating();
         parser.option(CONFIGURE_ON_DEMAND).hasDescription("Only relevant projects are configured in this build run. This means faster build for large multi-project builds.").incubating();
+        parser.option(CRITICAL_PATH).hasDescription("Starts ready tasks in order of their estimated critical path, using the task execution times of previous builds.").incubating();
         parser.allowOneOf(MAX_WORKERS, PARALLEL_THREADS);
     }
 
@@ -193,6 +195,10 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
             startParameter.setConfigureOnDemand(true);
         }
 
+        if (options.hasOption(CRITICAL_PATH)) {
+            startParameter.setCriticalPathScheduling(true);
+        }
+
         return startParameter;
     }
 
@@ -26,12 +26,18 @@ import org.gradle.api.internal.tasks.DefaultTaskFileSystemInputsAccumulator;
 import org.gradle.api.internal.tasks.NoopTaskFileSystemInputsAccumulator;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskFileSystemInputsAccumulator;
+import org.gradle.api.internal.tasks.cache.LocalDirectoryTaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheListener;
+import org.gradle.api.internal.tasks.cache.ZipTaskOutputPacker;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheDecorator;
+import org.gradle.execution.taskgraph.TaskExecutionTimeEstimator;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
+import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.environment.GradleBuildEnvironment;
 import org.gradle.internal.event.ListenerManager;
@@ -42,7 +48,15 @@ import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.SerializerRegistry;
 
+import java.io.File;
+
 public class TaskExecutionServices {
+    private static final String TASK_OUTPUT_CACHE_PROPERTY = "org.gradle.cache.tasks";
+    private static final String TASK_OUTPUT_CACHE_MAX_SIZE_PROPERTY = "org.gradle.cache.tasks.maxsize";
+    private static final long DEFAULT_TASK_OUTPUT_CACHE_MAX_SIZE_MB = 5 * 1024;
+    private static final String MAPPED_FILE_HASH_CACHE_PROPERTY = "org.gradle.internal.filehashes.mapped";
+    private static final String DIRECTORY_TREE_SNAPSHOTS_PROPERTY = "org.gradle.internal.directorysnapshots";
+    private static final String HASH_ALGORITHM_PROPERTY = "org.gradle.internal.hash.algorithm";
 
     TaskFileSystemInputsAccumulator createTaskFileSystemInputsAccumulator(Gradle gradle) {
         return gradle.getStartParameter().isContinuousModeEnabled()
@@ -50,18 +64,37 @@ public class TaskExecutionServices {
             : new NoopTaskFileSystemInputsAccumulator();
     }
 
-    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, TaskFileSystemInputsAccumulator taskFileSystemInputsAccumulator) {
+    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, TaskFileSystemInputsAccumulator taskFileSystemInputsAccumulator,
+                                    StartParameter startParameter, TaskOutputCache taskOutputCache) {
+        TaskExecuter executer = new PostExecutionAnalysisTaskExecuter(
+            new ExecuteActionsTaskExecuter(
+                listenerManager.getBroadcaster(TaskActionListener.class)
+            ));
+        if (isTaskOutputCacheEnabled(startParameter)) {
+            executer = new SkipCachedTaskExecuter(taskOutputCache, new ZipTaskOutputPacker(), listenerManager.getBroadcaster(TaskOutputCacheListener.class), executer);
+        }
         return new ExecuteAtMostOnceTaskExecuter(
             new SkipOnlyIfTaskExecuter(
                 new SkipTaskWithNoActionsExecuter(
                     new SkipEmptySourceFilesTaskExecuter(
                         new FileSystemInputsAccumulatingTaskExecuter(taskFileSystemInputsAccumulator,
                             new ValidatingTaskExecuter(
-                                new SkipUpToDateTaskExecuter(repository,
-                                    new PostExecutionAnalysisTaskExecuter(
-                                        new ExecuteActionsTaskExecuter(
-                                            listenerManager.getBroadcaster(TaskActionListener.class)
-                                        )))))))));
+                                new SkipUpToDateTaskExecuter(repository, executer)))))));
+    }
+
+    TaskOutputCache createTaskOutputCache(StartParameter startParameter, CacheRepository cacheRepository) {
+        String maxSize = getSystemProperty(startParameter, TASK_OUTPUT_CACHE_MAX_SIZE_PROPERTY);
+        long maxSizeMb = maxSize == null ? DEFAULT_TASK_OUTPUT_CACHE_MAX_SIZE_MB : Long.parseLong(maxSize);
+        return new LocalDirectoryTaskOutputCache(cacheRepository, maxSizeMb * 1024 * 1024);
+    }
+
+    private static boolean isTaskOutputCacheEnabled(StartParameter startParameter) {
+        return Boolean.parseBoolean(getSystemProperty(startParameter, TASK_OUTPUT_CACHE_PROPERTY));
+    }
+
+    private static String getSystemProperty(StartParameter startParameter, String name) {
+        String value = startParameter.getSystemPropertiesArgs().get(name);
+        return value != null ? value : System.getProperty(name);
     }
 
     TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment) {
@@ -74,23 +107,52 @@ public class TaskExecutionServices {
         return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
     }
 
-    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess);
+    DefaultHasher createHasher(StartParameter startParameter) {
+        String algorithm = getSystemProperty(startParameter, HASH_ALGORITHM_PROPERTY);
+        return algorithm != null ? new DefaultHasher(algorithm) : new DefaultHasher();
     }
 
-    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess);
+    MappedFileHashCache createMappedFileHashCache(TaskArtifactStateCacheAccess cacheAccess, DefaultHasher hasher) {
+        return new MappedFileHashCache(new File(cacheAccess.getBaseDir(), CachingFileSnapshotter.getCacheName(hasher.getAlgorithm()) + ".mapped"), hasher.getDigestLength());
+    }
 
-        FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess);
+    CachingFileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, DefaultHasher hasher, MappedFileHashCache mappedFileHashCache) {
+        if (Boolean.parseBoolean(getSystemProperty(startParameter, MAPPED_FILE_HASH_CACHE_PROPERTY))) {
+            return new CachingFileSnapshotter(hasher, mappedFileHashCache);
+        }
+        return new CachingFileSnapshotter(hasher, cacheAccess, CachingFileSnapshotter.getCacheName(hasher.getAlgorithm()));
+    }
+
+    FileCollectionSnapshotter createFileCollectionSnapshotter(CachingFileSnapshotter fileSnapshotter, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, ExecutorFactory executorFactory) {
+        DirectoryTreeSnapshotRepository directoryTreeSnapshots = null;
+        if (Boolean.parseBoolean(getSystemProperty(startParameter, DIRECTORY_TREE_SNAPSHOTS_PROPERTY))) {
+            directoryTreeSnapshots = new CacheBackedDirectoryTreeSnapshotRepository(cacheAccess);
+        }
+        int maxThreads = startParameter.getMaxWorkerCount();
+        if (maxThreads > 1) {
+            return new ParallelFileCollectionSnapshotter(fileSnapshotter, cacheAccess, directoryTreeSnapshots, executorFactory, maxThreads);
+        }
+        return new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, directoryTreeSnapshots);
+    }
 
+    TaskHistoryRepository createTaskHistoryRepository(TaskArtifactStateCacheAccess cacheAccess, FileCollectionSnapshotter fileCollectionSnapshotter) {
         SerializerRegistry<FileCollectionSnapshot> serializerRegistry = new DefaultSerializerRegistry<FileCollectionSnapshot>();
         fileCollectionSnapshotter.registerSerializers(serializerRegistry);
-        outputFilesSnapshotter.registerSerializers(serializerRegistry);
+        new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess).registerSerializers(serializerRegistry);
 
-        TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess,
+        return new CacheBackedTaskHistoryRepository(cacheAccess,
             new CacheBackedFileSnapshotRepository(cacheAccess,
                 serializerRegistry.build(),
                 new RandomLongIdGenerator()));
+    }
+
+    TaskExecutionTimeEstimator createTaskExecutionTimeEstimator(TaskHistoryRepository taskHistoryRepository) {
+        return new HistoricalTaskExecutionTimeEstimator(taskHistoryRepository);
+    }
+
+    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileCollectionSnapshotter fileCollectionSnapshotter,
+                                                                  TaskHistoryRepository taskHistoryRepository, CachingFileSnapshotter fileSnapshotter, ClassLoaderRegistry classLoaderRegistry) {
+        FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess);
 
         return new ShortCircuitTaskArtifactStateRepository(
             startParameter,
@@ -99,7 +161,8 @@ public class TaskExecutionServices {
                 taskHistoryRepository,
                 instantiator,
                 outputFilesSnapshotter,
-                fileCollectionSnapshotter
+                fileCollectionSnapshotter,
+                new TaskCacheKeyCalculator(new ClassLoaderHasher(classLoaderRegistry, fileSnapshotter, cacheAccess))
             )
         );
     }
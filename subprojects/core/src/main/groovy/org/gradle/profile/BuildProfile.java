@@ -16,6 +16,7 @@
 package org.gradle.profile;
 
 import org.gradle.StartParameter;
+import org.gradle.execution.taskgraph.CriticalPath;
 import org.gradle.util.CollectionUtils;
 
 import java.text.DateFormat;
@@ -54,6 +55,10 @@ public class BuildProfile {
     private long buildFinished;
     private StartParameter startParameter;
     private boolean successful;
+    private int taskOutputCacheHits;
+    private int taskOutputCacheMisses;
+    private CriticalPath predictedCriticalPath;
+    private CriticalPath actualCriticalPath;
 
     public BuildProfile(StartParameter startParameter) {
         this.startParameter = startParameter;
@@ -246,6 +251,47 @@ public class BuildProfile {
         return String.format("Started on: %s", DATE_FORMAT.format(buildStarted));
     }
 
+    public void taskOutputCacheHit() {
+        taskOutputCacheHits++;
+    }
+
+    public void taskOutputCacheMiss() {
+        taskOutputCacheMisses++;
+    }
+
+    /**
+     * Get the number of tasks whose outputs were restored from the task output cache.
+     */
+    public int getTaskOutputCacheHits() {
+        return taskOutputCacheHits;
+    }
+
+    /**
+     * Get the number of cacheable tasks whose outputs were not found in the task output cache.
+     */
+    public int getTaskOutputCacheMisses() {
+        return taskOutputCacheMisses;
+    }
+
+    public void setCriticalPaths(CriticalPath predicted, CriticalPath actual) {
+        this.predictedCriticalPath = predicted;
+        this.actualCriticalPath = actual;
+    }
+
+    /**
+     * Get the critical path predicted from previous builds, or null when critical path scheduling was not used.
+     */
+    public CriticalPath getPredictedCriticalPath() {
+        return predictedCriticalPath;
+    }
+
+    /**
+     * Get the chain of tasks that determined when the last task completed, or null when critical path scheduling was not used.
+     */
+    public CriticalPath getActualCriticalPath() {
+        return actualCriticalPath;
+    }
+
     public StartParameter getStartParameter() {
         return startParameter;
     }
@@ -25,8 +25,11 @@ import org.gradle.api.artifacts.DependencyResolutionListener;
 import org.gradle.api.artifacts.ResolvableDependencies;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheListener;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.api.tasks.TaskState;
+import org.gradle.execution.taskgraph.CriticalPath;
+import org.gradle.execution.taskgraph.CriticalPathListener;
 import org.gradle.initialization.BuildCompletionListener;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.internal.TimeProvider;
@@ -34,7 +37,7 @@ import org.gradle.internal.TimeProvider;
 /**
  * Adapts various events to build a {@link BuildProfile} model, and then notifies a {@link ReportGeneratingProfileListener} when the model is ready.
  */
-public class ProfileEventAdapter implements BuildListener, ProjectEvaluationListener, TaskExecutionListener, DependencyResolutionListener, BuildCompletionListener {
+public class ProfileEventAdapter implements BuildListener, ProjectEvaluationListener, TaskExecutionListener, DependencyResolutionListener, BuildCompletionListener, TaskOutputCacheListener, CriticalPathListener {
     private final BuildRequestMetaData buildMetaData;
     private final TimeProvider timeProvider;
     private final ProfileListener listener;
@@ -118,5 +121,18 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
         long now = timeProvider.getCurrentTime();
         buildProfile.getDependencySetProfile(dependencies.getPath()).setFinish(now);
     }
-}
 
+    // TaskOutputCacheListener
+    public void cacheHit(Task task) {
+        buildProfile.taskOutputCacheHit();
+    }
+
+    public void cacheMiss(Task task) {
+        buildProfile.taskOutputCacheMiss();
+    }
+
+    // CriticalPathListener
+    public void criticalPathCompleted(CriticalPath predicted, CriticalPath actual) {
+        buildProfile.setCriticalPaths(predicted, actual);
+    }
+}
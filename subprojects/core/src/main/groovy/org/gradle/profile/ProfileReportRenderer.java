@@ -24,6 +24,8 @@ import org.gradle.reporting.TabbedPageRenderer;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Iterator;
+import java.util.Map;
 
 public class ProfileReportRenderer {
     private static final DurationFormatter DURATION_FORMAT = new DurationFormatter();
@@ -107,6 +109,52 @@ public class ProfileReportRenderer {
                                     htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(model.getElapsedTotalExecutionTime())).endElement();
                                 htmlWriter.endElement();
                             htmlWriter.endElement();
+                            if (model.getTaskOutputCacheHits() + model.getTaskOutputCacheMisses() > 0) {
+                                htmlWriter.startElement("h2").characters("Task Output Cache").endElement();
+                                htmlWriter.startElement("table");
+                                    htmlWriter.startElement("thead");
+                                        htmlWriter.startElement("tr");
+                                            htmlWriter.startElement("th").characters("Description").endElement();
+                                            htmlWriter.startElement("th").attribute("class", "numeric").characters("Tasks").endElement();
+                                        htmlWriter.endElement();
+                                    htmlWriter.endElement();
+                                    htmlWriter.startElement("tr");
+                                        htmlWriter.startElement("td").characters("Cache Hits").endElement();
+                                        htmlWriter.startElement("td").attribute("class", "numeric").characters(String.valueOf(model.getTaskOutputCacheHits())).endElement();
+                                    htmlWriter.endElement();
+                                    htmlWriter.startElement("tr");
+                                        htmlWriter.startElement("td").characters("Cache Misses").endElement();
+                                        htmlWriter.startElement("td").attribute("class", "numeric").characters(String.valueOf(model.getTaskOutputCacheMisses())).endElement();
+                                    htmlWriter.endElement();
+                                htmlWriter.endElement();
+                            }
+                            if (model.getPredictedCriticalPath() != null) {
+                                htmlWriter.startElement("h2").characters("Critical Path").endElement();
+                                htmlWriter.startElement("table");
+                                    htmlWriter.startElement("thead");
+                                        htmlWriter.startElement("tr");
+                                            htmlWriter.startElement("th").characters("Task").endElement();
+                                            htmlWriter.startElement("th").attribute("class", "numeric").characters("Predicted").endElement();
+                                            htmlWriter.startElement("th").characters("Task").endElement();
+                                            htmlWriter.startElement("th").attribute("class", "numeric").characters("Actual").endElement();
+                                        htmlWriter.endElement();
+                                    htmlWriter.endElement();
+                                    htmlWriter.startElement("tr");
+                                        htmlWriter.startElement("td").characters("Total").endElement();
+                                        htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(model.getPredictedCriticalPath().getExecutionTime())).endElement();
+                                        htmlWriter.startElement("td").characters("Total").endElement();
+                                        htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(model.getActualCriticalPath().getExecutionTime())).endElement();
+                                    htmlWriter.endElement();
+                                    Iterator<Map.Entry<String, Long>> predicted = model.getPredictedCriticalPath().getTasks().entrySet().iterator();
+                                    Iterator<Map.Entry<String, Long>> actual = model.getActualCriticalPath().getTasks().entrySet().iterator();
+                                    while (predicted.hasNext() || actual.hasNext()) {
+                                        htmlWriter.startElement("tr");
+                                            renderCriticalPathEntry(predicted, htmlWriter);
+                                            renderCriticalPathEntry(actual, htmlWriter);
+                                        htmlWriter.endElement();
+                                    }
+                                htmlWriter.endElement();
+                            }
                         htmlWriter.endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab1");
                             htmlWriter.startElement("h2").characters("Configuration").endElement();
@@ -181,5 +229,16 @@ public class ProfileReportRenderer {
                 }
             };
         }
+
+        private static void renderCriticalPathEntry(Iterator<Map.Entry<String, Long>> entries, SimpleHtmlWriter htmlWriter) throws IOException {
+            if (entries.hasNext()) {
+                Map.Entry<String, Long> entry = entries.next();
+                htmlWriter.startElement("td").characters(entry.getKey()).endElement();
+                htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(entry.getValue())).endElement();
+            } else {
+                htmlWriter.startElement("td").endElement();
+                htmlWriter.startElement("td").endElement();
+            }
+        }
     }
 }
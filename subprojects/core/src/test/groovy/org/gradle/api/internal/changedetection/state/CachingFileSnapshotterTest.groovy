@@ -103,4 +103,10 @@ class CachingFileSnapshotterTest extends Specification {
         1 * cache.get(file) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
         0 * _._
     }
+
+    def keepsHashesOfEachAlgorithmInSeparateCache() {
+        expect:
+        CachingFileSnapshotter.getCacheName("MD5") == "fileHashes"
+        CachingFileSnapshotter.getCacheName("MURMUR3-128") == "fileHashes-murmur3-128"
+    }
 }
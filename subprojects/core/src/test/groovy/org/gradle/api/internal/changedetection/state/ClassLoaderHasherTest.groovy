@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.initialization.ClassLoaderRegistry
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ClassLoaderHasherTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def gradleClassLoader = new URLClassLoader(new URL[0], (ClassLoader) null)
+    def classLoaderRegistry = Stub(ClassLoaderRegistry) {
+        getGradleCoreApiClassLoader() >> gradleClassLoader
+        getGradleApiClassLoader() >> gradleClassLoader
+        getRuntimeClassLoader() >> gradleClassLoader
+        getPluginsClassLoader() >> gradleClassLoader
+    }
+    def fileSnapshotter = Stub(FileSnapshotter) {
+        snapshot(_) >> { File file ->
+            Stub(FileSnapshot) {
+                getHash() >> file.bytes
+            }
+        }
+    }
+    def cacheAccess = Stub(TaskArtifactStateCacheAccess) {
+        useCache(_, _ as Factory) >> { String operation, Factory action -> action.create() }
+    }
+    def hasher = new ClassLoaderHasher(classLoaderRegistry, fileSnapshotter, cacheAccess)
+
+    def "hash of class loader reflects the contents of its class path"() {
+        def dir1 = tmpDir.createDir("dir1")
+        dir1.file("org/test/Thing.class").text = "one"
+        def dir2 = tmpDir.createDir("dir2")
+        dir2.file("org/test/Thing.class").text = "one"
+        def dir3 = tmpDir.createDir("dir3")
+        dir3.file("org/test/Thing.class").text = "two"
+
+        expect:
+        def hash = hasher.getHash(loader(dir1))
+        hash != null
+        hasher.getHash(loader(dir2)) == hash
+        hasher.getHash(loader(dir3)) != hash
+    }
+
+    def "hash of class loader includes its parents"() {
+        def dir1 = tmpDir.createDir("dir1")
+        dir1.file("org/test/Thing.class").text = "one"
+        def dir2 = tmpDir.createDir("dir2")
+        dir2.file("org/test/Other.class").text = "two"
+
+        expect:
+        hasher.getHash(loader(dir2, loader(dir1))) != hasher.getHash(loader(dir2))
+    }
+
+    def "Gradle class loaders are not hashed"() {
+        def dir = tmpDir.createDir("dir")
+        dir.file("org/test/Thing.class").text = "one"
+
+        expect:
+        hasher.getHash(gradleClassLoader) != null
+        hasher.getHash(loader(dir, gradleClassLoader)) == hasher.getHash(loader(dir))
+    }
+
+    def "class loader that does not expose its class path has no hash"() {
+        def classLoader = new ClassLoader(gradleClassLoader) {}
+
+        expect:
+        hasher.getHash(classLoader) == null
+        hasher.getHash(loader(tmpDir.createDir("dir"), classLoader)) == null
+    }
+
+    def loader(File dir, ClassLoader parent = gradleClassLoader) {
+        return new URLClassLoader([dir.toURI().toURL()] as URL[], parent)
+    }
+}
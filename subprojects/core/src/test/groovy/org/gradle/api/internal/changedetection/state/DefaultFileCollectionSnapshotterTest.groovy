@@ -17,13 +17,22 @@ package org.gradle.api.internal.changedetection.state
 
 import org.gradle.api.file.FileCollection
 import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.tasks.cache.TaskCacheKey
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder
 import org.gradle.internal.hash.HashUtil
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.ChangeListener
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 public class DefaultFileCollectionSnapshotterTest extends Specification {
     def fileSnapshotter = Stub(FileSnapshotter)
     def cacheAccess = Stub(TaskArtifactStateCacheAccess)
@@ -56,6 +65,26 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
         then:
         snapshot.files.files as List == [file]
     }
+
+    def usesFileAttributesCapturedWhileVisiting() {
+        given:
+        TestFile file = tmpDir.file('file1')
+        FileTree collection = Mock(FileTree.class)
+        _ * collection.asFileTree >> collection
+        _ * collection.visit(_ as FileVisitor) >> { FileVisitor visitor ->
+            visitor.visitFile(new DefaultFileVisitDetails(file, new RelativePath(true, file.name), new AtomicBoolean(), null, null, false, 34, 12))
+            return collection
+        }
+        fileSnapshotter.snapshot(file, 12, 34) >> Stub(FileSnapshot) {
+            getHash() >> ([1, 2, 3] as byte[])
+        }
+
+        when:
+        def snapshot = snapshotter.snapshot(collection)
+
+        then:
+        snapshot.files.files as List == [file]
+    }
     
     def notifiesListenerWhenFileAdded() {
         given:
@@ -342,10 +371,128 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
         0 * _
     }
 
+    def detectsChangesSinceSnapshotReadFromHistory() {
+        given:
+        TestFile unchanged = tmpDir.createFile('dir/unchanged')
+        TestFile changed = tmpDir.createFile('dir/changed')
+        TestFile removed = tmpDir.createFile('dir/removed')
+        TestFile added = tmpDir.file('dir/added')
+
+        when:
+        FileCollectionSnapshot snapshot = readFromHistory(snapshotter.snapshot(files(unchanged, changed, removed)))
+        changed.text = 'new content'
+        removed.delete()
+        added.createFile()
+        def iterator = snapshotter.snapshot(files(unchanged, changed, added)).iterateChangesSince(snapshot)
+        while (iterator.next(listener)) {}
+
+        then:
+        1 * listener.changed(changed.path)
+        1 * listener.removed(removed.path)
+        1 * listener.added(added.path)
+        0 * listener._
+    }
+
+    def fileHasNotChangedSinceSnapshotReadFromHistory() {
+        given:
+        TestFile file = tmpDir.createFile('file')
+        TestFile dir = tmpDir.createDir('dir')
+        TestFile missing = tmpDir.file('missing')
+
+        when:
+        FileCollectionSnapshot snapshot = readFromHistory(snapshotter.snapshot(files(file, dir, missing)))
+        def changes = snapshotter.snapshot(files(file, dir, missing)).iterateChangesSince(snapshot).next(listener)
+
+        then:
+        !changes
+        0 * listener._
+    }
+
+    def snapshotReadFromHistoryHasSameCacheKey() {
+        given:
+        TestFile file1 = tmpDir.createFile('dir/file1')
+        TestFile file2 = tmpDir.createFile('dir/file2')
+        def snapshot = snapshotter.snapshot(files(file2, file1))
+
+        expect:
+        cacheKey(readFromHistory(snapshot)) == cacheKey(snapshot)
+    }
+
+    def reportsChangesInOrderOfPath() {
+        given:
+        TestFile file1 = tmpDir.createFile('dir/a')
+        TestFile file2 = tmpDir.createFile('dir/b')
+        TestFile file3 = tmpDir.createFile('dir/c')
+        TestFile file4 = tmpDir.createFile('dir/d')
+        def changes = []
+        def collector = new ChangeListener<String>() {
+            void added(String element) { changes << "added $element".toString() }
+            void removed(String element) { changes << "removed $element".toString() }
+            void changed(String element) { changes << "changed $element".toString() }
+        }
+
+        when:
+        FileCollectionSnapshot snapshot = snapshotter.snapshot(files(file4, file2, file3))
+        file3.text = 'new content'
+        def iterator = snapshotter.snapshot(files(file3, file1, file4)).iterateChangesSince(readFromHistory(snapshot))
+        while (iterator.next(collector)) {}
+
+        then:
+        changes == ["added $file1.path", "removed $file2.path", "changed $file3.path"]*.toString()
+    }
+
+    def detectsWhetherSnapshotHasChanged() {
+        given:
+        TestFile file1 = tmpDir.createFile('file1')
+        TestFile file2 = tmpDir.createFile('file2')
+        FileCollectionSnapshot snapshot = snapshotter.snapshot(files(file1, file2))
+
+        expect:
+        !snapshotter.snapshot(files(file1, file2)).hasChangesSince(snapshot)
+        !snapshotter.snapshot(files(file2, file1)).hasChangesSince(readFromHistory(snapshot))
+        snapshotter.snapshot(files(file1)).hasChangesSince(snapshot)
+        snapshotter.emptySnapshot().hasChangesSince(snapshot)
+        snapshot.hasChangesSince(snapshotter.emptySnapshot())
+
+        when:
+        file2.text = 'new content'
+
+        then:
+        snapshotter.snapshot(files(file1, file2)).hasChangesSince(snapshot)
+    }
+
+    def applyingDiffWithoutChangesReturnsTargetSnapshot() {
+        given:
+        TestFile file = tmpDir.createFile('file')
+        FileCollectionSnapshot original = readFromHistory(snapshotter.snapshot(files(file)))
+        FileCollectionSnapshot target = readFromHistory(snapshotter.snapshot(files(file)))
+
+        expect:
+        snapshotter.snapshot(files(file)).changesSince(original).applyTo(target).is(target)
+    }
+
+    private FileCollectionSnapshot readFromHistory(FileCollectionSnapshot snapshot) {
+        def serializer = new DefaultFileSnapshotterSerializer()
+        def bytes = new ByteArrayOutputStream()
+        def encoder = new KryoBackedEncoder(bytes)
+        serializer.write(encoder, snapshot)
+        encoder.flush()
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())))
+    }
+
+    private static TaskCacheKey cacheKey(FileCollectionSnapshot snapshot) {
+        def builder = new TaskCacheKeyBuilder()
+        snapshot.appendToCacheKey(builder)
+        return builder.build()
+    }
+
     private FileCollection files(File... files) {
         FileTree collection = Mock(FileTree.class)
         _ * collection.asFileTree >> collection
-        _ * collection.getFiles() >> files
+        _ * collection.visit(_ as FileVisitor) >> { FileVisitor visitor ->
+            files.each { visitor.visitFile(new DefaultFileVisitDetails(it, new RelativePath(true, it.name), new AtomicBoolean(), null, null)) }
+            return collection
+        }
         return collection
     }
     
@@ -30,9 +30,39 @@ class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
                 "3": new DefaultFileCollectionSnapshotter.FileHashSnapshot("foo".bytes)]), serializer)
 
         then:
-        out.snapshots.size() == 3
-        out.snapshots['1'] instanceof DefaultFileCollectionSnapshotter.DirSnapshot
-        out.snapshots['2'] instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot
-        ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['3']).hash == "foo".bytes
+        def snapshots = out.getSnapshots()
+        snapshots.size() == 3
+        snapshots['1'] instanceof DefaultFileCollectionSnapshotter.DirSnapshot
+        snapshots['2'] instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot
+        ((DefaultFileCollectionSnapshotter.FileHashSnapshot) snapshots['3']).hash == "foo".bytes
+    }
+
+    def "reads and writes paths that share a prefix"() {
+        def paths = ["/root/dir/a", "/root/dir/sub/b", "/root/dir/sub/c", "/root/dir", "/root/dir/a/b", "/other", "/root/\u00e9t\u00e9"]
+        def snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(paths.collectEntries { [it, new DefaultFileCollectionSnapshotter.FileHashSnapshot(it.bytes)] })
+
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(snapshot, serializer)
+
+        then:
+        def snapshots = out.getSnapshots()
+        snapshots.keySet() == paths as Set
+        paths.every { ((DefaultFileCollectionSnapshotter.FileHashSnapshot) snapshots[it]).hash == it.bytes }
+    }
+
+    def "writes each shared path prefix once"() {
+        def paths = (1..100).collect { "/some/long/path/to/the/source/directory/file${it}.txt".toString() }
+        def snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(paths.collectEntries { [it, new DefaultFileCollectionSnapshotter.DirSnapshot()] })
+
+        expect:
+        toBytes(snapshot, serializer).length < paths.sum { it.length() } / 3
+    }
+
+    def "writes snapshot read from history without decoding it"() {
+        def snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(["1": new DefaultFileCollectionSnapshotter.DirSnapshot()])
+        def bytes = toBytes(snapshot, serializer)
+
+        expect:
+        toBytes(fromBytes(bytes, serializer), serializer) == bytes
     }
 }
@@ -27,7 +27,7 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
     final GradleInternal gradle = Mock()
     final CacheRepository cacheRepository = Mock()
 
-    def "opens backing cache on construction"() {
+    def "opens backing cache for concurrent access on construction"() {
         CacheBuilder cacheBuilder = Mock()
         PersistentCache backingCache = Mock()
 
@@ -37,7 +37,7 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
         then:
         1 * cacheRepository.cache(gradle, "taskArtifacts") >> cacheBuilder
         1 * cacheBuilder.withDisplayName(_) >> cacheBuilder
-        1 * cacheBuilder.withLockOptions(LockOptionsBuilder.mode(FileLockManager.LockMode.None)) >> cacheBuilder
+        1 * cacheBuilder.withLockOptions(LockOptionsBuilder.mode(FileLockManager.LockMode.None).concurrentAccess()) >> cacheBuilder
         1 * cacheBuilder.open() >> backingCache
         0 * _._
     }
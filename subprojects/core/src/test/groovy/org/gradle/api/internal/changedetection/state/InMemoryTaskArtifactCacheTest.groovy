@@ -16,16 +16,20 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.cache.internal.FileLock
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache
+import org.gradle.internal.serialize.Serializer
 import spock.lang.Specification
 
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER
+
 class InMemoryTaskArtifactCacheTest extends Specification {
     def cacheFactory = new InMemoryTaskArtifactCache()
     def target = Mock(MultiProcessSafePersistentIndexedCache)
 
     def "caches result from backing cache"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
 
         when:
         def result = cache.get("key")
@@ -49,7 +53,7 @@ class InMemoryTaskArtifactCacheTest extends Specification {
 
     def "caches null result from backing cache"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
 
         when:
         def result = cache.get("key")
@@ -73,7 +77,7 @@ class InMemoryTaskArtifactCacheTest extends Specification {
 
     def "caches result of putting item"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
 
         when:
         def result = cache.get("key")
@@ -104,7 +108,7 @@ class InMemoryTaskArtifactCacheTest extends Specification {
 
     def "caches result of removing item"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
 
         when:
         def result = cache.get("key")
@@ -133,4 +137,232 @@ class InMemoryTaskArtifactCacheTest extends Specification {
         0 * target._
     }
 
+    def "notifies backing cache of start and end of work"() {
+        given:
+        def state = Stub(FileLock.State)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+
+        when:
+        cache.onStartWork("operation", state)
+
+        then:
+        1 * target.onStartWork("operation", state)
+        0 * target._
+
+        when:
+        cache.onEndWork(state)
+
+        then:
+        1 * target.onEndWork(state)
+        0 * target._
+    }
+
+    def "retains entries across builds"() {
+        given:
+        def state = Stub(FileLock.State)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        target.get("key") >> "result"
+        cache.onStartWork("build 1", state)
+        cache.get("key")
+        cache.onEndWork(state)
+
+        when:
+        cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        cache.onStartWork("build 2", state)
+        def result = cache.get("key")
+
+        then:
+        result == "result"
+
+        and:
+        1 * target.onStartWork("build 2", state)
+        0 * target._
+    }
+
+    def "reloads entries when backing cache has been updated by another process"() {
+        given:
+        def initialState = Stub(FileLock.State)
+        def updatedState = Stub(FileLock.State) {
+            hasBeenUpdatedSince(initialState) >> true
+        }
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        cache.onStartWork("build 1", initialState)
+
+        when:
+        def result = cache.get("key")
+        cache.onEndWork(initialState)
+
+        then:
+        result == "result"
+
+        and:
+        1 * target.get("key") >> "result"
+        1 * target.onEndWork(initialState)
+        0 * target._
+
+        when:
+        cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        cache.onStartWork("build 2", updatedState)
+        result = cache.get("key")
+
+        then:
+        result == "new value"
+
+        and:
+        1 * target.onStartWork("build 2", updatedState)
+        1 * target.get("key") >> "new value"
+        0 * target._
+
+        when:
+        result = cache.get("key")
+
+        then:
+        result == "new value"
+
+        and:
+        0 * target._
+    }
+
+    def "retains entries written by this process when the backing cache is updated by this process"() {
+        given:
+        def initialState = Stub(FileLock.State)
+        def updatedState = Stub(FileLock.State) {
+            hasBeenUpdatedSince(initialState) >> true
+        }
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        cache.onStartWork("build 1", initialState)
+        cache.put("key", "value")
+        cache.onEndWork(updatedState)
+
+        when:
+        cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        cache.onStartWork("build 2", updatedState)
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+
+        and:
+        1 * target.onStartWork("build 2", updatedState)
+        0 * target._
+    }
+
+    def "reloads only entries loaded before the backing cache was updated by another process"() {
+        given:
+        def initialState = Stub(FileLock.State)
+        def updatedState = Stub(FileLock.State) {
+            hasBeenUpdatedSince(initialState) >> true
+        }
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        cache.onStartWork("build 1", initialState)
+        target.get("key1") >> "value 1"
+        cache.get("key1")
+        cache.onEndWork(initialState)
+
+        cache.onStartWork("build 2", updatedState)
+        target.get("key2") >> "value 2"
+        cache.get("key2")
+
+        when:
+        def result1 = cache.get("key1")
+        def result2 = cache.get("key2")
+
+        then:
+        result1 == "new value 1"
+        result2 == "value 2"
+
+        and:
+        1 * target.get("key1") >> "new value 1"
+        0 * target._
+    }
+
+    def "entries of different caches do not interfere"() {
+        given:
+        def cache1 = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        def cache2 = cacheFactory.decorate("other/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+
+        when:
+        def result1 = cache1.get("key")
+        def result2 = cache2.get("key")
+
+        then:
+        result1 == "result 1"
+        result2 == "result 2"
+
+        and:
+        2 * target.get("key") >>> ["result 1", "result 2"]
+    }
+
+    def "evicts entries when the cache grows beyond its maximum weight"() {
+        given:
+        cacheFactory = new InMemoryTaskArtifactCache(10000)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+
+        when:
+        100.times {
+            cache.put("key$it".toString(), "value" * 20)
+        }
+
+        then:
+        def statistics = cacheFactory.statistics
+        statistics.evictionCount > 0
+        statistics.weight > 0
+        statistics.weight <= 10000
+        statistics.maxWeight == 10000
+    }
+
+    def "weighs every value using its serialized form"() {
+        given:
+        def serializer = Mock(Serializer)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
+
+        when:
+        1000.times {
+            cache.put("key$it".toString(), "value")
+        }
+
+        then:
+        1000 * serializer.write(_, "value") >> { encoder, value -> encoder.writeString(value) }
+        cacheFactory.statistics.weight >= 1000 * "value".length()
+    }
+
+    def "weighs and retains file collection snapshots in their encoded form"() {
+        given:
+        def snapshots = [:]
+        100.times {
+            snapshots["/some/dir/file${it}.txt".toString()] = new DefaultFileCollectionSnapshotter.FileHashSnapshot(new byte[16])
+        }
+        def snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots)
+        def encodedLength = snapshot.encodedSnapshots.toByteArray().length
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", Mock(Serializer), target)
+
+        when:
+        cache.put(1L, snapshot)
+        def result = cache.get(1L)
+
+        then:
+        cacheFactory.statistics.weight >= encodedLength
+        cacheFactory.statistics.weight < encodedLength + 200
+        result.encodedSnapshots.is(snapshot.encodedSnapshots)
+        result.snapshots.keySet() == snapshots.keySet()
+    }
+
+    def "reports hits and misses"() {
+        given:
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", STRING_SERIALIZER, target)
+        target.get(_) >> "result"
+
+        when:
+        cache.get("key1")
+        cache.get("key1")
+        cache.get("key1")
+        cache.get("key2")
+
+        then:
+        def statistics = cacheFactory.statistics
+        statistics.hitCount == 2
+        statistics.missCount == 2
+        statistics.requestCount == 4
+        statistics.evictionCount == 0
+    }
 }
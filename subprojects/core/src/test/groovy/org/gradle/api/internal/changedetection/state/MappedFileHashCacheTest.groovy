@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileHashCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def tableFile = tmpDir.file("fileHashes.mapped")
+    def cache = new MappedFileHashCache(tableFile, 16)
+
+    def cleanup() {
+        cache.close()
+    }
+
+    def "returns null for unknown file"() {
+        expect:
+        cache.get(tmpDir.file("unknown")) == null
+    }
+
+    def "can put, get and remove entries"() {
+        def file = tmpDir.file("some-file")
+
+        when:
+        cache.put(file, info(1))
+
+        then:
+        matches(cache.get(file), info(1))
+
+        when:
+        cache.put(file, info(2))
+
+        then:
+        matches(cache.get(file), info(2))
+
+        when:
+        cache.remove(file)
+
+        then:
+        cache.get(file) == null
+    }
+
+    def "entries are visible after reopening"() {
+        def file = tmpDir.file("some-file")
+
+        when:
+        cache.put(file, info(1))
+        cache.close()
+        cache = new MappedFileHashCache(tableFile, 16)
+
+        then:
+        matches(cache.get(file), info(1))
+    }
+
+    def "rebuilds table from log when table is missing"() {
+        def file1 = tmpDir.file("file1")
+        def file2 = tmpDir.file("file2")
+
+        when:
+        cache.put(file1, info(1))
+        cache.put(file2, info(2))
+        cache.remove(file2)
+        cache.close()
+        tableFile.delete()
+        cache = new MappedFileHashCache(tableFile, 16)
+
+        then:
+        matches(cache.get(file1), info(1))
+        cache.get(file2) == null
+    }
+
+    def "grows table and keeps all entries"() {
+        def files = (0..<20000).collect { tmpDir.file("dir/file$it") }
+
+        when:
+        files.eachWithIndex { file, i -> cache.put(file, info(i)) }
+        files.eachWithIndex { file, i -> if (i % 3 == 0) { cache.remove(file) } }
+
+        then:
+        files.eachWithIndex { file, i ->
+            if (i % 3 == 0) {
+                assert cache.get(file) == null
+            } else {
+                assert matches(cache.get(file), info(i))
+            }
+        }
+    }
+
+    def "does not accept hashes longer than the digest"() {
+        when:
+        cache.put(tmpDir.file("some-file"), new CachingFileSnapshotter.FileInfo(new byte[20], 1, 2))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "keeps the length of hashes shorter or longer than the digest"() {
+        def file1 = tmpDir.file("file1")
+        def file2 = tmpDir.file("file2")
+        def shorter = new CachingFileSnapshotter.FileInfo([1, 2, 3] as byte[], 1, 2)
+        def longer = new CachingFileSnapshotter.FileInfo((0..16).collect { (byte) (it + 1) } as byte[], 3, 4)
+
+        when:
+        cache.put(file1, shorter)
+        cache.put(file2, longer)
+
+        then:
+        matches(cache.get(file1), shorter)
+        matches(cache.get(file2), longer)
+    }
+
+    def "can store hashes of other digest lengths"() {
+        def file = tmpDir.file("some-file")
+        def sha1 = new CachingFileSnapshotter.FileInfo((0..19).collect { (byte) it } as byte[], 1, 2)
+
+        when:
+        cache.close()
+        cache = new MappedFileHashCache(tmpDir.file("fileHashes-sha-1.mapped"), 20)
+        cache.put(file, sha1)
+
+        then:
+        matches(cache.get(file), sha1)
+    }
+
+    def "discards table written for a different digest length"() {
+        def file = tmpDir.file("some-file")
+
+        when:
+        cache.put(file, info(1))
+        cache.close()
+        cache = new MappedFileHashCache(tableFile, 20)
+
+        then:
+        cache.get(file) == null
+    }
+
+    def "can rebuild table from compacted log"() {
+        def file = tmpDir.file("some-file")
+        def logFile = tmpDir.file("fileHashes.mapped.log")
+
+        when:
+        70000.times { cache.put(file, info(it)) }
+        cache.close()
+
+        then:
+        logFile.length() < 70000 * 16
+        !tmpDir.file("fileHashes.mapped.log.tmp").exists()
+
+        when:
+        tableFile.delete()
+        cache = new MappedFileHashCache(tableFile, 16)
+
+        then:
+        matches(cache.get(file), info(69999))
+    }
+
+    def "reopens log that has been compacted by another instance"() {
+        def file1 = tmpDir.file("file1")
+        def file2 = tmpDir.file("file2")
+        def other = new MappedFileHashCache(tableFile, 16)
+
+        when:
+        other.put(file2, info(1))
+        70000.times { cache.put(file1, info(it)) }
+        other.put(file2, info(2))
+        other.close()
+        cache.close()
+
+        then:
+        tmpDir.file("fileHashes.mapped.log").length() < 70000 * 16
+
+        when:
+        tableFile.delete()
+        cache = new MappedFileHashCache(tableFile, 16)
+
+        then:
+        matches(cache.get(file1), info(69999))
+        matches(cache.get(file2), info(2))
+    }
+
+    def "compacts log appended to by another instance"() {
+        def file1 = tmpDir.file("file1")
+        def file2 = tmpDir.file("file2")
+        def logFile = tmpDir.file("fileHashes.mapped.log")
+        def other = new MappedFileHashCache(tableFile, 16)
+
+        when:
+        cache.put(file1, info(1))
+        60000.times { other.put(file2, info(it)) }
+        other.close()
+        10000.times { cache.put(file1, info(it)) }
+        cache.close()
+
+        then:
+        logFile.length() < 60000 * 16
+
+        when:
+        tableFile.delete()
+        cache = new MappedFileHashCache(tableFile, 16)
+
+        then:
+        matches(cache.get(file1), info(9999))
+        matches(cache.get(file2), info(59999))
+    }
+
+    private static CachingFileSnapshotter.FileInfo info(int value) {
+        byte[] hash = new byte[16]
+        hash[0] = (byte) value
+        hash[15] = (byte) (value >> 8)
+        return new CachingFileSnapshotter.FileInfo(hash, value * 10, value * 100)
+    }
+
+    private static boolean matches(CachingFileSnapshotter.FileInfo actual, CachingFileSnapshotter.FileInfo expected) {
+        return actual != null && actual.hash == expected.hash && actual.length == expected.length && actual.timestamp == expected.timestamp
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.api.internal.hash.Hasher
+import org.gradle.cache.internal.NonThreadsafeInMemoryStore
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.ChangeListener
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+class ParallelFileCollectionSnapshotterTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def hasher = Spy(DefaultHasher)
+    def cacheAccess = Stub(TaskArtifactStateCacheAccess)
+    def executorFactory = new DefaultExecutorFactory()
+    def fileSnapshotter = new CachingFileSnapshotter(hasher, new NonThreadsafeInMemoryStore())
+    def sequential = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess)
+    def parallel = new ParallelFileCollectionSnapshotter(fileSnapshotter, cacheAccess, executorFactory, 4)
+    def listener = Mock(ChangeListener)
+
+    def setup() {
+        cacheAccess.useCache(_, _) >> { String name, Runnable action ->
+            action.run()
+        }
+    }
+
+    def cleanup() {
+        parallel.stop()
+        executorFactory.stop()
+    }
+
+    def "creates the same snapshot as the sequential implementation"() {
+        given:
+        def files = createFiles(200)
+        files << tmpDir.createDir("dir")
+        files << tmpDir.file("missing")
+
+        when:
+        def expected = sequential.snapshot(fileCollection(files))
+        def actual = parallel.snapshot(fileCollection(files))
+        actual.iterateChangesSince(expected).next(listener)
+
+        then:
+        actual.files.files == expected.files.files
+        0 * listener._
+    }
+
+    def "detects changed files"() {
+        given:
+        def files = createFiles(200)
+        def snapshot = parallel.snapshot(fileCollection(files))
+        files[17].write("changed")
+
+        when:
+        parallel.snapshot(fileCollection(files)).iterateChangesSince(snapshot).next(listener)
+
+        then:
+        1 * listener.changed(files[17].path)
+        0 * listener._
+    }
+
+    def "reuses cached hashes of unchanged files"() {
+        given:
+        def files = createFiles(200)
+        parallel.snapshot(fileCollection(files))
+
+        when:
+        parallel.snapshot(fileCollection(files))
+
+        then:
+        0 * hasher.hash(_)
+    }
+
+    private List<File> createFiles(int count) {
+        def files = []
+        count.times { i ->
+            files << tmpDir.file("files/file${i}.txt").write("content ${i}")
+        }
+        return files
+    }
+
+    private FileCollection fileCollection(List<File> files) {
+        FileTree collection = Mock(FileTree.class)
+        _ * collection.asFileTree >> collection
+        _ * collection.visit(_ as FileVisitor) >> { FileVisitor visitor ->
+            files.each { visitor.visitFile(new DefaultFileVisitDetails(it, new RelativePath(true, it.name), new AtomicBoolean(), null, null)) }
+            return collection
+        }
+        return collection
+    }
+}
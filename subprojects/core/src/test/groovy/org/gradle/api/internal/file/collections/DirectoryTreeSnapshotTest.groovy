@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections
+
+import org.gradle.api.file.EmptyFileVisitor
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+class DirectoryTreeSnapshotTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def snapshot = new DirectoryTreeSnapshot()
+    def root = tmpDir.createDir("root")
+
+    def "records listings of directories that have not been modified recently"() {
+        given:
+        root.createFile("a.txt")
+        root.createFile("sub/b.txt")
+        makeOld(root.file("sub"), root)
+
+        when:
+        def files = walk()
+
+        then:
+        files == ["a.txt", "b.txt"] as Set
+        snapshot.modified
+        snapshot.listings.keySet() == [root.path, root.file("sub").path] as Set
+    }
+
+    def "does not record listings of recently modified directories"() {
+        given:
+        root.createFile("a.txt")
+
+        when:
+        walk()
+
+        then:
+        !snapshot.modified
+        snapshot.listings.isEmpty()
+    }
+
+    def "replays listing of unchanged directory"() {
+        given:
+        root.createFile("a.txt")
+        makeOld(root)
+        walk()
+
+        when:
+        def lastModified = root.lastModified()
+        root.createFile("b.txt")
+        root.setLastModified(lastModified)
+        def files = walk()
+
+        then:
+        files == ["a.txt"] as Set
+    }
+
+    def "lists directory again when its modification time changes"() {
+        given:
+        root.createFile("a.txt")
+        makeOld(root)
+        walk()
+
+        when:
+        root.createFile("b.txt")
+        root.setLastModified(root.lastModified() - 10000)
+        def files = walk()
+
+        then:
+        files == ["a.txt", "b.txt"] as Set
+    }
+
+    def "forgets listings below directories that have been removed"() {
+        given:
+        root.createFile("sub/nested/a.txt")
+        root.createFile("b.txt")
+        makeOld(root.file("sub/nested"), root.file("sub"), root)
+        walk()
+
+        when:
+        root.file("sub").deleteDir()
+        makeOld(root)
+        def files = walk()
+
+        then:
+        files == ["b.txt"] as Set
+        snapshot.listings.keySet() == [root.path] as Set
+    }
+
+    private Set<String> walk() {
+        def names = [] as Set
+        new DirectoryFileTree(root).visit(new EmptyFileVisitor() {
+            @Override
+            void visitFile(FileVisitDetails fileDetails) {
+                names << fileDetails.name
+            }
+        }, snapshot)
+        return names
+    }
+
+    private static void makeOld(TestFile... dirs) {
+        dirs.each { it.setLastModified(System.currentTimeMillis() - 60000) }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections.jdk7
+
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.collections.DefaultDirectoryWalker
+import org.gradle.api.internal.file.collections.DirectoryWalker
+import org.gradle.api.specs.Specs
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.NativeServicesTestFixture
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.atomic.AtomicBoolean
+
+class Jdk7DirectoryWalkerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    FileSystem fileSystem = NativeServicesTestFixture.instance.get(FileSystem)
+
+    def "visits the same elements in the same order as the java.io walker"() {
+        given:
+        def root = tmpDir.createDir("root")
+        root.createFile("a.txt")
+        root.createFile("sub/b.txt")
+        root.createFile("sub/nested/c.txt")
+        root.createFile("d.txt")
+
+        expect:
+        walk(new Jdk7DirectoryWalker(fileSystem), root, false) == walk(new DefaultDirectoryWalker(fileSystem), root, false)
+        walk(new Jdk7DirectoryWalker(fileSystem), root, true) == walk(new DefaultDirectoryWalker(fileSystem), root, true)
+    }
+
+    def "carries file attributes read while listing"() {
+        given:
+        def file = tmpDir.createFile("root/a.txt").write("content")
+        file.setLastModified(1000000000000L)
+        def visited = []
+        def visitor = Stub(FileVisitor) {
+            visitFile(_) >> { FileVisitDetails details -> visited << details }
+        }
+
+        when:
+        new Jdk7DirectoryWalker(fileSystem).walkDir(tmpDir.file("root"), new RelativePath(false), visitor, Specs.satisfyAll(), new AtomicBoolean(), false)
+
+        then:
+        visited.size() == 1
+        visited[0] instanceof DefaultFileVisitDetails
+        visited[0].hasFileAttributes()
+        !visited[0].directory
+        visited[0].size == 7
+        visited[0].lastModified == 1000000000000L
+    }
+
+    def "reports modification time with the same precision as java.io.File"() {
+        given:
+        def file = tmpDir.createFile("root/a.txt").write("content")
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(1000000000123L))
+        def visited = []
+        def visitor = Stub(FileVisitor) {
+            visitFile(_) >> { FileVisitDetails details -> visited << details }
+        }
+
+        when:
+        2.times {
+            new Jdk7DirectoryWalker(fileSystem).walkDir(tmpDir.file("root"), new RelativePath(false), visitor, Specs.satisfyAll(), new AtomicBoolean(), false)
+        }
+
+        then:
+        visited.size() == 2
+        visited.every { it.lastModified == file.lastModified() }
+    }
+
+    private List<String> walk(DirectoryWalker walker, File root, boolean postfix) {
+        def visited = []
+        def visitor = Stub(FileVisitor) {
+            visitFile(_) >> { FileVisitDetails details -> visited << "file ${details.relativePath}" }
+            visitDir(_) >> { FileVisitDetails details -> visited << "dir ${details.relativePath}" }
+        }
+        walker.walkDir(root, new RelativePath(false), visitor, Specs.satisfyAll(), new AtomicBoolean(), postfix)
+        return visited
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ZipTaskOutputPackerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def packer = new ZipTaskOutputPacker()
+
+    def "restores output files and directories"() {
+        def outputFile = tmpDir.file("build/output.txt")
+        def outputDir = tmpDir.file("build/classes")
+        outputFile << "output"
+        outputDir.file("org/gradle/A.class") << "A"
+        outputDir.file("org/gradle/B.class") << "B"
+        outputDir.file("empty").createDir()
+        def roots = [outputFile, outputDir]
+        def bytes = new ByteArrayOutputStream()
+
+        when:
+        packer.pack(roots, bytes)
+        outputFile.text = "changed"
+        outputDir.file("org/gradle/B.class").delete()
+        outputDir.file("org/gradle/C.class") << "C"
+        packer.unpack(roots, new ByteArrayInputStream(bytes.toByteArray()))
+
+        then:
+        outputFile.text == "output"
+        outputDir.file("org/gradle/A.class").text == "A"
+        outputDir.file("org/gradle/B.class").text == "B"
+        !outputDir.file("org/gradle/C.class").exists()
+        outputDir.file("empty").directory
+    }
+
+    def "removes outputs which did not exist when packed"() {
+        def missing = tmpDir.file("build/missing.txt")
+        def bytes = new ByteArrayOutputStream()
+
+        when:
+        packer.pack([missing], bytes)
+        missing << "created later"
+        packer.unpack([missing], new ByteArrayInputStream(bytes.toByteArray()))
+
+        then:
+        !missing.exists()
+    }
+
+    @Unroll
+    def "fails with IOException and removes partially restored outputs when entry '#entryName' is invalid"() {
+        def outputFile = tmpDir.file("build/output.txt")
+        def outputDir = tmpDir.file("build/classes")
+        outputFile << "existing"
+        def bytes = new ByteArrayOutputStream()
+        def zipOutput = new ZipOutputStream(bytes)
+        zipOutput.putNextEntry(new ZipEntry("1/org/gradle/A.class"))
+        zipOutput << "A"
+        zipOutput.putNextEntry(new ZipEntry(entryName))
+        zipOutput << "broken"
+        zipOutput.close()
+
+        when:
+        packer.unpack([outputFile, outputDir], new ByteArrayInputStream(bytes.toByteArray()))
+
+        then:
+        IOException e = thrown()
+        e.message.contains("'$entryName'")
+
+        and:
+        !outputFile.exists()
+        !outputDir.exists()
+
+        where:
+        entryName << ["unknown", "unknown/A.class", "2", "2/A.class", "-1", "../A.class"]
+    }
+
+    def "removes partially restored outputs when stream is truncated"() {
+        def outputDir = tmpDir.file("build/classes")
+        def content = new byte[10000]
+        new Random(1).nextBytes(content)
+        outputDir.file("org/gradle/A.class").bytes = content
+        outputDir.file("org/gradle/B.class").bytes = content
+        def bytes = new ByteArrayOutputStream()
+        packer.pack([outputDir], bytes)
+        def truncated = Arrays.copyOf(bytes.toByteArray(), (int) (bytes.size() / 2))
+
+        when:
+        packer.unpack([outputDir], new ByteArrayInputStream(truncated))
+
+        then:
+        thrown(IOException)
+        !outputDir.exists()
+    }
+}
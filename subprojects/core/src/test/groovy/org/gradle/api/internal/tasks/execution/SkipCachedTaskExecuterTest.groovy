@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.api.internal.tasks.cache.TaskCacheKey
+import org.gradle.api.internal.tasks.cache.TaskOutputCache
+import org.gradle.api.internal.tasks.cache.TaskOutputCacheListener
+import org.gradle.api.internal.tasks.cache.ZipTaskOutputPacker
+import spock.lang.Specification
+
+class SkipCachedTaskExecuterTest extends Specification {
+    def delegate = Mock(TaskExecuter)
+    def task = Mock(TaskInternal)
+    def outputs = Mock(TaskOutputsInternal)
+    def outputFiles = Mock(FileCollection)
+    def taskState = Mock(TaskStateInternal)
+    def taskContext = Mock(TaskExecutionContext)
+    def taskArtifactState = Mock(TaskArtifactState)
+    def cache = Mock(TaskOutputCache)
+    def packer = Mock(ZipTaskOutputPacker)
+    def listener = Mock(TaskOutputCacheListener)
+    def cacheKey = Mock(TaskCacheKey)
+
+    def executer = new SkipCachedTaskExecuter(cache, packer, listener, delegate)
+
+    def "skips task when cached outputs are available"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskArtifactState() >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * task.getOutputs() >> outputs
+        1 * outputs.getFiles() >> outputFiles
+        1 * outputFiles.getFiles() >> ([] as Set)
+
+        then:
+        1 * cache.load(cacheKey, _) >> true
+        _ * cache.getDescription() >> "cache"
+
+        then:
+        1 * listener.cacheHit(task)
+        1 * taskState.skipped("FROM-CACHE")
+        0 * _
+    }
+
+    def "executes task and stores outputs when no cached outputs are available"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskArtifactState() >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * task.getOutputs() >> outputs
+        1 * outputs.getFiles() >> outputFiles
+        1 * outputFiles.getFiles() >> ([] as Set)
+
+        then:
+        1 * cache.load(cacheKey, _) >> false
+        1 * listener.cacheMiss(task)
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.getFailure() >> null
+
+        then:
+        1 * cache.store(cacheKey, _)
+        0 * _
+    }
+
+    def "does not store outputs when task fails"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskArtifactState() >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * task.getOutputs() >> outputs
+        1 * outputs.getFiles() >> outputFiles
+        1 * outputFiles.getFiles() >> ([] as Set)
+        1 * cache.load(cacheKey, _) >> false
+        1 * listener.cacheMiss(task)
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.getFailure() >> new RuntimeException()
+        0 * _
+    }
+
+    def "executes task without using cache when task is not cacheable"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskArtifactState() >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> null
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+}
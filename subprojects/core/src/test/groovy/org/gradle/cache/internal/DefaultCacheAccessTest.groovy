@@ -453,6 +453,132 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         0 * _._
     }
 
+    def "concurrent access allows several threads to use the cache at the same time and holds the lock until the last one finishes"() {
+        when:
+        access.open(mode(None).concurrentAccess())
+        async {
+            start {
+                access.useCache("first operation") {
+                    instant.firstStarted
+                    thread.blockUntil.secondStarted
+                    access.whenContended().run()
+                }
+                instant.firstFinished
+            }
+            start {
+                access.useCache("second operation") {
+                    instant.secondStarted
+                    thread.blockUntil.firstFinished
+                    assert access.owners == [Thread.currentThread()] as Set
+                }
+            }
+        }
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive).concurrentAccess(), "<display-name>", _) >> lock
+        1 * lockManager.allowContention(lock, _)
+
+        then:
+        1 * lock.close()
+        0 * lockManager._
+
+        and:
+        access.owners.empty
+    }
+
+    def "concurrent access lets the current owners finish before other threads use the cache once the lock is contended"() {
+        when:
+        access.open(mode(None).concurrentAccess())
+        async {
+            start {
+                access.useCache("first operation") {
+                    access.whenContended().run()
+                    instant.contended
+                    thread.blockUntil.secondWaiting
+                }
+            }
+            start {
+                thread.blockUntil.contended
+                instant.secondWaiting
+                access.useCache("second operation") {
+                    instant.secondStarted
+                }
+            }
+        }
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive).concurrentAccess(), "<display-name>", "first operation") >> lock
+
+        then:
+        1 * lock.close()
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive).concurrentAccess(), "<display-name>", "second operation") >> lock
+    }
+
+    def "concurrent access allows reading files from several threads at the same time"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive).concurrentAccess(), "<display-name>", _) >> lock
+        lock.readFile(_) >> { Factory action -> action.create() }
+        access.open(mode(None).concurrentAccess())
+
+        when:
+        async {
+            start {
+                access.useCache("first operation") {
+                    access.fileAccess.readFile {
+                        instant.firstReading
+                        thread.blockUntil.secondReading
+                    }
+                }
+            }
+            start {
+                access.useCache("second operation") {
+                    access.fileAccess.readFile {
+                        instant.secondReading
+                        thread.blockUntil.firstReading
+                    }
+                }
+            }
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "concurrent access does not allow writing files while another thread reads them"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive).concurrentAccess(), "<display-name>", _) >> lock
+        lock.readFile(_) >> { Factory action -> action.create() }
+        lock.writeFile(_) >> { Runnable action -> action.run() }
+        access.open(mode(None).concurrentAccess())
+
+        when:
+        async {
+            start {
+                access.useCache("first operation") {
+                    access.fileAccess.readFile {
+                        instant.reading
+                        thread.block()
+                        instant.readFinished
+                    }
+                }
+            }
+            start {
+                access.useCache("second operation") {
+                    thread.blockUntil.reading
+                    access.fileAccess.writeFile {
+                        instant.writing
+                    }
+                }
+            }
+        }
+
+        then:
+        instant.writing > instant.readFinished
+        access.lockWaitTime > 0
+    }
+
     def "contended action does nothing when no lock"() {
         when:
         access.whenContended().run()
@@ -55,4 +55,29 @@ class DefaultPersistentDirectoryStoreConcurrencyTest extends ConcurrentSpec {
         then:
         noExceptionThrown()
     }
+
+    def "can read and write a cache from several threads when opened for concurrent access"() {
+        def store = new DefaultPersistentDirectoryStore(cacheDir, "<display>", mode(None).concurrentAccess(), lockManager)
+        store.open()
+        def cache = store.createCache("cache", String, new NullSafeStringSerializer())
+
+        when:
+        async {
+            20.times { worker ->
+                start {
+                    50.times { index ->
+                        def key = "${worker}-${index}".toString()
+                        store.useCache("write") { cache.put(key, "value ${key}".toString()) }
+                        store.useCache("read") { assert cache.get(key) == "value ${key}" }
+                    }
+                }
+            }
+        }
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        store.close()
+    }
 }
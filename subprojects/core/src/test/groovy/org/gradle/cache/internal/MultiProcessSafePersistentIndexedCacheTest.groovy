@@ -24,6 +24,8 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
     final Factory<BTreePersistentIndexedCache<String, String>> factory = Mock()
     final cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess)
     final BTreePersistentIndexedCache<String, String> backingCache = Mock()
+    final Factory<BTreePersistentIndexedCache<byte[], String>> arrayKeyFactory = Mock()
+    final BTreePersistentIndexedCache<byte[], String> arrayKeyBackingCache = Mock()
     
     def "opens cache on first access"() {
         when:
@@ -50,29 +52,111 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
-    def "holds write lock while putting entry into cache"() {
+    def "buffers put until cache is closed"() {
         given:
         cacheOpened()
 
         when:
         cache.put("key", "value")
 
+        then:
+        0 * _._
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+        0 * _._
+
+        when:
+        cache.close()
+
         then:
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
-        1 * backingCache.put("key", "value")
+        1 * backingCache.update(["key": "value"], [] as Set)
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.close()
         0 * _._
     }
 
-    def "holds write lock while removing entry from cache"() {
+    def "buffers remove until end of work"() {
         given:
         cacheOpened()
 
         when:
         cache.remove("key")
 
+        then:
+        0 * _._
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == null
+        0 * _._
+
+        when:
+        cache.onEndWork(Stub(FileLock.State))
+
         then:
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
-        1 * backingCache.remove("key")
+        1 * backingCache.update([:], ["key"] as Set)
+        0 * _._
+    }
+
+    def "coalesces writes to the same key"() {
+        given:
+        cacheOpened()
+
+        when:
+        cache.put("key", "value 1")
+        cache.remove("key")
+        cache.put("key", "value 2")
+        cache.put("other", "value 3")
+        cache.remove("removed")
+        cache.onEndWork(Stub(FileLock.State))
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.update(["key": "value 2", "other": "value 3"], ["removed"] as Set)
+        0 * _._
+    }
+
+    def "writes buffered changes once the buffer is full"() {
+        given:
+        cacheOpened()
+
+        when:
+        (DefaultMultiProcessSafePersistentIndexedCache.MAX_PENDING_CHANGES - 1).times { cache.put("key ${it}".toString(), "value") }
+
+        then:
+        0 * _._
+
+        when:
+        cache.put("last", "value")
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.update({ it.size() == DefaultMultiProcessSafePersistentIndexedCache.MAX_PENDING_CHANGES }, [] as Set)
+        0 * _._
+    }
+
+    def "writes changes to array keys through"() {
+        given:
+        def arrayKeyCache = new DefaultMultiProcessSafePersistentIndexedCache<byte[], String>(arrayKeyFactory, fileAccess)
+        def key = [1, 2] as byte[]
+
+        when:
+        arrayKeyCache.put(key, "value")
+
+        then:
+        2 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * arrayKeyFactory.create() >> arrayKeyBackingCache
+        1 * arrayKeyBackingCache.put(key, "value")
         0 * _._
     }
 
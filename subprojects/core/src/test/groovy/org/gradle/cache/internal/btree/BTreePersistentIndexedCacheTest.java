@@ -161,6 +161,29 @@ public class BTreePersistentIndexedCacheTest {
         assertThat(cacheFile.length(), lessThan((long) (1.4 * 1.4 * len)));
     }
 
+    @Test
+    public void persistsBatchOfAddedAndRemovedEntries() {
+        checkAdds(1, 2, 3, 4, 5, 6, 7, 8);
+
+        Map<String, Integer> updates = new HashMap<String, Integer>();
+        for (int i = 5; i < 20; i++) {
+            updates.put(String.format("key_%d", i), i * 10);
+        }
+        cache.update(updates, Arrays.asList("key_1", "key_3", "key_unknown"));
+        cache.verify();
+
+        cache.reset();
+
+        assertNull(cache.get("key_1"));
+        assertThat(cache.get("key_2"), equalTo(2));
+        assertNull(cache.get("key_3"));
+        assertThat(cache.get("key_4"), equalTo(4));
+        for (int i = 5; i < 20; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(i * 10));
+        }
+        cache.verify();
+    }
+
     @Test
     public void persistsRemovalOfEntries() {
         checkAddsAndRemoves(1, 2, 3, 4, 5);
@@ -49,6 +49,7 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends Specification {
 
     List<TaskInfo> startedTasks = []
     List<Thread> blockedThreads = []
+    List<Task> tasksStartedByBlockedThreads = Collections.synchronizedList([])
 
     void cleanup() {
         completeAllStartedTasks()
@@ -65,7 +66,17 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends Specification {
     }
 
     void noMoreTasksCurrentlyAvailableForExecution() {
-        blockedThreads << blockedThread { executionPlan.taskComplete(executionPlan.getTaskToExecute()) }
+        blockedThreads << blockedThread {
+            def taskInfo = executionPlan.getTaskToExecute()
+            tasksStartedByBlockedThreads << taskInfo?.task
+            executionPlan.taskComplete(taskInfo)
+        }
+    }
+
+    void completeTask(Task task) {
+        def taskInfo = startedTasks.find { it.task == task }
+        startedTasks.remove(taskInfo)
+        executionPlan.taskComplete(taskInfo)
     }
 
     void completeAllStartedTasks() {
@@ -74,7 +85,10 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends Specification {
     }
 
     void allBlockedThreadsFinish() {
-        blockedThreads*.join()
+        blockedThreads.each {
+            it.join(3000)
+            assert !it.alive
+        }
         blockedThreads.clear()
     }
 
@@ -346,4 +360,102 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends Specification {
         then:
         noMoreTasksCurrentlyAvailableForExecution()
     }
+
+    def "a task held back by a running task in the same project is started when that task completes"() {
+        given:
+        Task clean = root.task("clean", type: Delete)
+        Task parallel = root.task("parallel", type: Parallel)
+
+        when:
+        addToGraphAndPopulate(clean, parallel)
+        startTasks(1)
+
+        then:
+        startedTasks*.task == [clean]
+        noMoreTasksCurrentlyAvailableForExecution()
+
+        when:
+        completeAllStartedTasks()
+
+        then:
+        requestedTasksBecomeAvailableForExecution()
+        tasksStartedByBlockedThreads == [parallel]
+    }
+
+    def "a task held back by a running task in the same project is not started when a task in another project completes"() {
+        given:
+        def project1 = createChildProject(root, "a")
+        def project2 = createChildProject(root, "b")
+        Task clean = project1.task("clean", type: Delete)
+        Task parallel = project1.task("parallel", type: Parallel)
+        Task b = project2.task("b", type: Parallel)
+
+        when:
+        addToGraphAndPopulate(clean, parallel, b)
+        startTasks(2)
+
+        then:
+        startedTasks*.task == [clean, b]
+
+        when:
+        completeTask(b)
+
+        then:
+        noMoreTasksCurrentlyAvailableForExecution()
+
+        when:
+        completeTask(clean)
+
+        then:
+        requestedTasksBecomeAvailableForExecution()
+        tasksStartedByBlockedThreads == [parallel]
+    }
+
+    def "a task held back by a running task with overlapping outputs is started when that task completes"() {
+        given:
+        Task a = taskWithOutputFile("a", file("output"))
+        Task b = taskWithOutputFile("b", file("output"))
+
+        when:
+        addToGraphAndPopulate(a, b)
+        startTasks(1)
+
+        then:
+        startedTasks*.task == [a]
+        noMoreTasksCurrentlyAvailableForExecution()
+
+        when:
+        completeAllStartedTasks()
+
+        then:
+        requestedTasksBecomeAvailableForExecution()
+        tasksStartedByBlockedThreads == [b]
+    }
+
+    def "a task held back by a running task with overlapping outputs is not started while that task is still running"() {
+        given:
+        Task a = taskWithOutputDirectory("a", file("outputDir"))
+        Task b = taskWithOutputFile("b", file("outputDir").file("output"))
+        Task c = taskWithOutputFile("c", file("other"))
+
+        when:
+        addToGraphAndPopulate(a, b, c)
+        startTasks(2)
+
+        then:
+        startedTasks*.task == [a, c]
+
+        when:
+        completeTask(c)
+
+        then:
+        noMoreTasksCurrentlyAvailableForExecution()
+
+        when:
+        completeTask(a)
+
+        then:
+        requestedTasksBecomeAvailableForExecution()
+        tasksStartedByBlockedThreads == [b]
+    }
 }
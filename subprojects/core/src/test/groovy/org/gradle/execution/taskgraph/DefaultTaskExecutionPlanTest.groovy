@@ -323,6 +323,18 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         executes(finalized, finalizerDependency, finalizer, dependsOnFinalizer)
     }
 
+    def "task that must run after a finalizer waits for the finalizer once the finalized task has run"() {
+        Task finalizer = task("finalizer")
+        Task finalized = task("a", finalizedBy: [finalizer])
+        Task mustRunAfterFinalizer = task("b", mustRunAfter: [finalizer])
+
+        when:
+        addToGraphAndPopulate([finalized, mustRunAfterFinalizer])
+
+        then:
+        executedTasks == [finalized, finalizer, mustRunAfterFinalizer]
+    }
+
     def "finalizer tasks run as soon as possible for tasks that depend on finalized tasks"() {
         Task finalizer = task("finalizer")
         Task finalized = task("finalized", finalizedBy: [finalizer])
@@ -865,6 +877,41 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         t3.task.project != t4.task.project
     }
 
+    def "starts tasks with the longest estimated critical path first when execution time estimator is used"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        executionPlan.useExecutionTimeEstimator(Stub(TaskExecutionTimeEstimator) {
+            estimateExecutionTime(a) >> 1
+            estimateExecutionTime(b) >> 10
+            estimateExecutionTime(c) >> 10
+        })
+
+        when:
+        addToGraphAndPopulate([a, c])
+
+        then:
+        executionPlan.predictedCriticalPath.tasks == [':b': 10L, ':c': 10L]
+        executionPlan.predictedCriticalPath.executionTime == 20
+        executedTasks == [b, c, a]
+        executionPlan.actualCriticalPath.tasks.keySet() as List == [':a']
+    }
+
+    def "starts tasks in plan order when no execution time estimator is used"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+
+        when:
+        addToGraphAndPopulate([a, c])
+
+        then:
+        executedTasks == [a, b, c]
+        executionPlan.predictedCriticalPath.tasks.isEmpty()
+    }
+
     void executes(Task... expectedTasks) {
         assert executionPlan.tasks == expectedTasks as List
         assert expectedTasks == expectedTasks as List
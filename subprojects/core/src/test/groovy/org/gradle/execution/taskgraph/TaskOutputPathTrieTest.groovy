@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.internal.TaskInternal
+import spock.lang.Specification
+
+class TaskOutputPathTrieTest extends Specification {
+    def trie = new TaskOutputPathTrie("/")
+    def task1 = Stub(TaskInternal)
+    def task2 = Stub(TaskInternal)
+
+    def "finds no overlap in empty index"() {
+        expect:
+        trie.empty
+        trie.findOverlap("/a/b") == null
+    }
+
+    def "finds task with the same output path"() {
+        when:
+        trie.add(task1, "/a/b")
+
+        then:
+        def overlap = trie.findOverlap("/a/b")
+        overlap.left == task1
+        overlap.right == "/a/b"
+    }
+
+    def "finds task with an output that is an ancestor of the path"() {
+        when:
+        trie.add(task1, "/a/b")
+
+        then:
+        def overlap = trie.findOverlap("/a/b/c/d")
+        overlap.left == task1
+        overlap.right == "/a/b"
+    }
+
+    def "finds task with an output that is a descendant of the path"() {
+        when:
+        trie.add(task1, "/a/b/c/d")
+
+        then:
+        def overlap = trie.findOverlap("/a/b")
+        overlap.left == task1
+        overlap.right == "/a/b"
+    }
+
+    def "paths sharing a prefix that is not a whole segment do not overlap"() {
+        when:
+        trie.add(task1, "/a/build")
+        trie.add(task2, "/a/b/c")
+
+        then:
+        trie.findOverlap("/a/b").left == task2
+        trie.findOverlap("/a/buildDir") == null
+        trie.findOverlap("/a/buil") == null
+        trie.findOverlap("/a/c") == null
+    }
+
+    def "removed outputs no longer overlap"() {
+        given:
+        trie.add(task1, "/a/b")
+        trie.add(task2, "/a/b/c/d")
+
+        when:
+        trie.remove(task2, "/a/b/c/d")
+
+        then:
+        trie.findOverlap("/a/b/c").left == task1
+        !trie.empty
+
+        when:
+        trie.remove(task1, "/a/b")
+
+        then:
+        trie.findOverlap("/a/b/c") == null
+        trie.findOverlap("/a") == null
+        trie.empty
+    }
+
+    def "removing an unknown output does nothing"() {
+        given:
+        trie.add(task1, "/a/b")
+
+        when:
+        trie.remove(task2, "/a/b")
+        trie.remove(task1, "/a/c")
+
+        then:
+        trie.findOverlap("/a/b").left == task1
+    }
+}
@@ -68,6 +68,7 @@ public class DefaultCommandLineConverterTest extends Specification {
     private int expectedParallelExecutorCount;
     private int expectedMaxWorkersCount = Runtime.getRuntime().availableProcessors();
     private boolean expectedConfigureOnDemand;
+    private boolean expectedCriticalPathScheduling;
 
     @Test
     public void withoutAnyOptions() {
@@ -108,6 +109,7 @@ public class DefaultCommandLineConverterTest extends Specification {
         assertEquals(expectedProjectCacheDir, startParameter.getProjectCacheDir());
         assertEquals(expectedParallelExecutorCount, startParameter.getParallelThreadCount());
         assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
+        assertEquals(expectedCriticalPathScheduling, startParameter.isCriticalPathScheduling());
         assertEquals(expectedMaxWorkersCount, startParameter.getMaxWorkerCount());
     }
 
@@ -413,6 +415,12 @@ public class DefaultCommandLineConverterTest extends Specification {
         checkConversion("--configure-on-demand");
     }
 
+    @Test
+    public void withCriticalPathScheduling() {
+        expectedCriticalPathScheduling = true;
+        checkConversion("--critical-path");
+    }
+
     final static int NUM_OF_PROCS = Runtime.getRuntime().availableProcessors()
     final static int N = 3
     final static int M = 5
@@ -45,13 +45,13 @@ class TaskExecutionServicesTest extends Specification {
         CacheBuilder cacheBuilder = Mock()
         _ * parent.get(Gradle) >> gradle
         _ * parent.get(ListenerManager) >> Mock(ListenerManager)
-        _ * parent.get(StartParameter) >> Mock(StartParameter)
+        _ * parent.get(StartParameter) >> new StartParameter()
         _ * parent.get(GradleBuildEnvironment) >> Stub(GradleBuildEnvironment)
         _ * parent.get(CacheRepository) >> cacheRepository
         _ * parent.get(Instantiator) >> Mock(Instantiator)
         _ * parent.get(InMemoryTaskArtifactCache) >> Mock(InMemoryTaskArtifactCache)
-        _ * parent.get(StartParameter) >> Mock(StartParameter)
         _ * parent.get(TaskFileSystemInputsAccumulator) >> Mock(TaskFileSystemInputsAccumulator)
+        _ * parent.get(ExecutorFactory) >> Mock(ExecutorFactory)
         _ * cacheRepository.cache(gradle, 'taskArtifacts') >> cacheBuilder
         _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
         _ * cacheBuilder.withLockOptions(!null) >> cacheBuilder
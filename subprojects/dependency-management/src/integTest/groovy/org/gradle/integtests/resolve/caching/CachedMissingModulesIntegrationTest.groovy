@@ -280,6 +280,73 @@ Required by:
         run 'retrieve'
     }
 
+    def "uses cached missing module until it expires when missing modules are cached"() {
+        given:
+        def repo1 = mavenHttpRepo("repo1")
+        def repo1Module = repo1.module("group", "projectA", "1.0")
+        def repo1Artifact = repo1Module.artifact
+
+        def repo2 = mavenHttpRepo("repo2")
+        def repo2Module = repo2.module("group", "projectA", "1.0")
+        def repo2Artifact = repo2Module.artifact
+
+        buildFile << """
+    repositories {
+        maven {
+            name 'repo1'
+            url '${repo1.uri}'
+        }
+        maven {
+            name 'repo2'
+            url '${repo2.uri}'
+        }
+    }
+    configurations {
+        compile {
+            resolutionStrategy.cacheMissingModulesFor 1, 'hours'
+        }
+    }
+    dependencies {
+        compile 'group:projectA:1.0'
+    }
+
+    task retrieve(type: Sync) {
+        into 'libs'
+        from configurations.compile
+    }
+    """
+
+        when:
+        repo1Module.pom.expectGetMissing()
+        repo1Artifact.expectHeadMissing()
+        repo2Module.pom.expectGetMissing()
+        repo2Artifact.expectHeadMissing()
+
+        then:
+        fails 'retrieve'
+        failure.assertHasCause("Could not find group:projectA:1.0.")
+
+        when:
+        server.resetExpectations()
+        repo2Module.publish()
+
+        then:
+        fails 'retrieve'
+        failure.assertHasCause("Could not find group:projectA:1.0.")
+
+        when:
+        buildFile.text = buildFile.text.replace("cacheMissingModulesFor 1, 'hours'", "cacheMissingModulesFor 0, 'seconds'")
+        server.resetExpectations()
+        repo1Module.pom.expectGetMissing()
+        repo1Artifact.expectHeadMissing()
+        repo2Module.pom.expectGet()
+        repo2Artifact.expectGet()
+
+        then:
+        run 'retrieve'
+        file('libs').assertHasDescendants('projectA-1.0.jar')
+    }
+
     def "cached missing module is ignored when no module for dynamic version is available in any repo"() {
         given:
         def repo1 = mavenHttpRepo("repo1")
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.integtests.resolve.maven
+
+import org.gradle.integtests.fixtures.AbstractHttpDependencyResolutionTest
+import org.mortbay.jetty.handler.AbstractHandler
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+
+class MavenHttpRepoConcurrentResolveIntegrationTest extends AbstractHttpDependencyResolutionTest {
+    def setup() {
+        buildFile << """
+repositories {
+    maven { url '${mavenHttpRepo.uri}' }
+}
+configurations { compile }
+task retrieve(type: Sync) {
+    into 'libs'
+    from configurations.compile
+}
+"""
+    }
+
+    def "fetches meta-data for the dependencies of a module concurrently"() {
+        given:
+        def projectA = mavenHttpRepo.module('group', 'projectA', '1.0').publish()
+        def projectB = mavenHttpRepo.module('group', 'projectB', '1.0').publish()
+        def projectC = mavenHttpRepo.module('group', 'projectC', '1.0').publish()
+        buildFile << """
+dependencies {
+    compile 'group:projectA:1.0', 'group:projectB:1.0', 'group:projectC:1.0'
+}
+"""
+
+        when:
+        // Each request for a pom blocks until all of them have been received
+        expectConcurrentRequests(projectA.pom.uri.path, projectB.pom.uri.path, projectC.pom.uri.path)
+        projectA.pom.expectGet()
+        projectB.pom.expectGet()
+        projectC.pom.expectGet()
+        projectA.artifact.expectGet()
+        projectB.artifact.expectGet()
+        projectC.artifact.expectGet()
+
+        and:
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants('projectA-1.0.jar', 'projectB-1.0.jar', 'projectC-1.0.jar')
+    }
+
+    def "does not fetch meta-data for a version that conflicts with a version already selected"() {
+        given:
+        mavenHttpRepo.module('group', 'projectA', '1.0').publish()
+        def projectA = mavenHttpRepo.module('group', 'projectA', '2.0').publish()
+        def projectB = mavenHttpRepo.module('group', 'projectB', '1.0').dependsOn('group', 'projectA', '1.0').publish()
+        buildFile << """
+dependencies {
+    compile 'group:projectA:2.0', 'group:projectB:1.0'
+}
+"""
+
+        when:
+        // No request is expected for group:projectA:1.0
+        projectA.pom.expectGet()
+        projectB.pom.expectGet()
+        projectA.artifact.expectGet()
+        projectB.artifact.expectGet()
+
+        and:
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants('projectA-2.0.jar', 'projectB-1.0.jar')
+    }
+
+    def expectConcurrentRequests(String... paths) {
+        def barrier = new CyclicBarrier(paths.length)
+        server.addHandler(new AbstractHandler() {
+            void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) {
+                if (request.method == 'GET' && paths.contains(request.pathInfo)) {
+                    barrier.await(30, TimeUnit.SECONDS)
+                }
+            }
+        })
+    }
+}
@@ -19,6 +19,7 @@ import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.ResolvedModuleVersion;
 import org.gradle.internal.component.model.IvyArtifactName;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 
 import java.io.File;
 
@@ -27,6 +28,7 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     private final IvyArtifactName artifact;
     private Factory<File> artifactSource;
     private File file;
+    private Throwable failure;
 
     public DefaultResolvedArtifact(ResolvedModuleVersion owner, IvyArtifactName artifact, Factory<File> artifactSource) {
         this.owner = owner;
@@ -81,12 +83,40 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     public String getClassifier() {
         return artifact.getClassifier();
     }
-    
-    public File getFile() {
+
+    /**
+     * Returns true if the file of this artifact has been resolved, or an attempt made by {@link #resolveQuietly()} has failed.
+     */
+    public synchronized boolean isResolved() {
+        return file != null || failure != null;
+    }
+
+    public synchronized File getFile() {
         if (file == null) {
+            if (failure != null) {
+                // Report the failure of the earlier attempt. The next call will try again
+                Throwable previousFailure = failure;
+                failure = null;
+                throw UncheckedException.throwAsUncheckedException(previousFailure);
+            }
             file = artifactSource.create();
             artifactSource = null;
         }
         return file;
     }
+
+    /**
+     * Resolves the file of this artifact, if not already resolved. Any failure is not thrown, but is reported by the next call to {@link #getFile()}.
+     */
+    public synchronized void resolveQuietly() {
+        if (isResolved()) {
+            return;
+        }
+        try {
+            file = artifactSource.create();
+            artifactSource = null;
+        } catch (Throwable throwable) {
+            failure = throwable;
+        }
+    }
 }
@@ -21,6 +21,7 @@ import org.gradle.api.internal.artifacts.component.DefaultComponentIdentifierFac
 import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.LocalComponentFactory;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ParsedModuleDescriptorCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.*;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.*;
 
@@ -29,6 +30,10 @@ class DependencyManagementGlobalScopeServices {
         return new DefaultIvyContextManager();
     }
 
+    ParsedModuleDescriptorCache createParsedModuleDescriptorCache() {
+        return new ParsedModuleDescriptorCache();
+    }
+
     ExcludeRuleConverter createExcludeRuleConverter() {
         return new DefaultExcludeRuleConverter();
     }
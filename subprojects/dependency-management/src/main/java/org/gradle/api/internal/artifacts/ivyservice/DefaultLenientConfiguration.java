@@ -16,6 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice;
 
 import org.gradle.api.artifacts.*;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedArtifactResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
@@ -23,6 +24,8 @@ import org.gradle.internal.resolve.ArtifactResolveException;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.graph.CachingDirectedGraphWalker;
 import org.gradle.internal.graph.DirectedGraphWithEdgeValues;
 import org.gradle.util.CollectionUtils;
@@ -31,16 +34,19 @@ import java.io.File;
 import java.util.*;
 
 public class DefaultLenientConfiguration implements LenientConfiguration {
+    private static final int MAX_CONCURRENT_DOWNLOADS = 4;
     private CacheLockingManager cacheLockingManager;
+    private final ExecutorFactory executorFactory;
     private final Configuration configuration;
     private final ResolvedGraphResults graphResults;
     private final ResolvedArtifactResults artifactResults;
     private final Factory<TransientConfigurationResults> transientConfigurationResultsFactory;
 
-    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, ResolvedGraphResults graphResults, ResolvedArtifactResults artifactResults,
-                                       Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
+    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, ResolvedGraphResults graphResults,
+                                       ResolvedArtifactResults artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
         this.configuration = configuration;
         this.cacheLockingManager = cacheLockingManager;
+        this.executorFactory = executorFactory;
         this.graphResults = graphResults;
         this.artifactResults = artifactResults;
         this.transientConfigurationResultsFactory = transientConfigurationResultsLoader;
@@ -101,6 +107,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         final Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
         return cacheLockingManager.useCache("retrieve artifacts from " + configuration, new Factory<Set<ResolvedArtifact>>() {
             public Set<ResolvedArtifact> create() {
+                resolveFilesConcurrently(allArtifacts);
                 return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
                     public boolean isSatisfiedBy(ResolvedArtifact element) {
                         try {
@@ -119,6 +126,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         final Set<File> files = new LinkedHashSet<File>();
         cacheLockingManager.useCache("resolve files from " + configuration, new Runnable() {
             public void run() {
+                resolveFilesConcurrently(artifacts);
                 for (ResolvedArtifact artifact : artifacts) {
                     File depFile = artifact.getFile();
                     if (depFile != null) {
@@ -130,6 +138,40 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         return files;
     }
 
+    /**
+     * Resolves the files of the given artifacts using a number of threads, so that artifacts are downloaded concurrently. Failures are ignored here,
+     * and are reported when the file of the artifact is requested.
+     *
+     * Must be called while holding the cache lock.
+     */
+    private void resolveFilesConcurrently(Set<ResolvedArtifact> artifacts) {
+        final List<DefaultResolvedArtifact> unresolved = new ArrayList<DefaultResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (artifact instanceof DefaultResolvedArtifact && !((DefaultResolvedArtifact) artifact).isResolved()) {
+                unresolved.add((DefaultResolvedArtifact) artifact);
+            }
+        }
+        if (unresolved.size() < 2) {
+            return;
+        }
+
+        final StoppableExecutor executor = executorFactory.create("Download artifacts for " + configuration, MAX_CONCURRENT_DOWNLOADS);
+        for (final DefaultResolvedArtifact artifact : unresolved) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    // Any failure is reported when the file of the artifact is requested
+                    artifact.resolveQuietly();
+                }
+            });
+        }
+        // Release the cache lock, as each download needs to acquire it
+        cacheLockingManager.longRunningOperation("Download artifacts for " + configuration, new Runnable() {
+            public void run() {
+                executor.stop();
+            }
+        });
+    }
+
     /**
      * Recursive, includes unsuccessfully resolved artifacts
      *
@@ -160,14 +160,18 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
                 return;
             }
             if (cachedMetaData.isMissing()) {
-                if (cachePolicy.mustRefreshMissingModule(moduleComponentIdentifier, cachedMetaData.getAgeMillis())) {
+                long ageMillis = cachedMetaData.getAgeMillis();
+                if (cachePolicy.mustRefreshMissingModule(moduleComponentIdentifier, ageMillis)) {
                     LOGGER.debug("Cached meta-data for missing module is expired: will perform fresh resolve of '{}' in '{}'", moduleComponentIdentifier, delegate.getName());
                     return;
                 }
                 LOGGER.debug("Detected non-existence of module '{}' in resolver cache '{}'", moduleComponentIdentifier, delegate.getName());
                 result.missing();
-                // When age == 0, verified since the start of this build, assume still missing
-                result.setAuthoritative(cachedMetaData.getAgeMillis() == 0);
+                // When age == 0, verified since the start of this build, assume still missing.
+                // Otherwise, only when missing modules are cached, and for a changing request only within the changing module timeout as well
+                boolean trusted = cachePolicy.isCachingMissingModules()
+                        && !(requestMetaData.isChanging() && cachePolicy.mustRefreshChangingModule(moduleComponentIdentifier, null, ageMillis));
+                result.setAuthoritative(ageMillis == 0 || trusted);
                 return;
             }
             MutableModuleComponentResolveMetaData metaData = cachedMetaData.getMetaData();
@@ -28,6 +28,7 @@ import org.gradle.internal.component.external.model.ModuleComponentResolveMetaDa
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
+import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
@@ -41,14 +42,16 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     private final BuildCommencedTimeProvider timeProvider;
     private final CacheLockingManager cacheLockingManager;
 
-    private final ModuleDescriptorStore moduleDescriptorStore;
+    private final ResolverStrategy resolverStrategy;
+    private final ParsedModuleDescriptorCache parsedDescriptors;
+    private ModuleDescriptorStore moduleDescriptorStore;
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> cache;
 
-    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy) {
+    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy, ParsedModuleDescriptorCache parsedDescriptors) {
         this.timeProvider = timeProvider;
         this.cacheLockingManager = cacheLockingManager;
-
-        moduleDescriptorStore = new ModuleDescriptorStore(new PathKeyFileStore(cacheLockingManager.createMetaDataStore()), new IvyXmlModuleDescriptorWriter(), new IvyXmlModuleDescriptorParser(resolverStrategy));
+        this.resolverStrategy = resolverStrategy;
+        this.parsedDescriptors = parsedDescriptors;
     }
 
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> getCache() {
@@ -58,6 +61,14 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         return cache;
     }
 
+    private synchronized ModuleDescriptorStore getModuleDescriptorStore() {
+        if (moduleDescriptorStore == null) {
+            PersistentIndexedCache<String, ModuleDescriptor> binaryDescriptors = cacheLockingManager.createCache("module-descriptors", BaseSerializerFactory.STRING_SERIALIZER, new ModuleDescriptorSerializer(resolverStrategy));
+            moduleDescriptorStore = new ModuleDescriptorStore(new PathKeyFileStore(cacheLockingManager.createMetaDataStore()), new IvyXmlModuleDescriptorWriter(), new IvyXmlModuleDescriptorParser(resolverStrategy), parsedDescriptors, binaryDescriptors);
+        }
+        return moduleDescriptorStore;
+    }
+
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> initCache() {
         return cacheLockingManager.createCache("module-metadata", new RevisionKeySerializer(), new ModuleDescriptorCacheEntrySerializer());
     }
@@ -70,7 +81,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         if (entry.isMissing()) {
             return new DefaultCachedMetaData(entry, null, timeProvider);
         }
-        ModuleDescriptor descriptor = moduleDescriptorStore.getModuleDescriptor(repository, componentId);
+        ModuleDescriptor descriptor = getModuleDescriptorStore().getModuleDescriptor(repository, componentId, entry.moduleDescriptorHash);
         if (descriptor == null) {
             // Descriptor file has been deleted - ignore the entry
             return null;
@@ -88,7 +99,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     public CachedMetaData cacheMetaData(ModuleComponentRepository repository, ModuleComponentResolveMetaData metaData) {
         ModuleDescriptor moduleDescriptor = metaData.getDescriptor();
         LOGGER.debug("Recording module descriptor in cache: {} [changing = {}]", moduleDescriptor.getModuleRevisionId(), metaData.isChanging());
-        LocallyAvailableResource resource = moduleDescriptorStore.putModuleDescriptor(repository, metaData.getComponentId(), moduleDescriptor);
+        LocallyAvailableResource resource = getModuleDescriptorStore().putModuleDescriptor(repository, metaData.getComponentId(), moduleDescriptor);
         ModuleDescriptorCacheEntry entry = createEntry(metaData, resource.getSha1());
         getCache().put(createKey(repository, metaData.getComponentId()), entry);
         return new DefaultCachedMetaData(entry, null, timeProvider);
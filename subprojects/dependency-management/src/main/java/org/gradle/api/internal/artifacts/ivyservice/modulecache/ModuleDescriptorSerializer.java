@@ -0,0 +1,395 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.gradle.api.internal.artifacts.ivyservice.IvyUtil;
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Writes module descriptors parsed from cached ivy.xml files in a binary form, which is much faster to read than the XML.
+ *
+ * <p>Writes everything that {@link org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter} writes to the ivy.xml file, and reads it back
+ * into the same kinds of objects that {@link org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser} creates.</p>
+ */
+class ModuleDescriptorSerializer implements Serializer<ModuleDescriptor> {
+    private final ResolverStrategy resolverStrategy;
+    private final Field dependencyConfigField;
+
+    ModuleDescriptorSerializer(ResolverStrategy resolverStrategy) {
+        this.resolverStrategy = resolverStrategy;
+        try {
+            dependencyConfigField = DefaultDependencyDescriptor.class.getDeclaredField("confs");
+        } catch (NoSuchFieldException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        dependencyConfigField.setAccessible(true);
+    }
+
+    public void write(Encoder encoder, ModuleDescriptor md) throws Exception {
+        writeStringMap(encoder, md.getExtraAttributesNamespaces());
+        writeRevisionId(encoder, md.getModuleRevisionId());
+        writeRevisionId(encoder, md.getResolvedModuleRevisionId());
+        encoder.writeNullableString(md.getStatus());
+        writeDate(encoder, md.getPublicationDate());
+        writeDate(encoder, md.getResolvedPublicationDate());
+        encoder.writeLong(md.getLastModified());
+        encoder.writeBoolean(md.isDefault());
+        if (md.getInheritedDescriptors().length != 0) {
+            throw new UnsupportedOperationException("Extends descriptors not supported.");
+        }
+
+        License[] licenses = md.getLicenses();
+        encoder.writeSmallInt(licenses.length);
+        for (License license : licenses) {
+            encoder.writeNullableString(license.getName());
+            encoder.writeNullableString(license.getUrl());
+        }
+        encoder.writeNullableString(md.getHomePage());
+        encoder.writeNullableString(md.getDescription());
+        writeExtraInfo(encoder, md.getExtraInfo());
+
+        Configuration[] configurations = md.getConfigurations();
+        encoder.writeSmallInt(configurations.length);
+        for (Configuration configuration : configurations) {
+            encoder.writeString(configuration.getName());
+            encoder.writeString(configuration.getVisibility().toString());
+            encoder.writeNullableString(configuration.getDescription());
+            writeStrings(encoder, configuration.getExtends());
+            encoder.writeBoolean(configuration.isTransitive());
+            encoder.writeNullableString(configuration.getDeprecated());
+        }
+
+        Artifact[] artifacts = md.getAllArtifacts();
+        encoder.writeSmallInt(artifacts.length);
+        for (Artifact artifact : artifacts) {
+            encoder.writeString(artifact.getName());
+            encoder.writeString(artifact.getType());
+            encoder.writeNullableString(artifact.getExt());
+            writeStrings(encoder, artifact.getConfigurations());
+            writeStringMap(encoder, artifact.getQualifiedExtraAttributes());
+        }
+
+        DependencyDescriptor[] dependencies = md.getDependencies();
+        encoder.writeSmallInt(dependencies.length);
+        for (DependencyDescriptor dependency : dependencies) {
+            writeDependency(encoder, dependency);
+        }
+
+        writeExcludeRules(encoder, md.getAllExcludeRules());
+    }
+
+    public ModuleDescriptor read(Decoder decoder) throws Exception {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(XmlModuleDescriptorParser.getInstance(), null);
+        for (Map.Entry<String, String> namespace : readStringMap(decoder).entrySet()) {
+            md.addExtraAttributeNamespace(namespace.getKey(), namespace.getValue());
+        }
+        md.setModuleRevisionId(readRevisionId(decoder));
+        md.setResolvedModuleRevisionId(readRevisionId(decoder));
+        md.setStatus(decoder.readNullableString());
+        md.setPublicationDate(readDate(decoder));
+        md.setResolvedPublicationDate(readDate(decoder));
+        md.setLastModified(decoder.readLong());
+        md.setDefault(decoder.readBoolean());
+
+        int licenseCount = decoder.readSmallInt();
+        for (int i = 0; i < licenseCount; i++) {
+            md.addLicense(new License(decoder.readNullableString(), decoder.readNullableString()));
+        }
+        md.setHomePage(decoder.readNullableString());
+        md.setDescription(decoder.readNullableString());
+        readExtraInfo(decoder, md.getExtraInfo());
+
+        int configurationCount = decoder.readSmallInt();
+        for (int i = 0; i < configurationCount; i++) {
+            String name = decoder.readString();
+            Configuration.Visibility visibility = Configuration.Visibility.getVisibility(decoder.readString());
+            String description = decoder.readNullableString();
+            String[] extendsFrom = readStrings(decoder);
+            boolean transitive = decoder.readBoolean();
+            String deprecated = decoder.readNullableString();
+            md.addConfiguration(new Configuration(name, visibility, description, extendsFrom, transitive, deprecated));
+        }
+
+        int artifactCount = decoder.readSmallInt();
+        for (int i = 0; i < artifactCount; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readNullableString();
+            String[] configurations = readStrings(decoder);
+            MDArtifact artifact = new MDArtifact(md, name, type, ext, null, readStringMap(decoder));
+            for (String configuration : configurations) {
+                artifact.addConfiguration(configuration);
+                md.addArtifact(configuration, artifact);
+            }
+        }
+
+        int dependencyCount = decoder.readSmallInt();
+        for (int i = 0; i < dependencyCount; i++) {
+            md.addDependency(readDependency(decoder, md));
+        }
+
+        for (ExcludeRule excludeRule : readExcludeRules(decoder)) {
+            md.addExcludeRule(excludeRule);
+        }
+        return md;
+    }
+
+    private void writeDependency(Encoder encoder, DependencyDescriptor dependency) throws Exception {
+        writeRevisionId(encoder, dependency.getDependencyRevisionId());
+        writeRevisionId(encoder, dependency.getDynamicConstraintDependencyRevisionId());
+        encoder.writeBoolean(dependency.isForce());
+        encoder.writeBoolean(dependency.isChanging());
+        encoder.writeBoolean(dependency.isTransitive());
+
+        // Write the raw configuration mappings, for the same reason as IvyXmlModuleDescriptorWriter does
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        Map<String, List<String>> configMappings = null;
+        if (dependency instanceof DefaultDependencyDescriptor) {
+            configMappings = (Map<String, List<String>>) dependencyConfigField.get(dependency);
+        }
+        encoder.writeSmallInt(moduleConfigurations.length);
+        for (String moduleConfiguration : moduleConfigurations) {
+            encoder.writeString(moduleConfiguration);
+            List<String> dependencyConfigurations = configMappings != null
+                    ? configMappings.get(moduleConfiguration)
+                    : Arrays.asList(dependency.getDependencyConfigurations(moduleConfiguration));
+            writeStrings(encoder, dependencyConfigurations.toArray(new String[dependencyConfigurations.size()]));
+        }
+
+        DependencyArtifactDescriptor[] dependencyArtifacts = dependency.getAllDependencyArtifacts();
+        encoder.writeSmallInt(dependencyArtifacts.length);
+        for (DependencyArtifactDescriptor dependencyArtifact : dependencyArtifacts) {
+            encoder.writeString(dependencyArtifact.getName());
+            encoder.writeString(dependencyArtifact.getType());
+            encoder.writeNullableString(dependencyArtifact.getExt());
+            encoder.writeNullableString(dependencyArtifact.getUrl() == null ? null : dependencyArtifact.getUrl().toString());
+            writeStrings(encoder, dependencyArtifact.getConfigurations());
+            writeStringMap(encoder, dependencyArtifact.getQualifiedExtraAttributes());
+        }
+
+        IncludeRule[] includeRules = dependency.getAllIncludeRules();
+        encoder.writeSmallInt(includeRules.length);
+        for (IncludeRule includeRule : includeRules) {
+            writeRule(encoder, includeRule.getId(), includeRule.getMatcher(), includeRule.getConfigurations(), includeRule.getQualifiedExtraAttributes());
+        }
+
+        writeExcludeRules(encoder, dependency.getAllExcludeRules());
+    }
+
+    private DependencyDescriptor readDependency(Decoder decoder, DefaultModuleDescriptor md) throws Exception {
+        ModuleRevisionId revisionId = readRevisionId(decoder);
+        ModuleRevisionId dynamicRevisionId = readRevisionId(decoder);
+        boolean force = decoder.readBoolean();
+        boolean changing = decoder.readBoolean();
+        boolean transitive = decoder.readBoolean();
+        DefaultDependencyDescriptor dependency = new DefaultDependencyDescriptor(md, revisionId, dynamicRevisionId, force, changing, transitive);
+
+        int moduleConfigurationCount = decoder.readSmallInt();
+        for (int i = 0; i < moduleConfigurationCount; i++) {
+            String moduleConfiguration = decoder.readString();
+            for (String dependencyConfiguration : readStrings(decoder)) {
+                dependency.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+            }
+        }
+
+        int dependencyArtifactCount = decoder.readSmallInt();
+        for (int i = 0; i < dependencyArtifactCount; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readNullableString();
+            String url = decoder.readNullableString();
+            String[] configurations = readStrings(decoder);
+            DefaultDependencyArtifactDescriptor dependencyArtifact = new DefaultDependencyArtifactDescriptor(dependency, name, type, ext, url == null ? null : new URL(url), readStringMap(decoder));
+            for (String configuration : configurations) {
+                dependencyArtifact.addConfiguration(configuration);
+                dependency.addDependencyArtifact(configuration, dependencyArtifact);
+            }
+        }
+
+        int includeRuleCount = decoder.readSmallInt();
+        for (int i = 0; i < includeRuleCount; i++) {
+            ArtifactId id = readArtifactId(decoder);
+            PatternMatcher matcher = readMatcher(decoder);
+            String[] configurations = readStrings(decoder);
+            DefaultIncludeRule includeRule = new DefaultIncludeRule(id, matcher, readStringMap(decoder));
+            for (String configuration : configurations) {
+                includeRule.addConfiguration(configuration);
+                dependency.addIncludeRule(configuration, includeRule);
+            }
+        }
+
+        for (ExcludeRule excludeRule : readExcludeRules(decoder)) {
+            for (String configuration : excludeRule.getConfigurations()) {
+                dependency.addExcludeRule(configuration, excludeRule);
+            }
+        }
+        return dependency;
+    }
+
+    private void writeExcludeRules(Encoder encoder, ExcludeRule[] excludeRules) throws IOException {
+        encoder.writeSmallInt(excludeRules.length);
+        for (ExcludeRule excludeRule : excludeRules) {
+            writeRule(encoder, excludeRule.getId(), excludeRule.getMatcher(), excludeRule.getConfigurations(), excludeRule.getQualifiedExtraAttributes());
+        }
+    }
+
+    private List<ExcludeRule> readExcludeRules(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        List<ExcludeRule> excludeRules = new ArrayList<ExcludeRule>(count);
+        for (int i = 0; i < count; i++) {
+            ArtifactId id = readArtifactId(decoder);
+            PatternMatcher matcher = readMatcher(decoder);
+            String[] configurations = readStrings(decoder);
+            DefaultExcludeRule excludeRule = new DefaultExcludeRule(id, matcher, readStringMap(decoder));
+            for (String configuration : configurations) {
+                excludeRule.addConfiguration(configuration);
+            }
+            excludeRules.add(excludeRule);
+        }
+        return excludeRules;
+    }
+
+    private void writeRule(Encoder encoder, ArtifactId id, PatternMatcher matcher, String[] configurations, Map<String, String> extraAttributes) throws IOException {
+        encoder.writeString(id.getModuleId().getOrganisation());
+        encoder.writeString(id.getModuleId().getName());
+        encoder.writeString(id.getName());
+        encoder.writeString(id.getType());
+        encoder.writeString(id.getExt());
+        encoder.writeString(matcher.getName());
+        writeStrings(encoder, configurations);
+        writeStringMap(encoder, extraAttributes);
+    }
+
+    private ArtifactId readArtifactId(Decoder decoder) throws IOException {
+        String org = decoder.readString();
+        String module = decoder.readString();
+        return new ArtifactId(IvyUtil.createModuleId(org, module), decoder.readString(), decoder.readString(), decoder.readString());
+    }
+
+    private PatternMatcher readMatcher(Decoder decoder) throws IOException {
+        String matcherName = decoder.readString();
+        PatternMatcher matcher = resolverStrategy.getPatternMatcher(matcherName);
+        if (matcher == null) {
+            throw new IllegalArgumentException("unknown matcher " + matcherName);
+        }
+        return matcher;
+    }
+
+    private void writeRevisionId(Encoder encoder, ModuleRevisionId revisionId) throws IOException {
+        encoder.writeString(revisionId.getOrganisation());
+        encoder.writeString(revisionId.getName());
+        encoder.writeNullableString(revisionId.getBranch());
+        encoder.writeNullableString(revisionId.getRevision());
+        writeStringMap(encoder, revisionId.getQualifiedExtraAttributes());
+    }
+
+    private ModuleRevisionId readRevisionId(Decoder decoder) throws IOException {
+        String org = decoder.readString();
+        String name = decoder.readString();
+        String branch = decoder.readNullableString();
+        String revision = decoder.readNullableString();
+        // The branch has already been defaulted when the descriptor was parsed
+        return IvyUtil.createModuleRevisionId(org, name, branch, revision, readStringMap(decoder), false);
+    }
+
+    private void writeExtraInfo(Encoder encoder, Map<?, ?> extraInfo) throws IOException {
+        encoder.writeSmallInt(extraInfo.size());
+        for (Map.Entry<?, ?> entry : extraInfo.entrySet()) {
+            if (entry.getKey() instanceof NamespaceId) {
+                NamespaceId id = (NamespaceId) entry.getKey();
+                encoder.writeBoolean(true);
+                encoder.writeString(id.getNamespace());
+                encoder.writeString(id.getName());
+            } else {
+                encoder.writeBoolean(false);
+                encoder.writeString(entry.getKey().toString());
+            }
+            encoder.writeNullableString(entry.getValue() == null ? null : entry.getValue().toString());
+        }
+    }
+
+    private void readExtraInfo(Decoder decoder, Map extraInfo) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            Object key = decoder.readBoolean() ? new NamespaceId(decoder.readString(), decoder.readString()) : decoder.readString();
+            extraInfo.put(key, decoder.readNullableString());
+        }
+    }
+
+    private void writeDate(Encoder encoder, Date date) throws IOException {
+        encoder.writeBoolean(date != null);
+        if (date != null) {
+            encoder.writeLong(date.getTime());
+        }
+    }
+
+    private Date readDate(Decoder decoder) throws IOException {
+        return decoder.readBoolean() ? new Date(decoder.readLong()) : null;
+    }
+
+    private void writeStrings(Encoder encoder, String[] values) throws IOException {
+        encoder.writeSmallInt(values.length);
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+    }
+
+    private String[] readStrings(Decoder decoder) throws IOException {
+        String[] values = new String[decoder.readSmallInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = decoder.readString();
+        }
+        return values;
+    }
+
+    private void writeStringMap(Encoder encoder, Map<String, String> values) throws IOException {
+        if (values == null) {
+            encoder.writeSmallInt(0);
+            return;
+        }
+        encoder.writeSmallInt(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            encoder.writeString(entry.getKey());
+            encoder.writeString(entry.getValue());
+        }
+    }
+
+    private Map<String, String> readStringMap(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        Map<String, String> values = new LinkedHashMap<String, String>(count);
+        for (int i = 0; i < count; i++) {
+            values.put(decoder.readString(), decoder.readString());
+        }
+        return values;
+    }
+}
@@ -22,11 +22,13 @@ import org.gradle.api.internal.artifacts.ivyservice.IvyModuleDescriptorWriter;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser;
+import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 
 import java.io.File;
+import java.math.BigInteger;
 
 public class ModuleDescriptorStore {
 
@@ -34,20 +36,41 @@ public class ModuleDescriptorStore {
     private final IvyXmlModuleDescriptorParser descriptorParser;
     private final PathKeyFileStore metaDataStore;
     private final IvyModuleDescriptorWriter descriptorWriter;
+    private final ParsedModuleDescriptorCache parsedDescriptors;
+    private final PersistentIndexedCache<String, ModuleDescriptor> binaryDescriptors;
 
-    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser) {
+    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser,
+                                 ParsedModuleDescriptorCache parsedDescriptors, PersistentIndexedCache<String, ModuleDescriptor> binaryDescriptors) {
         this.metaDataStore = metaDataStore;
         this.descriptorWriter = descriptorWriter;
         this.descriptorParser = ivyXmlModuleDescriptorParser;
+        this.parsedDescriptors = parsedDescriptors;
+        this.binaryDescriptors = binaryDescriptors;
     }
 
-    public ModuleDescriptor getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
+    /**
+     * Returns the cached descriptor for the given module, or null if the descriptor file is not present.
+     * Reuses a previously parsed descriptor when one with the given SHA1 is available, either in memory or in the binary form
+     * written the first time the descriptor file was parsed.
+     */
+    public ModuleDescriptor getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, BigInteger descriptorHash) {
         String filePath = getFilePath(repository, moduleComponentIdentifier);
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
-        if (resource != null) {
-            return parseModuleDescriptorFile(resource.getFile());
+        if (resource == null) {
+            return null;
         }
-        return null;
+        ModuleDescriptor descriptor = parsedDescriptors.get(descriptorHash);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        String binaryKey = descriptorHash.toString(16);
+        descriptor = binaryDescriptors.get(binaryKey);
+        if (descriptor == null) {
+            descriptor = parseModuleDescriptorFile(resource.getFile());
+            binaryDescriptors.put(binaryKey, descriptor);
+        }
+        parsedDescriptors.put(descriptorHash, descriptor);
+        return descriptor;
     }
 
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, final ModuleDescriptor moduleDescriptor) {
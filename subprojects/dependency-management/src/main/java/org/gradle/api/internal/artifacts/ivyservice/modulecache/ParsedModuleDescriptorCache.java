@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+
+import java.math.BigInteger;
+
+/**
+ * Holds the module descriptors parsed from the module meta-data cache, keyed by the SHA1 of the cached descriptor file.
+ * This is shared by all builds run by the same process, so that a cached descriptor file is parsed only once until it changes.
+ * The parsed descriptors are not modified once created, so can be shared by concurrent resolves.
+ */
+public class ParsedModuleDescriptorCache {
+    private static final int MAX_ENTRIES = 10000;
+
+    private final Cache<BigInteger, ModuleDescriptor> descriptors = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).softValues().build();
+
+    public ModuleDescriptor get(BigInteger descriptorHash) {
+        return descriptors.getIfPresent(descriptorHash);
+    }
+
+    public void put(BigInteger descriptorHash, ModuleDescriptor descriptor) {
+        descriptors.put(descriptorHash, descriptor);
+    }
+}
@@ -42,6 +42,7 @@ public class DefaultCachePolicy implements CachePolicy, ResolutionRules {
     final List<Action<? super ModuleResolutionControl>> moduleCacheRules;
     final List<Action<? super ArtifactResolutionControl>> artifactCacheRules;
     private MutationValidator mutationValidator = MutationValidator.IGNORE;
+    private boolean cachingMissingModules;
 
     public DefaultCachePolicy() {
         this.dependencyCacheRules = new ArrayList<Action<? super DependencyResolutionControl>>();
@@ -57,6 +58,7 @@ public class DefaultCachePolicy implements CachePolicy, ResolutionRules {
         this.dependencyCacheRules = new ArrayList<Action<? super DependencyResolutionControl>>(policy.dependencyCacheRules);
         this.moduleCacheRules = new ArrayList<Action<? super ModuleResolutionControl>>(policy.moduleCacheRules);
         this.artifactCacheRules = new ArrayList<Action<? super ArtifactResolutionControl>>(policy.artifactCacheRules);
+        this.cachingMissingModules = policy.cachingMissingModules;
     }
 
     /**
@@ -116,6 +118,17 @@ public class DefaultCachePolicy implements CachePolicy, ResolutionRules {
         });
     }
 
+    public void cacheMissingModulesFor(final int value, final TimeUnit units) {
+        cachingMissingModules = true;
+        eachModule(new Action<ModuleResolutionControl>() {
+            public void execute(ModuleResolutionControl moduleResolutionControl) {
+                if (moduleResolutionControl.getCachedResult() == null) {
+                    moduleResolutionControl.cacheFor(value, units);
+                }
+            }
+        });
+    }
+
     public boolean mustRefreshVersionList(final ModuleIdentifier moduleIdentifier, Set<ModuleVersionIdentifier> matchingVersions, long ageMillis) {
         CachedDependencyResolutionControl dependencyResolutionControl = new CachedDependencyResolutionControl(moduleIdentifier, matchingVersions, ageMillis);
 
@@ -133,6 +146,10 @@ public class DefaultCachePolicy implements CachePolicy, ResolutionRules {
         return mustRefreshModule(component, null, ageMillis, false);
     }
 
+    public boolean isCachingMissingModules() {
+        return cachingMissingModules;
+    }
+
     public boolean mustRefreshModule(ModuleComponentIdentifier component, ResolvedModuleVersion resolvedModuleVersion, long ageMillis) {
         return mustRefreshModule(component, resolvedModuleVersion, ageMillis, false);
     }
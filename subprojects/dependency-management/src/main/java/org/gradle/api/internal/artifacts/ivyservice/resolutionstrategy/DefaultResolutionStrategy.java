@@ -128,6 +128,15 @@ public class DefaultResolutionStrategy implements ResolutionStrategyInternal {
         this.cachePolicy.cacheChangingModulesFor(value, units);
     }
 
+    public void cacheMissingModulesFor(int value, String units) {
+        NormalizedTimeUnit timeUnit = new TimeUnitsParser().parseNotation(units, value);
+        cacheMissingModulesFor(timeUnit.getValue(), timeUnit.getTimeUnit());
+    }
+
+    public void cacheMissingModulesFor(int value, TimeUnit units) {
+        this.cachePolicy.cacheMissingModulesFor(value, units);
+    }
+
     public ComponentSelectionRulesInternal getComponentSelection() {
         return componentSelectionRules;
     }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+
+/**
+ * Starts resolving the meta-data of components before the dependency graph traversal needs it.
+ */
+public interface ComponentMetaDataPrefetcher {
+    /**
+     * Starts resolving the meta-data of the given component, which the graph traversal is expected to resolve later using the given overrides.
+     * Does nothing when the meta-data cannot be resolved in the background.
+     */
+    void prefetch(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata);
+}
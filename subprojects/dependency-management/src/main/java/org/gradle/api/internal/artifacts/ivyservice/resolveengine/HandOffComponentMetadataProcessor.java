@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A {@link ComponentMetadataProcessor} that always applies the component metadata rules on the thread that resolves the graph. The rules are
+ * user code, which is not expected to be thread-safe.
+ *
+ * <p>When meta-data is resolved by another thread, that thread hands the meta-data over and waits until it has been processed. The resolving
+ * thread processes the handed over meta-data while it waits for the other threads, see {@link #processUntilDone(Future)}.</p>
+ */
+public class HandOffComponentMetadataProcessor implements ComponentMetadataProcessor {
+    private static final Runnable WAKE_UP = new Runnable() {
+        public void run() {
+        }
+    };
+    private final ComponentMetadataProcessor delegate;
+    private final CacheLockingManager cacheLockingManager;
+    private final Thread resolvingThread;
+    private final BlockingQueue<Runnable> handOffs = new LinkedBlockingQueue<Runnable>();
+    private boolean stopped;
+
+    /**
+     * Creates a processor for the current thread, which is the thread that resolves the graph.
+     */
+    public HandOffComponentMetadataProcessor(ComponentMetadataProcessor delegate, CacheLockingManager cacheLockingManager) {
+        this.delegate = delegate;
+        this.cacheLockingManager = cacheLockingManager;
+        this.resolvingThread = Thread.currentThread();
+    }
+
+    public void processMetadata(final MutableModuleComponentResolveMetaData metadata) {
+        if (Thread.currentThread() == resolvingThread) {
+            delegate.processMetadata(metadata);
+            return;
+        }
+
+        final FutureTask<Void> handOff = new FutureTask<Void>(new Runnable() {
+            public void run() {
+                delegate.processMetadata(metadata);
+            }
+        }, null);
+        synchronized (this) {
+            if (stopped) {
+                throw new IllegalStateException(String.format("Cannot process meta-data for %s, as the resolution has completed.", metadata.getComponentId()));
+            }
+            handOffs.add(handOff);
+        }
+        // Give up the cache lock while waiting, as the resolving thread may need it
+        cacheLockingManager.longRunningOperation(String.format("Wait for processing of meta-data for %s", metadata.getComponentId()), new Runnable() {
+            public void run() {
+                try {
+                    handOff.get();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } catch (ExecutionException e) {
+                    throw UncheckedException.throwAsUncheckedException(e.getCause());
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for the given work to complete, processing any meta-data handed over by other threads in the meantime. Must be called from
+     * the resolving thread. The work must call {@link #wakeUp()} once it has completed.
+     */
+    public void processUntilDone(Future<?> work) {
+        assert Thread.currentThread() == resolvingThread;
+        while (!work.isDone()) {
+            try {
+                handOffs.take().run();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    /**
+     * Wakes up the resolving thread, if it is waiting in {@link #processUntilDone(Future)}.
+     */
+    public void wakeUp() {
+        handOffs.add(WAKE_UP);
+    }
+
+    /**
+     * Fails any meta-data that has been handed over and not yet processed, and any meta-data handed over later.
+     */
+    public void stop() {
+        List<Runnable> pending = new ArrayList<Runnable>();
+        synchronized (this) {
+            stopped = true;
+            handOffs.drainTo(pending);
+        }
+        for (Runnable handOff : pending) {
+            if (handOff instanceof Future) {
+                ((Future<?>) handOff).cancel(false);
+            }
+        }
+    }
+}
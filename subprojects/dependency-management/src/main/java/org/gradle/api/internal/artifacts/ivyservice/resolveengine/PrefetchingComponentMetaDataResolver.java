@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.apache.ivy.Ivy;
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.ResourceAwareResolveResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A {@link ComponentMetaDataResolver} that can resolve the meta-data of components in the background, so that the meta-data for the
+ * dependencies of a component can be fetched from remote repositories concurrently.
+ *
+ * <p>Only module components without any overrides are prefetched. The graph traversal asks for a component to be prefetched once a
+ * dependency has been resolved to it, see {@link ComponentMetaDataPrefetcher}. When the component is later resolved by the graph traversal,
+ * the prefetched result is used if it is for the same component, otherwise the delegate is called as usual. The prefetch does the same work as the delegate would, so the result does not depend on whether it
+ * was prefetched. Component metadata rules are applied by the resolving thread, using the given {@link HandOffComponentMetadataProcessor}.</p>
+ *
+ * <p>The prefetch and resolve methods must be called from the thread that resolves the graph, while it holds the cache lock.</p>
+ */
+public class PrefetchingComponentMetaDataResolver implements ComponentMetaDataResolver, ComponentMetaDataPrefetcher, Stoppable {
+    private static final int MAX_CONCURRENT_REQUESTS = 8;
+    private final ComponentMetaDataResolver delegate;
+    private final CacheLockingManager cacheLockingManager;
+    private final IvyContextManager ivyContextManager;
+    private final ExecutorFactory executorFactory;
+    private final HandOffComponentMetadataProcessor metadataProcessor;
+    private final Map<ComponentIdentifier, FutureTask<DefaultBuildableComponentResolveResult>> prefetched = new HashMap<ComponentIdentifier, FutureTask<DefaultBuildableComponentResolveResult>>();
+    private StoppableExecutor executor;
+
+    public PrefetchingComponentMetaDataResolver(ComponentMetaDataResolver delegate, CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager,
+                                                ExecutorFactory executorFactory, HandOffComponentMetadataProcessor metadataProcessor) {
+        this.delegate = delegate;
+        this.cacheLockingManager = cacheLockingManager;
+        this.ivyContextManager = ivyContextManager;
+        this.executorFactory = executorFactory;
+        this.metadataProcessor = metadataProcessor;
+    }
+
+    public void prefetch(final ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata) {
+        if (!(identifier instanceof ModuleComponentIdentifier) || !isDefault(componentOverrideMetadata)) {
+            return;
+        }
+        if (prefetched.containsKey(identifier)) {
+            return;
+        }
+        FutureTask<DefaultBuildableComponentResolveResult> task = new FutureTask<DefaultBuildableComponentResolveResult>(new Callable<DefaultBuildableComponentResolveResult>() {
+            public DefaultBuildableComponentResolveResult call() {
+                final DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+                cacheLockingManager.useCache(String.format("Resolve %s", identifier), new Runnable() {
+                    public void run() {
+                        ivyContextManager.withIvy(new Action<Ivy>() {
+                            public void execute(Ivy ivy) {
+                                delegate.resolve(identifier, new DefaultComponentOverrideMetadata(), result);
+                            }
+                        });
+                    }
+                });
+                return result;
+            }
+        }) {
+            @Override
+            protected void done() {
+                metadataProcessor.wakeUp();
+            }
+        };
+        prefetched.put(identifier, task);
+        if (executor == null) {
+            executor = executorFactory.create("Resolve component meta-data", MAX_CONCURRENT_REQUESTS);
+        }
+        executor.execute(task);
+    }
+
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        FutureTask<DefaultBuildableComponentResolveResult> task = isDefault(componentOverrideMetadata) ? prefetched.remove(identifier) : null;
+        if (task == null) {
+            delegate.resolve(identifier, componentOverrideMetadata, result);
+            return;
+        }
+
+        DefaultBuildableComponentResolveResult prefetchedResult = waitFor(identifier, task);
+        prefetchedResult.applyTo((ResourceAwareResolveResult) result);
+        if (prefetchedResult.getFailure() != null) {
+            result.failed(prefetchedResult.getFailure());
+        } else {
+            result.resolved(prefetchedResult.getMetaData());
+        }
+    }
+
+    private DefaultBuildableComponentResolveResult waitFor(ComponentIdentifier identifier, final FutureTask<DefaultBuildableComponentResolveResult> task) {
+        // Give up the cache lock while waiting, as the task needs it
+        return cacheLockingManager.longRunningOperation(String.format("Wait for meta-data of %s", identifier), new Factory<DefaultBuildableComponentResolveResult>() {
+            public DefaultBuildableComponentResolveResult create() {
+                metadataProcessor.processUntilDone(task);
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } catch (ExecutionException e) {
+                    throw UncheckedException.throwAsUncheckedException(e.getCause());
+                }
+            }
+        });
+    }
+
+    /**
+     * Discards the meta-data that has not been used, and waits for any requests in progress to complete.
+     */
+    public void stop() {
+        for (FutureTask<DefaultBuildableComponentResolveResult> task : prefetched.values()) {
+            task.cancel(false);
+        }
+        prefetched.clear();
+        // Requests in progress may be waiting for the resolving thread to process their meta-data, which it no longer does
+        metadataProcessor.stop();
+        if (executor == null) {
+            return;
+        }
+        cacheLockingManager.longRunningOperation("Wait for meta-data requests to complete", new Runnable() {
+            public void run() {
+                executor.stop();
+            }
+        });
+    }
+
+    private static boolean isDefault(ComponentOverrideMetadata componentOverrideMetadata) {
+        return !componentOverrideMetadata.isChanging() && componentOverrideMetadata.getArtifacts().isEmpty() && componentOverrideMetadata.getClientModule() == null;
+    }
+}
@@ -51,12 +51,17 @@ import java.util.*;
 
 public class DependencyGraphBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
+    private static final ComponentMetaDataPrefetcher NO_PREFETCH = new ComponentMetaDataPrefetcher() {
+        public void prefetch(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata) {
+        }
+    };
     private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
     private final ConflictHandler conflictHandler;
     private final ModuleToComponentResolver moduleResolver;
     private final ArtifactResolver artifactResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ComponentMetaDataPrefetcher prefetcher;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver idResolver,
                                   ComponentMetaDataResolver metaDataResolver,
@@ -64,6 +69,17 @@ public class DependencyGraphBuilder {
                                   ArtifactResolver artifactResolver,
                                   ConflictHandler conflictHandler,
                                   DependencyToConfigurationResolver dependencyToConfigurationResolver) {
+        this(idResolver, metaDataResolver, moduleResolver, artifactResolver, conflictHandler, dependencyToConfigurationResolver, NO_PREFETCH);
+    }
+
+    public DependencyGraphBuilder(DependencyToComponentIdResolver idResolver,
+                                  ComponentMetaDataResolver metaDataResolver,
+                                  ModuleToComponentResolver moduleResolver,
+                                  ArtifactResolver artifactResolver,
+                                  ConflictHandler conflictHandler,
+                                  DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ComponentMetaDataPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
         this.idResolver = idResolver;
         this.metaDataResolver = metaDataResolver;
         this.moduleResolver = moduleResolver;
@@ -113,6 +129,11 @@ public class DependencyGraphBuilder {
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
 
+                // Start fetching the meta-data for the target versions of all edges that are expected to be selected, so that it can be downloaded concurrently
+                for (DependencyEdge dependency : dependencies) {
+                    dependency.prefetch(prefetcher);
+                }
+
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
 
@@ -236,6 +257,17 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        /**
+         * Resolves the target version of this edge and starts fetching its meta-data, unless the version is already known to take part in a
+         * conflict, so that meta-data is not fetched for versions that are likely to be evicted.
+         */
+        public void prefetch(ComponentMetaDataPrefetcher prefetcher) {
+            ModuleVersionResolveState moduleRevision = resolveModuleRevisionId();
+            if (moduleRevision != null && moduleRevision.isOnlyCandidate()) {
+                moduleRevision.prefetch(prefetcher);
+            }
+        }
+
         public boolean isTransitive() {
             return from.isTransitive() && dependencyMetaData.isTransitive();
         }
@@ -587,6 +619,27 @@ public class DependencyGraphBuilder {
             return metaData;
         }
 
+        /**
+         * Returns true if this is the only version of its module seen so far, and it has not been evicted.
+         */
+        public boolean isOnlyCandidate() {
+            return module.versions.size() == 1 && (state == ModuleState.New || state == ModuleState.Selected);
+        }
+
+        /**
+         * Starts fetching the meta-data for this module version, if {@link #resolve()} will need to fetch it.
+         */
+        public void prefetch(ComponentMetaDataPrefetcher prefetcher) {
+            if (metaData != null || failure != null) {
+                return;
+            }
+            ComponentIdResolveResult idResolveResult = firstReference.idResolveResult;
+            if (idResolveResult.getFailure() != null || idResolveResult.getMetaData() != null) {
+                return;
+            }
+            prefetcher.prefetch(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData));
+        }
+
         public void setMetaData(ComponentResolveMetaData metaData) {
             this.metaData = metaData;
             this.failure = null;
@@ -846,6 +899,10 @@ public class DependencyGraphBuilder {
             return targetModule;
         }
 
+        public boolean isResolved() {
+            return targetModuleRevision != null || failure != null;
+        }
+
         /**
          * @return The module version, or null if there is a failure to resolve this selector.
          */
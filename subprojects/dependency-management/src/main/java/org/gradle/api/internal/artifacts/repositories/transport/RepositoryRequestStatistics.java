@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.repositories.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The number of requests made to a repository, and the time spent waiting for them.
+ */
+class RepositoryRequestStatistics {
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+
+    void requestCompleted(long timeMillis) {
+        requestCount.incrementAndGet();
+        totalTime.addAndGet(timeMillis);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * The total time spent waiting for requests, in milliseconds.
+     */
+    public long getTotalTime() {
+        return totalTime.get();
+    }
+
+    @Override
+    public String toString() {
+        long requests = requestCount.get();
+        long time = totalTime.get();
+        return String.format("Requests{%d}, Time{%d ms}, Average{%d ms}", requests, time, requests == 0 ? 0 : time / requests);
+    }
+}
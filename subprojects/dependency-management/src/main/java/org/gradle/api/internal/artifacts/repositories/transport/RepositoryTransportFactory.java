@@ -16,12 +16,16 @@
 package org.gradle.api.internal.artifacts.repositories.transport;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.artifacts.repositories.PasswordCredentials;
 import org.gradle.api.credentials.Credentials;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.resource.cached.CachedExternalResourceIndex;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.resource.connector.ResourceConnectorSpecification;
@@ -34,10 +38,14 @@ import org.gradle.util.BuildCommencedTimeProvider;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-public class RepositoryTransportFactory {
+public class RepositoryTransportFactory implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(RepositoryTransportFactory.class);
     private final List<ResourceConnectorFactory> registeredProtocols = Lists.newArrayList();
+    // Transports are created for each resolve, so the statistics are kept by repository name for the lifetime of the factory
+    private final Map<String, RepositoryRequestStatistics> statistics = Maps.newLinkedHashMap();
 
     private final TemporaryFileProvider temporaryFileProvider;
     private final CachedExternalResourceIndex<String> cachedExternalResourceIndex;
@@ -99,9 +107,35 @@ public class RepositoryTransportFactory {
         }
         ResourceConnectorSpecification connectionDetails = new DefaultResourceConnectorSpecification(credentials);
         ExternalResourceConnector resourceConnector = findConnectorFactory(schemes).createResourceConnector(connectionDetails);
+        resourceConnector = new StatisticsCollectingExternalResourceConnector(resourceConnector, statisticsFor(name));
         return new ResourceConnectorRepositoryTransport(name, progressLoggerFactory, temporaryFileProvider, cachedExternalResourceIndex, timeProvider, cacheLockingManager, resourceConnector);
     }
 
+    private RepositoryRequestStatistics statisticsFor(String name) {
+        synchronized (statistics) {
+            RepositoryRequestStatistics repositoryStatistics = statistics.get(name);
+            if (repositoryStatistics == null) {
+                repositoryStatistics = new RepositoryRequestStatistics();
+                statistics.put(name, repositoryStatistics);
+            }
+            return repositoryStatistics;
+        }
+    }
+
+    /**
+     * Reports the requests made to each repository.
+     */
+    public void stop() {
+        synchronized (statistics) {
+            for (Map.Entry<String, RepositoryRequestStatistics> entry : statistics.entrySet()) {
+                if (entry.getValue().getRequestCount() > 0) {
+                    LOGGER.info("Requests to repository '{}': {}", entry.getKey(), entry.getValue());
+                }
+            }
+            statistics.clear();
+        }
+    }
+
     private void validateSchemes(Set<String> schemes) {
         Set<String> validSchemes = getRegisteredProtocols();
         for (String scheme : schemes) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.repositories.transport;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.resource.local.LocalResource;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.ExternalResourceConnector;
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Records the number and duration of the requests made through a connector. The time to read the content of a resource is not included.
+ */
+class StatisticsCollectingExternalResourceConnector implements ExternalResourceConnector {
+    private final ExternalResourceConnector delegate;
+    private final RepositoryRequestStatistics statistics;
+
+    StatisticsCollectingExternalResourceConnector(ExternalResourceConnector delegate, RepositoryRequestStatistics statistics) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+    }
+
+    @Nullable
+    public ExternalResourceReadResponse openResource(URI location) {
+        long start = System.currentTimeMillis();
+        try {
+            return delegate.openResource(location);
+        } finally {
+            statistics.requestCompleted(System.currentTimeMillis() - start);
+        }
+    }
+
+    @Nullable
+    public ExternalResourceMetaData getMetaData(URI location) {
+        long start = System.currentTimeMillis();
+        try {
+            return delegate.getMetaData(location);
+        } finally {
+            statistics.requestCompleted(System.currentTimeMillis() - start);
+        }
+    }
+
+    @Nullable
+    public List<String> list(URI parent) {
+        long start = System.currentTimeMillis();
+        try {
+            return delegate.list(parent);
+        } finally {
+            statistics.requestCompleted(System.currentTimeMillis() - start);
+        }
+    }
+
+    public void upload(LocalResource resource, URI destination) throws IOException {
+        long start = System.currentTimeMillis();
+        try {
+            delegate.upload(resource, destination);
+        } finally {
+            statistics.requestCompleted(System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedArtifactResults
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedGraphResults
+import org.gradle.api.specs.Specs
+import org.gradle.internal.Factory
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resolve.ArtifactResolveException
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+
+class DefaultLenientConfigurationTest extends Specification {
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        useCache(_, _ as Factory) >> { String name, Factory action -> action.create() }
+        longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
+    def artifactResults = Stub(ResolvedArtifactResults)
+    def executorFactory = new DefaultExecutorFactory()
+    def configuration = new DefaultLenientConfiguration(Stub(Configuration), cacheLockingManager, executorFactory, Stub(ResolvedGraphResults), artifactResults, Stub(Factory))
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "resolves the files of all artifacts and returns them in order"() {
+        def source1 = Mock(Factory)
+        def source2 = Mock(Factory)
+        def source3 = Mock(Factory)
+        def file1 = new File("one.jar")
+        def file2 = new File("two.jar")
+        def file3 = new File("three.jar")
+        artifactResults.artifacts >> ([artifact("one", source1), artifact("two", source2), artifact("three", source3)] as LinkedHashSet)
+
+        when:
+        def files = configuration.getFiles(Specs.SATISFIES_ALL)
+
+        then:
+        files as List == [file1, file2, file3]
+
+        and:
+        1 * source1.create() >> file1
+        1 * source2.create() >> file2
+        1 * source3.create() >> file3
+        0 * _._
+    }
+
+    def "does not resolve the files of artifacts again"() {
+        def source1 = Mock(Factory)
+        def source2 = Mock(Factory)
+        def file1 = new File("one.jar")
+        def file2 = new File("two.jar")
+        artifactResults.artifacts >> ([artifact("one", source1), artifact("two", source2)] as LinkedHashSet)
+
+        when:
+        configuration.getFiles(Specs.SATISFIES_ALL)
+        def files = configuration.getFiles(Specs.SATISFIES_ALL)
+
+        then:
+        files as List == [file1, file2]
+
+        and:
+        1 * source1.create() >> file1
+        1 * source2.create() >> file2
+        0 * _._
+    }
+
+    def "excludes artifacts that cannot be resolved"() {
+        def file1 = new File("one.jar")
+        def resolved = artifact("one", Stub(Factory) { create() >> file1 })
+        def broken = artifact("two", Stub(Factory) { create() >> { throw new ArtifactResolveException("broken") } })
+        artifactResults.artifacts >> ([resolved, broken] as LinkedHashSet)
+
+        expect:
+        configuration.getArtifacts(Specs.SATISFIES_ALL) == [resolved] as Set
+    }
+
+    def "resolves the files of artifacts concurrently"() {
+        def file1 = new File("one.jar")
+        def file2 = new File("two.jar")
+        def started1 = new CountDownLatch(1)
+        def started2 = new CountDownLatch(1)
+        // Each source waits for the other one to start, so both must run at the same time
+        def source1 = { started1.countDown(); assert started2.await(20, TimeUnit.SECONDS); file1 } as Factory
+        def source2 = { started2.countDown(); assert started1.await(20, TimeUnit.SECONDS); file2 } as Factory
+        artifactResults.artifacts >> ([artifact("one", source1), artifact("two", source2)] as LinkedHashSet)
+
+        expect:
+        configuration.getFiles(Specs.SATISFIES_ALL) as List == [file1, file2]
+    }
+
+    def "releases the cache lock while the files of artifacts are resolved"() {
+        def lock = new ReentrantLock()
+        def cacheLockingManager = Stub(CacheLockingManager) {
+            useCache(_, _ as Runnable) >> { String name, Runnable action -> withLock(lock) { action.run() } }
+            useCache(_, _ as Factory) >> { String name, Factory action -> withLock(lock) { action.create() } }
+            longRunningOperation(_, _ as Runnable) >> { String name, Runnable action ->
+                lock.unlock()
+                try {
+                    action.run()
+                } finally {
+                    lock.lock()
+                }
+            }
+        }
+        def configuration = new DefaultLenientConfiguration(Stub(Configuration), cacheLockingManager, executorFactory, Stub(ResolvedGraphResults), artifactResults, Stub(Factory))
+        def file1 = new File("one.jar")
+        def file2 = new File("two.jar")
+        // Each source takes the cache lock, as the artifact resolvers do
+        def source1 = { cacheLockingManager.useCache("download one", { file1 } as Factory) } as Factory
+        def source2 = { cacheLockingManager.useCache("download two", { file2 } as Factory) } as Factory
+        artifactResults.artifacts >> ([artifact("one", source1), artifact("two", source2)] as LinkedHashSet)
+
+        expect:
+        configuration.getFiles(Specs.SATISFIES_ALL) as List == [file1, file2]
+        !lock.locked
+    }
+
+    def "reports any failure to resolve a file concurrently when the file is requested"() {
+        def failure = new RuntimeException("broken")
+        def source1 = Mock(Factory)
+        def source2 = Mock(Factory)
+        def resolved = artifact("one", source1)
+        def broken = artifact("two", source2)
+        artifactResults.artifacts >> ([resolved, broken] as LinkedHashSet)
+
+        when:
+        configuration.getFiles(Specs.SATISFIES_ALL)
+
+        then:
+        RuntimeException e = thrown()
+        e.is(failure)
+
+        and:
+        1 * source1.create() >> new File("one.jar")
+        1 * source2.create() >> { throw failure }
+        0 * _._
+
+        when:
+        def file = broken.file
+
+        then:
+        file == new File("two.jar")
+        1 * source2.create() >> new File("two.jar")
+    }
+
+    def withLock(ReentrantLock lock, Closure action) {
+        assert lock.tryLock(20, TimeUnit.SECONDS)
+        try {
+            return action.call()
+        } finally {
+            lock.unlock()
+        }
+    }
+
+    def artifact(String name, Factory<File> source) {
+        def moduleVersion = Stub(ResolvedModuleVersion) {
+            getId() >> new DefaultModuleVersionIdentifier("group", name, "1.0")
+        }
+        return new DefaultResolvedArtifact(moduleVersion, Stub(IvyArtifactName), source)
+    }
+}
@@ -149,4 +149,99 @@ class CachingModuleComponentRepositoryTest extends Specification {
         }
         0 * _
     }
+
+    def "uses cached missing module as authoritative result when missing modules are cached"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def requestMetaData = Stub(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+        def cachedMetaData = Stub(ModuleMetaDataCache.CachedMetaData) {
+            isMissing() >> true
+            getAgeMillis() >> 1000
+        }
+        cachePolicy.isCachingMissingModules() >> true
+        cachePolicy.mustRefreshMissingModule(componentId, 1000) >> false
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+
+        then:
+        1 * moduleDescriptorCache.getCachedModuleDescriptor(realRepo, componentId) >> cachedMetaData
+
+        and:
+        result.state == BuildableModuleComponentMetaDataResolveResult.State.Missing
+        result.authoritative
+    }
+
+    def "cached missing module from a previous build is not authoritative by default"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def requestMetaData = Stub(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+        def cachedMetaData = Stub(ModuleMetaDataCache.CachedMetaData) {
+            isMissing() >> true
+            getAgeMillis() >> ageMillis
+        }
+        cachePolicy.isCachingMissingModules() >> false
+        cachePolicy.mustRefreshMissingModule(componentId, ageMillis) >> false
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+
+        then:
+        1 * moduleDescriptorCache.getCachedModuleDescriptor(realRepo, componentId) >> cachedMetaData
+
+        and:
+        result.state == BuildableModuleComponentMetaDataResolveResult.State.Missing
+        result.authoritative == authoritative
+
+        where:
+        ageMillis | authoritative
+        0         | true
+        1000      | false
+    }
+
+    def "does not use cached missing module when it has expired"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def requestMetaData = Stub(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+        def cachedMetaData = Stub(ModuleMetaDataCache.CachedMetaData) {
+            isMissing() >> true
+            getAgeMillis() >> 1000
+        }
+        cachePolicy.isCachingMissingModules() >> true
+        cachePolicy.mustRefreshMissingModule(componentId, 1000) >> true
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+
+        then:
+        1 * moduleDescriptorCache.getCachedModuleDescriptor(realRepo, componentId) >> cachedMetaData
+
+        and:
+        !result.hasResult()
+    }
+
+    def "cached missing module is not authoritative for changing request when changing module timeout has expired"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def requestMetaData = Stub(ComponentOverrideMetadata) {
+            isChanging() >> true
+        }
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+        def cachedMetaData = Stub(ModuleMetaDataCache.CachedMetaData) {
+            isMissing() >> true
+            getAgeMillis() >> 1000
+        }
+        cachePolicy.isCachingMissingModules() >> true
+        cachePolicy.mustRefreshMissingModule(componentId, 1000) >> false
+        cachePolicy.mustRefreshChangingModule(componentId, null, 1000) >> true
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, requestMetaData, result)
+
+        then:
+        1 * moduleDescriptorCache.getCachedModuleDescriptor(realRepo, componentId) >> cachedMetaData
+
+        and:
+        result.state == BuildableModuleComponentMetaDataResolveResult.State.Missing
+        !result.authoritative
+    }
 }
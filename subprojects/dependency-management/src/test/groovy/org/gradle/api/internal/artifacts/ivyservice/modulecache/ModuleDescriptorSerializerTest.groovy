@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleDescriptorSerializerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def resolverStrategy = new ResolverStrategy()
+    def parser = new IvyXmlModuleDescriptorParser(resolverStrategy)
+    def writer = new IvyXmlModuleDescriptorWriter()
+    def serializer = new ModuleDescriptorSerializer(resolverStrategy)
+
+    def "round trips minimal descriptor"() {
+        given:
+        def descriptor = parse """
+<ivy-module version="2.0">
+    <info organisation="myorg" module="mymodule" revision="1.0"/>
+</ivy-module>
+"""
+
+        when:
+        def result = roundTrip(descriptor)
+
+        then:
+        result.moduleRevisionId == descriptor.moduleRevisionId
+        result.status == "integration"
+        result.configurationsNames == ["default"] as String[]
+        result.getArtifacts("default")*.name == ["mymodule"]
+        result.dependencies.length == 0
+        asXml(result) == asXml(descriptor)
+    }
+
+    def "round trips descriptor written to the meta-data cache"() {
+        given:
+        def descriptor = parse """
+<ivy-module version="2.0" xmlns:m="http://ant.apache.org/ivy/maven">
+    <info organisation="myorg" module="mymodule" branch="mybranch" revision="1.0" status="release" publication="20150601120000" m:classifier="jdk15">
+        <license name="Apache" url="http://www.apache.org/licenses/LICENSE-2.0"/>
+        <description homepage="http://example.com">Some module</description>
+        <m:properties__some.property>some value</m:properties__some.property>
+    </info>
+    <configurations>
+        <conf name="compile" description="Compile classpath"/>
+        <conf name="runtime" extends="compile"/>
+        <conf name="test" visibility="private" extends="runtime" transitive="false"/>
+        <conf name="old" deprecated="use runtime"/>
+    </configurations>
+    <publications>
+        <artifact name="mymodule" type="jar" ext="jar" conf="compile"/>
+        <artifact name="mymodule" type="source" ext="jar" conf="runtime,test" m:classifier="sources"/>
+    </publications>
+    <dependencies>
+        <dependency org="org1" name="dep1" rev="1.2" revConstraint="1.+" conf="compile->default;runtime->runtime,master"/>
+        <dependency org="org2" name="dep2" branch="trunk" rev="2.0" force="true" changing="true" transitive="false" conf="*->@">
+            <artifact name="dep2" type="jar" ext="jar" conf="compile" m:classifier="tests"/>
+            <include name="dep2-api" type="jar" ext="jar" matcher="glob"/>
+            <exclude org="excluded" module="thing" name="*" type="*" ext="*" conf="runtime" matcher="exact"/>
+        </dependency>
+        <exclude org="org3" module="module3" artifact="*" type="*" ext="*" matcher="regexp"/>
+    </dependencies>
+</ivy-module>
+"""
+
+        when:
+        def result = roundTrip(descriptor)
+
+        then:
+        result.moduleRevisionId == descriptor.moduleRevisionId
+        result.resolvedModuleRevisionId == descriptor.resolvedModuleRevisionId
+        result.moduleRevisionId.branch == "mybranch"
+        result.qualifiedExtraAttributes == ["m:classifier": "jdk15"]
+        result.publicationDate == descriptor.publicationDate
+        result.status == "release"
+        result.licenses*.name == ["Apache"]
+        result.homePage == "http://example.com"
+        result.description == "Some module"
+        result.extraInfo == [(new NamespaceId("http://ant.apache.org/ivy/maven", "properties__some.property")): "some value"]
+        result.configurations == descriptor.configurations
+        result.getConfiguration("test").transitive == false
+        result.getConfiguration("old").deprecated == "use runtime"
+        result.getArtifacts("test")*.type == ["source"]
+        result.getArtifacts("test")[0].qualifiedExtraAttributes == ["m:classifier": "sources"]
+
+        def dep1 = result.dependencies[0]
+        dep1.dependencyRevisionId == descriptor.dependencies[0].dependencyRevisionId
+        dep1.dynamicConstraintDependencyRevisionId.revision == "1.+"
+        dep1.getDependencyConfigurations("runtime") == ["runtime", "master"] as String[]
+
+        def dep2 = result.dependencies[1]
+        dep2.force
+        dep2.changing
+        !dep2.transitive
+        dep2.getDependencyArtifacts("compile")*.name == ["dep2"]
+        dep2.allIncludeRules*.matcher*.name == ["glob"]
+        dep2.getExcludeRules("runtime")*.id*.moduleId*.organisation == ["excluded"]
+        dep2.getExcludeRules("compile").length == 0
+
+        result.allExcludeRules*.matcher*.name == ["regexp"]
+
+        and:
+        asXml(result) == asXml(descriptor)
+    }
+
+    ModuleDescriptor parse(String text) {
+        def file = temporaryFolder.createFile("ivy.xml")
+        file.text = text
+        return parser.parseMetaData(Stub(DescriptorParseContext), file, false).descriptor
+    }
+
+    ModuleDescriptor roundTrip(ModuleDescriptor descriptor) {
+        def outputStream = new ByteArrayOutputStream()
+        def encoder = new KryoBackedEncoder(outputStream)
+        serializer.write(encoder, descriptor)
+        encoder.flush()
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(outputStream.toByteArray())))
+    }
+
+    String asXml(ModuleDescriptor descriptor) {
+        def file = temporaryFolder.file("written/ivy-${System.identityHashCode(descriptor)}.xml")
+        writer.write(descriptor, file)
+        return file.text
+    }
+}
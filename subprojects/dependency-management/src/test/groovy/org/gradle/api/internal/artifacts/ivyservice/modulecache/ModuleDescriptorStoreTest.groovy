@@ -21,6 +21,8 @@ import org.gradle.api.artifacts.component.ModuleComponentIdentifier
 import org.gradle.api.internal.artifacts.ivyservice.IvyModuleDescriptorWriter
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData
 
 import org.gradle.internal.resource.local.LocallyAvailableResource
 import org.gradle.internal.resource.local.PathKeyFileStore
@@ -39,9 +41,12 @@ class ModuleDescriptorStoreTest extends Specification {
     IvyModuleDescriptorWriter ivyModuleDescriptorWriter = Mock()
     IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser = Mock()
     ModuleComponentIdentifier moduleComponentIdentifier = Mock()
+    ParsedModuleDescriptorCache parsedDescriptors = new ParsedModuleDescriptorCache()
+    PersistentIndexedCache<String, ModuleDescriptor> binaryDescriptors = Mock()
+    def descriptorHash = BigInteger.valueOf(1234)
 
     def setup() {
-        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser);
+        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, parsedDescriptors, binaryDescriptors);
         _ * repository.getId() >> "repositoryId"
         _ * moduleComponentIdentifier.group >> "org.test"
         _ * moduleComponentIdentifier.module >> "testArtifact"
@@ -52,16 +57,83 @@ class ModuleDescriptorStoreTest extends Specification {
         when:
         pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
         then:
-        null == store.getModuleDescriptor(repository, moduleComponentIdentifier)
+        null == store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash)
     }
 
     def "getModuleDescriptorFile uses PathKeyFileStore to get file"() {
         when:
-        store.getModuleDescriptor(repository, moduleComponentIdentifier);
+        store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash);
         then:
         1 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
     }
 
+    def "reuses previously parsed descriptor with same hash"() {
+        given:
+        def descriptorFile = temporaryFolder.createFile("ivy.xml")
+        def metaData = Stub(MutableModuleComponentResolveMetaData) {
+            getDescriptor() >> moduleDescriptor
+        }
+        _ * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> fileStoreEntry
+        _ * fileStoreEntry.file >> descriptorFile
+
+        when:
+        def first = store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash)
+        def second = store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash)
+
+        then:
+        first == moduleDescriptor
+        second == moduleDescriptor
+        1 * binaryDescriptors.get("4d2") >> null
+        1 * ivyXmlModuleDescriptorParser.parseMetaData(_, descriptorFile, false) >> metaData
+        1 * binaryDescriptors.put("4d2", moduleDescriptor)
+    }
+
+    def "reuses binary form of descriptor with same hash without parsing descriptor file"() {
+        given:
+        def descriptorFile = temporaryFolder.createFile("ivy.xml")
+        _ * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> fileStoreEntry
+        _ * fileStoreEntry.file >> descriptorFile
+
+        when:
+        def first = store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash)
+        def second = store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash)
+
+        then:
+        first == moduleDescriptor
+        second == moduleDescriptor
+        1 * binaryDescriptors.get("4d2") >> moduleDescriptor
+        0 * ivyXmlModuleDescriptorParser._
+        0 * binaryDescriptors.put(_, _)
+    }
+
+    def "parses descriptor again when hash changes"() {
+        given:
+        def descriptorFile = temporaryFolder.createFile("ivy.xml")
+        def metaData = Stub(MutableModuleComponentResolveMetaData) {
+            getDescriptor() >> moduleDescriptor
+        }
+        _ * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> fileStoreEntry
+        _ * fileStoreEntry.file >> descriptorFile
+
+        when:
+        store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash)
+        store.getModuleDescriptor(repository, moduleComponentIdentifier, BigInteger.valueOf(5678))
+
+        then:
+        1 * binaryDescriptors.get("4d2") >> null
+        1 * binaryDescriptors.get("162e") >> null
+        2 * ivyXmlModuleDescriptorParser.parseMetaData(_, descriptorFile, false) >> metaData
+    }
+
+    def "does not use parsed descriptor when descriptor file has been removed"() {
+        given:
+        parsedDescriptors.put(descriptorHash, moduleDescriptor)
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
+
+        expect:
+        store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash) == null
+    }
+
     def "putModuleDescriptor uses PathKeyFileStore to write file"() {
         setup:
         File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
@@ -192,6 +192,27 @@ public class DefaultCachePolicySpec extends Specification {
         hasMissingArtifactTimeout(20 * SECOND)
     }
 
+    def "does not cache missing modules by default"() {
+        expect:
+        !cachePolicy.cachingMissingModules
+    }
+
+    def "uses missing module timeout for missing modules"() {
+        when:
+        cachePolicy.cacheMissingModulesFor(10, TimeUnit.SECONDS)
+
+        then:
+        cachePolicy.cachingMissingModules
+        hasDynamicVersionTimeout(DAY)
+        hasChangingModuleTimeout(DAY)
+        hasModuleTimeout(FOREVER)
+        hasMissingArtifactTimeout(DAY)
+        hasMissingModuleTimeout(10 * SECOND)
+
+        and:
+        cachePolicy.copy().cachingMissingModules
+    }
+
     def "must refresh artifact for changing modules when moduledescriptorhash not in sync"() {
         expect:
         !cachePolicy.mustRefreshArtifact(null, null, 1000, false, true)
@@ -169,6 +169,14 @@ public class DefaultResolutionStrategySpec extends Specification {
         1 * cachePolicy.cacheChangingModulesFor(5 * 60 * 1000, TimeUnit.MILLISECONDS)
     }
 
+    def "configures missing modules cache"() {
+        when:
+        strategy.cacheMissingModulesFor(2, "hours")
+
+        then:
+        1 * cachePolicy.cacheMissingModulesFor(2 * 60 * 60 * 1000, TimeUnit.MILLISECONDS)
+    }
+
     def "configures dynamic version cache with jdk5+ units"() {
         when:
         strategy.cacheDynamicVersionsFor(10000, "milliseconds")
@@ -40,6 +40,7 @@ import org.gradle.internal.component.external.model.ModuleComponentResolveMetaDa
 import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
 import org.gradle.internal.component.local.model.DslOriginDependencyMetaDataWrapper
 import org.gradle.internal.component.model.*
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.resolve.ModuleVersionNotFoundException
 import org.gradle.internal.resolve.ModuleVersionResolveException
 import org.gradle.internal.resolve.resolver.ArtifactResolver
@@ -90,7 +91,7 @@ class DependencyGraphBuilderTest extends Specification {
         def graphResults = modelBuilder.complete()
         def artifactResults = artifactsBuilder.resolve()
 
-        new DefaultLenientConfiguration(configuration, Stub(CacheLockingManager), graphResults, artifactResults, new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults))
+        new DefaultLenientConfiguration(configuration, Stub(CacheLockingManager), Stub(ExecutorFactory), graphResults, artifactResults, new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults))
     }
 
     def "does not resolve a given module selector more than once"() {
@@ -920,6 +921,53 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "prefetches meta-data of the target versions of dependencies"() {
+        given:
+        def prefetched = prefetchInto()
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        prefetched as Set == [a.componentId, b.componentId, c.componentId] as Set
+    }
+
+    def "does not prefetch meta-data of a version that conflicts with a version already seen"() {
+        given:
+        def prefetched = prefetchInto()
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        traverses root, selected
+        traverses selected, c
+        traverses root, b
+        traverses b, d
+        doesNotTraverse d, evicted
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+
+        and:
+        prefetched as Set == [selected.componentId, b.componentId, c.componentId, d.componentId] as Set
+        modules(result) == ids(selected, b, c, d)
+    }
+
     def revision(String name, String revision = '1.0') {
         def descriptor = new DefaultModuleDescriptor(createModuleRevisionId("group", name, revision), "release", new Date())
         def metaData = new TestModuleMetaData(descriptor)
@@ -937,6 +985,15 @@ class DependencyGraphBuilderTest extends Specification {
         return metaData
     }
 
+    def prefetchInto() {
+        def prefetched = []
+        def prefetcher = Stub(ComponentMetaDataPrefetcher) {
+            prefetch(_, _) >> { ComponentIdentifier id, ComponentOverrideMetadata overrides -> prefetched << id }
+        }
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, artifactResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), dependencyToConfigurationResolver, prefetcher)
+        return prefetched
+    }
+
     def config(ComponentResolveMetaData metaData, String name, String... extendsFrom) {
         def configuration = new org.apache.ivy.core.module.descriptor.Configuration(name, org.apache.ivy.core.module.descriptor.Configuration.Visibility.PUBLIC, null, extendsFrom, true, null)
         metaData.descriptor.addConfiguration(configuration)
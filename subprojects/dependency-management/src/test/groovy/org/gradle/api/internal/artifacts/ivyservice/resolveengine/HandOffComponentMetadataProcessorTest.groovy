@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+
+class HandOffComponentMetadataProcessorTest extends Specification {
+    def delegate = Mock(ComponentMetadataProcessor)
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
+    def processor = new HandOffComponentMetadataProcessor(delegate, cacheLockingManager)
+    def metaData = Stub(MutableModuleComponentResolveMetaData)
+
+    def "processes meta-data directly on the resolving thread"() {
+        when:
+        processor.processMetadata(metaData)
+
+        then:
+        1 * delegate.processMetadata(metaData)
+    }
+
+    def "processes meta-data handed over by another thread on the resolving thread"() {
+        def resolvingThread = Thread.currentThread()
+        Thread processingThread = null
+        def work = work { processor.processMetadata(metaData) }
+
+        when:
+        new Thread(work).start()
+        processor.processUntilDone(work)
+        work.get()
+
+        then:
+        1 * delegate.processMetadata(metaData) >> { processingThread = Thread.currentThread() }
+        processingThread == resolvingThread
+    }
+
+    def "propagates failure to the thread that handed over meta-data"() {
+        def failure = new RuntimeException("broken")
+        def work = work { processor.processMetadata(metaData) }
+
+        when:
+        new Thread(work).start()
+        processor.processUntilDone(work)
+        work.get()
+
+        then:
+        1 * delegate.processMetadata(metaData) >> { throw failure }
+        ExecutionException e = thrown()
+        e.cause == failure
+    }
+
+    def "fails meta-data handed over after stop"() {
+        def work = work { processor.processMetadata(metaData) }
+
+        when:
+        processor.stop()
+        def thread = new Thread(work)
+        thread.start()
+        thread.join()
+        work.get()
+
+        then:
+        0 * delegate._
+        ExecutionException e = thrown()
+        e.cause instanceof IllegalStateException
+    }
+
+    def work(Closure action) {
+        return new FutureTask<Object>(action as Callable) {
+            @Override
+            protected void done() {
+                processor.wakeUp()
+            }
+        }
+    }
+}
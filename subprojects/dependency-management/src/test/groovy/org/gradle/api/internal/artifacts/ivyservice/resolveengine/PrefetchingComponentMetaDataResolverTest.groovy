@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.gradle.api.Action
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData
+import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
+import spock.lang.Specification
+
+class PrefetchingComponentMetaDataResolverTest extends Specification {
+    def delegate = Mock(ComponentMetaDataResolver)
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        longRunningOperation(_, _ as Factory) >> { String name, Factory action -> action.create() }
+        longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
+    def ivyContextManager = Stub(IvyContextManager) {
+        withIvy(_ as Action) >> { Action action -> action.execute(null) }
+    }
+    def rules = Mock(ComponentMetadataProcessor)
+    def metadataProcessor = new HandOffComponentMetadataProcessor(rules, cacheLockingManager)
+    def resolver = new PrefetchingComponentMetaDataResolver(delegate, cacheLockingManager, ivyContextManager, new DefaultExecutorFactory(), metadataProcessor)
+    def id = DefaultModuleComponentIdentifier.newId("group", "module", "1.2")
+
+    def cleanup() {
+        resolver.stop()
+    }
+
+    def "uses prefetched meta-data when component is resolved"() {
+        def metaData = Stub(ComponentResolveMetaData)
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(id, new DefaultComponentOverrideMetadata())
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), result)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args ->
+            args[2].attempted("location")
+            args[2].resolved(metaData)
+        }
+        0 * delegate._
+
+        and:
+        result.metaData == metaData
+        result.attempted == ["location"]
+    }
+
+    def "uses prefetched failure when component is resolved"() {
+        def failure = new ModuleVersionResolveException(id, "broken")
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.prefetch(id, new DefaultComponentOverrideMetadata())
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), result)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].failed(failure) }
+        0 * delegate._
+
+        and:
+        result.failure == failure
+    }
+
+    def "applies component metadata rules to prefetched meta-data on the resolving thread"() {
+        def metaData = Stub(MutableModuleComponentResolveMetaData)
+        def result = new DefaultBuildableComponentResolveResult()
+        def resolvingThread = Thread.currentThread()
+        Thread rulesThread = null
+
+        when:
+        resolver.prefetch(id, new DefaultComponentOverrideMetadata())
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), result)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args ->
+            assert Thread.currentThread() != resolvingThread
+            metadataProcessor.processMetadata(metaData)
+            args[2].resolved(metaData)
+        }
+        1 * rules.processMetadata(metaData) >> { rulesThread = Thread.currentThread() }
+        0 * delegate._
+
+        and:
+        result.metaData == metaData
+        rulesThread == resolvingThread
+    }
+
+    def "prefetches each component once"() {
+        def metaData = Stub(ComponentResolveMetaData)
+
+        when:
+        resolver.prefetch(id, new DefaultComponentOverrideMetadata())
+        resolver.prefetch(id, new DefaultComponentOverrideMetadata())
+        resolver.resolve(id, new DefaultComponentOverrideMetadata(), new DefaultBuildableComponentResolveResult())
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].resolved(metaData) }
+        0 * delegate._
+    }
+
+    def "does not prefetch component with overrides"() {
+        when:
+        resolver.prefetch(id, Stub(ComponentOverrideMetadata) {
+            isChanging() >> true
+            getArtifacts() >> ([] as Set)
+        })
+        resolver.stop()
+
+        then:
+        0 * delegate._
+    }
+
+    def "does not prefetch project component"() {
+        when:
+        resolver.prefetch(DefaultProjectComponentIdentifier.newId(":a"), new DefaultComponentOverrideMetadata())
+        resolver.stop()
+
+        then:
+        0 * delegate._
+    }
+
+    def "delegates resolution of component that has not been prefetched"() {
+        def result = new DefaultBuildableComponentResolveResult()
+        def overrides = new DefaultComponentOverrideMetadata()
+
+        when:
+        resolver.resolve(id, overrides, result)
+
+        then:
+        1 * delegate.resolve(id, overrides, result)
+        0 * delegate._
+    }
+}
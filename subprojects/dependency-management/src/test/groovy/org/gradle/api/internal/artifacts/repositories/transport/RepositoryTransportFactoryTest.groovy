@@ -65,6 +65,22 @@ class RepositoryTransportFactoryTest extends Specification {
         transport.class == ResourceConnectorRepositoryTransport
     }
 
+    def "keeps request statistics for each repository across transports"() {
+        when:
+        repositoryTransportFactory.createTransport(['protocol1'] as Set, "repo1", null)
+        repositoryTransportFactory.createTransport(['protocol1'] as Set, "repo1", null)
+        repositoryTransportFactory.createTransport(['protocol1'] as Set, "repo2", null)
+
+        then:
+        repositoryTransportFactory.statistics.keySet() as List == ["repo1", "repo2"]
+
+        when:
+        repositoryTransportFactory.stop()
+
+        then:
+        repositoryTransportFactory.statistics.isEmpty()
+    }
+
     def "should throw when credentials types is invalid"(){
         when:
         repositoryTransportFactory.convertPasswordCredentials(new DefaultAwsCredentials())
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.repositories.transport
+
+import org.gradle.internal.resource.local.LocalResource
+import org.gradle.internal.resource.transfer.ExternalResourceConnector
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse
+import spock.lang.Specification
+
+class StatisticsCollectingExternalResourceConnectorTest extends Specification {
+    def delegate = Mock(ExternalResourceConnector)
+    def statistics = new RepositoryRequestStatistics()
+    def connector = new StatisticsCollectingExternalResourceConnector(delegate, statistics)
+    def uri = new URI("http://repo/thing")
+
+    def "records each request"() {
+        def response = Stub(ExternalResourceReadResponse)
+
+        when:
+        def result = connector.openResource(uri)
+        connector.getMetaData(uri)
+        connector.list(uri)
+        connector.upload(Stub(LocalResource), uri)
+
+        then:
+        1 * delegate.openResource(uri) >> response
+        1 * delegate.getMetaData(uri)
+        1 * delegate.list(uri)
+        1 * delegate.upload(_, uri)
+        result == response
+        statistics.requestCount == 4
+        statistics.totalTime >= 0
+    }
+
+    def "records failed request"() {
+        def failure = new RuntimeException()
+
+        when:
+        connector.getMetaData(uri)
+
+        then:
+        1 * delegate.getMetaData(uri) >> { throw failure }
+        RuntimeException e = thrown()
+        e == failure
+        statistics.requestCount == 1
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.health;
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.util.NumberUtil;
@@ -28,20 +29,26 @@ class DaemonStats {
     private final Clock totalTime;
     private final TimeProvider timeProvider;
     private final MemoryInfo memory;
+    private final InMemoryTaskArtifactCache taskHistoryCache;
 
     private int buildCount;
     private long currentBuildStart;
     private long allBuildsTime;
     private int currentPerformance;
 
-    DaemonStats() {
-        this(new Clock(), new TrueTimeProvider(), new MemoryInfo());
+    DaemonStats(InMemoryTaskArtifactCache taskHistoryCache) {
+        this(new Clock(), new TrueTimeProvider(), new MemoryInfo(), taskHistoryCache);
     }
 
     DaemonStats(Clock startTime, TimeProvider timeProvider, MemoryInfo memory) {
+        this(startTime, timeProvider, memory, null);
+    }
+
+    DaemonStats(Clock startTime, TimeProvider timeProvider, MemoryInfo memory, InMemoryTaskArtifactCache taskHistoryCache) {
         this.totalTime = startTime;
         this.timeProvider = timeProvider;
         this.memory = memory;
+        this.taskHistoryCache = taskHistoryCache;
     }
 
     /**
@@ -79,9 +86,22 @@ class DaemonStats {
         if (buildCount == 1) {
             return format("Starting build in new daemon [memory: %s]", NumberUtil.formatBytes(memory.getMaxMemory()));
         } else {
-            return format("Starting %s build in daemon [uptime: %s, performance: %s%%, memory: %s%% of %s]",
-                    NumberUtil.ordinal(buildCount), totalTime.getTime(), currentPerformance, getMemoryUsed(), NumberUtil.formatBytes(memory.getMaxMemory()));
+            return format("Starting %s build in daemon [uptime: %s, performance: %s%%, memory: %s%% of %s%s]",
+                    NumberUtil.ordinal(buildCount), totalTime.getTime(), currentPerformance, getMemoryUsed(), NumberUtil.formatBytes(memory.getMaxMemory()), getTaskHistoryCacheInfo());
+        }
+    }
+
+    /**
+     * usage of the task history retained in memory across builds, empty when not known
+     */
+    private String getTaskHistoryCacheInfo() {
+        if (taskHistoryCache == null) {
+            return "";
         }
+        InMemoryTaskArtifactCache.Statistics statistics = taskHistoryCache.getStatistics();
+        int hitRate = statistics.getRequestCount() == 0 ? 0 : NumberUtil.percentOf(statistics.getHitCount(), statistics.getRequestCount());
+        return format(", task history cache: %s of %s, hits: %s%%, evictions: %s",
+                NumberUtil.formatBytes(statistics.getWeight()), NumberUtil.formatBytes(statistics.getMaxWeight()), hitRate, statistics.getEvictionCount());
     }
 
     /**
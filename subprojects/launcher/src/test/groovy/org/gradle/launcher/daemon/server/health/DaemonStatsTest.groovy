@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.health
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache
 import org.gradle.internal.TimeProvider
 import org.gradle.util.Clock
 import spock.lang.Specification
@@ -58,4 +59,27 @@ class DaemonStatsTest extends Specification {
         then:
         stats.healthInfo == String.format("Starting 2nd build in daemon [uptime: 3 mins, performance: 98%%, memory: 50%% of %.1f MB]", 10.0)
     }
+
+    def "includes usage of task history cache"() {
+        clock.getTime() >> "3 mins"
+        time.getCurrentTime() >>> [1, 1001]
+
+        memory.getCollectionTime() >> 25
+        memory.getCommittedMemory() >> 5000000
+        memory.getMaxMemory() >> 10000000
+
+        def taskHistoryCache = Stub(InMemoryTaskArtifactCache) {
+            getStatistics() >> new InMemoryTaskArtifactCache.Statistics(75, 25, 12, 2000000, 4000000)
+        }
+        def stats = new DaemonStats(clock, time, memory, taskHistoryCache)
+
+        when:
+        stats.buildStarted()
+        stats.buildFinished()
+        stats.buildStarted()
+        stats.buildFinished()
+
+        then:
+        stats.healthInfo == String.format("Starting 2nd build in daemon [uptime: 3 mins, performance: 98%%, memory: 50%% of %.1f MB, task history cache: %.1f MB of %.1f MB, hits: 75%%, evictions: 12]", 10.0, 2.0, 4.0)
+    }
 }
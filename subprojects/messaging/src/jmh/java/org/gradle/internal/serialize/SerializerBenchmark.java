@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.serialize;
+
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing and reading small values with encoders and decoders that are created for each value and with ones that are reused,
+ * and measures the cost of the type tag dispatch of the serializers built by {@link DefaultSerializerRegistry}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SerializerBenchmark {
+    private final Serializer<Object> serializer = createSerializer();
+    private final Object[] values = {"some/relative/path/to/a/file.txt", 1234567L, new File("/some/absolute/path/to/a/file.txt"), true};
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+    private final KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(new byte[0]));
+    private byte[] encoded;
+
+    private static Serializer<Object> createSerializer() {
+        DefaultSerializerRegistry<Object> registry = new DefaultSerializerRegistry<Object>();
+        registry.register(String.class, BaseSerializerFactory.STRING_SERIALIZER);
+        registry.register(Long.class, BaseSerializerFactory.LONG_SERIALIZER);
+        registry.register(File.class, BaseSerializerFactory.FILE_SERIALIZER);
+        registry.register(Boolean.class, BaseSerializerFactory.BOOLEAN_SERIALIZER);
+        return registry.build();
+    }
+
+    @Setup
+    public void encodeValues() throws Exception {
+        encoded = writeWithReusedEncoder();
+    }
+
+    @Benchmark
+    public byte[] writeWithNewEncoder() throws Exception {
+        outputStream.reset();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        for (Object value : values) {
+            serializer.write(encoder, value);
+        }
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeWithReusedEncoder() throws Exception {
+        outputStream.reset();
+        encoder.reset(outputStream);
+        for (Object value : values) {
+            serializer.write(encoder, value);
+        }
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public Object readWithNewDecoder() throws Exception {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(encoded));
+        Object value = null;
+        for (int i = 0; i < values.length; i++) {
+            value = serializer.read(decoder);
+        }
+        return value;
+    }
+
+    @Benchmark
+    public Object readWithReusedDecoder() throws Exception {
+        decoder.reset(new ByteArrayInputStream(encoded));
+        Object value = null;
+        for (int i = 0; i < values.length; i++) {
+            value = serializer.read(decoder);
+        }
+        return value;
+    }
+}
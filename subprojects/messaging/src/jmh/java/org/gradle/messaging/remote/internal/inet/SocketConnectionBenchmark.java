@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.messaging.remote.internal.inet;
+
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.kryo.StatefulSerializer;
+import org.gradle.messaging.remote.internal.hub.InterHubMessageSerializer;
+import org.gradle.messaging.remote.internal.hub.protocol.ChannelIdentifier;
+import org.gradle.messaging.remote.internal.hub.protocol.ChannelMessage;
+import org.gradle.messaging.remote.internal.hub.protocol.InterHubMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip time of small messages sent over a loopback {@link SocketConnection}, with and without TCP_NODELAY.
+ *
+ * <p>The peer replies to each message with a non-negative payload. {@link #requestAndReply()} sends a single message and waits for the reply.
+ * {@link #twoMessagesAndReply()} dispatches two messages separately before waiting, as happens when a worker sends an event and then a
+ * request. With Nagle's algorithm the second message is held back until the first has been acknowledged, and the peer delays that
+ * acknowledgement as it has nothing to send yet.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SocketConnectionBenchmark {
+    private static final ChannelIdentifier CHANNEL = new ChannelIdentifier("benchmark");
+
+    @Param({"true", "false"})
+    public boolean tcpNoDelay;
+
+    private SocketConnection<InterHubMessage> client;
+    private SocketConnection<InterHubMessage> server;
+    private Thread replier;
+
+    @Setup
+    public void connect() throws Exception {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(InetAddress.getByName(null), 0));
+        SocketChannel clientChannel = SocketChannel.open(serverChannel.socket().getLocalSocketAddress());
+        SocketChannel serverSideChannel = serverChannel.accept();
+        serverChannel.close();
+
+        InterHubMessageSerializer serializer = new InterHubMessageSerializer(new LongSerializer());
+        client = new SocketConnection<InterHubMessage>(clientChannel, serializer);
+        server = new SocketConnection<InterHubMessage>(serverSideChannel, serializer);
+        // Override the option set by SocketConnection
+        clientChannel.socket().setTcpNoDelay(tcpNoDelay);
+        serverSideChannel.socket().setTcpNoDelay(tcpNoDelay);
+
+        replier = new Thread(new Runnable() {
+            public void run() {
+                InterHubMessage message;
+                while ((message = server.receive()) != null) {
+                    if ((Long) ((ChannelMessage) message).getPayload() >= 0) {
+                        server.dispatch(message);
+                    }
+                }
+            }
+        });
+        replier.start();
+    }
+
+    @TearDown
+    public void disconnect() throws Exception {
+        client.stop();
+        replier.join();
+        server.stop();
+    }
+
+    @Benchmark
+    public InterHubMessage requestAndReply() {
+        client.dispatch(new ChannelMessage(CHANNEL, 1L));
+        return client.receive();
+    }
+
+    @Benchmark
+    public InterHubMessage twoMessagesAndReply() {
+        client.dispatch(new ChannelMessage(CHANNEL, -1L));
+        client.dispatch(new ChannelMessage(CHANNEL, 1L));
+        return client.receive();
+    }
+
+    private static class LongSerializer implements StatefulSerializer<Object> {
+        public ObjectReader<Object> newReader(final Decoder decoder) {
+            return new ObjectReader<Object>() {
+                public Object read() throws Exception {
+                    return decoder.readLong();
+                }
+            };
+        }
+
+        public ObjectWriter<Object> newWriter(final Encoder encoder) {
+            return new ObjectWriter<Object>() {
+                public void write(Object value) throws Exception {
+                    encoder.writeLong((Long) value);
+                }
+            };
+        }
+    }
+}
@@ -36,11 +36,7 @@ public class DefaultSerializerRegistry<T> implements SerializerRegistry<T> {
         if (serializerMap.size() == 1) {
             return (Serializer<T>) serializerMap.values().iterator().next();
         }
-        TaggedTypeSerializer<T> serializer = new TaggedTypeSerializer<T>();
-        for (Map.Entry<Class<?>, Serializer<?>> entry : serializerMap.entrySet()) {
-            serializer.add(entry.getKey(), entry.getValue());
-        }
-        return serializer;
+        return new TaggedTypeSerializer<T>(serializerMap);
     }
 
     private static class TypeInfo {
@@ -55,21 +51,24 @@ public class DefaultSerializerRegistry<T> implements SerializerRegistry<T> {
 
     private static class TaggedTypeSerializer<T> implements Serializer<T> {
         private final Map<Class<?>, TypeInfo> serializersByType = new HashMap<Class<?>, TypeInfo>();
-        private final Map<Byte, TypeInfo> serializersByTag = new HashMap<Byte, TypeInfo>();
+        // Indexed by tag
+        private final TypeInfo[] serializersByTag;
 
-        private <T> void add(Class<?> type, Serializer<?> serializer) {
-            TypeInfo typeInfo = new TypeInfo((byte) serializersByTag.size(), serializer);
-            serializersByType.put(type, typeInfo);
-            serializersByTag.put(typeInfo.tag, typeInfo);
+        private TaggedTypeSerializer(Map<Class<?>, Serializer<?>> serializers) {
+            serializersByTag = new TypeInfo[serializers.size()];
+            for (Map.Entry<Class<?>, Serializer<?>> entry : serializers.entrySet()) {
+                TypeInfo typeInfo = new TypeInfo((byte) serializersByType.size(), entry.getValue());
+                serializersByType.put(entry.getKey(), typeInfo);
+                serializersByTag[typeInfo.tag] = typeInfo;
+            }
         }
 
         public T read(Decoder decoder) throws Exception {
             byte tag = decoder.readByte();
-            TypeInfo typeInfo = serializersByTag.get(tag);
-            if (typeInfo == null) {
+            if (tag < 0 || tag >= serializersByTag.length) {
                 throw new IllegalArgumentException(String.format("Unexpected type tag %d found.", tag));
             }
-            return (T) typeInfo.serializer.read(decoder);
+            return (T) serializersByTag[tag].serializer.read(decoder);
         }
 
         public void write(Encoder encoder, T value) throws Exception {
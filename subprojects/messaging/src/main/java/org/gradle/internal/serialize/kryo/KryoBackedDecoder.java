@@ -32,7 +32,7 @@ import java.io.InputStream;
  */
 public class KryoBackedDecoder extends AbstractDecoder implements Decoder, Closeable {
     private final Input input;
-    private final InputStream inputStream;
+    private InputStream inputStream;
     private long extraSkipped;
 
     public KryoBackedDecoder(InputStream inputStream) {
@@ -44,6 +44,15 @@ public class KryoBackedDecoder extends AbstractDecoder implements Decoder, Close
         input = new Input(this.inputStream, bufferSize);
     }
 
+    /**
+     * Starts reading from the given stream, reusing the buffer of this decoder. Any buffered data is discarded and the read position is reset.
+     */
+    public void reset(InputStream inputStream) {
+        this.inputStream = inputStream;
+        input.setInputStream(inputStream);
+        extraSkipped = 0;
+    }
+
     @Override
     protected int maybeReadBytes(byte[] buffer, int offset, int count) {
         return input.read(buffer, offset, count);
@@ -35,6 +35,13 @@ public class KryoBackedEncoder extends AbstractEncoder implements FlushableEncod
         output = new Output(outputStream, bufferSize);
     }
 
+    /**
+     * Starts writing to the given stream, reusing the buffer of this encoder. Any data that has not been flushed is discarded and the write position is reset.
+     */
+    public void reset(OutputStream outputStream) {
+        output.setOutputStream(outputStream);
+    }
+
     public void writeByte(byte value) {
         output.writeByte(value);
     }
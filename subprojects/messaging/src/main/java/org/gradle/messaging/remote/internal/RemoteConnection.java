@@ -31,6 +31,14 @@ public interface RemoteConnection<T> extends Connection<T> {
      */
     void dispatch(T message) throws MessageIOException;
 
+    /**
+     * Dispatches the given messages to the peer, in order. The messages are written as a single batch and flushed to the peer once,
+     * which is cheaper than dispatching each message separately.
+     *
+     * @throws MessageIOException On failure to dispatch the messages to the peer.
+     */
+    void dispatchAll(Iterable<? extends T> messages) throws MessageIOException;
+
     /**
      * {@inheritDoc}
      * @throws MessageIOException On failure to receive the message from the peer.
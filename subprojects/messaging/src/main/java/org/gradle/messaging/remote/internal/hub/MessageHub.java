@@ -17,11 +17,13 @@
 package org.gradle.messaging.remote.internal.hub;
 
 import org.gradle.api.Action;
+import org.gradle.internal.Cast;
 import org.gradle.internal.concurrent.AsyncStoppable;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.messaging.dispatch.Dispatch;
 import org.gradle.messaging.remote.internal.Connection;
+import org.gradle.messaging.remote.internal.RemoteConnection;
 import org.gradle.messaging.remote.internal.hub.protocol.*;
 import org.gradle.messaging.remote.internal.hub.queue.EndPointQueue;
 
@@ -259,11 +261,13 @@ public class MessageHub implements AsyncStoppable {
 
     private class ConnectionDispatch implements Runnable {
         private final Connection<InterHubMessage> connection;
+        private final RemoteConnection<InterHubMessage> remoteConnection;
         private final EndPointQueue queue;
         private final ConnectionState connectionState;
 
         private ConnectionDispatch(ConnectionState connectionState) {
             this.connection = connectionState.getConnection();
+            this.remoteConnection = connection instanceof RemoteConnection ? Cast.<RemoteConnection<InterHubMessage>>uncheckedCast(connection) : null;
             this.queue = connectionState.getDispatchQueue();
             this.connectionState = connectionState;
         }
@@ -279,13 +283,20 @@ public class MessageHub implements AsyncStoppable {
                         } finally {
                             lock.unlock();
                         }
-                        for (Object message : messages) {
-                            InterHubMessage channelMessage = (InterHubMessage) message;
-                            connection.dispatch(channelMessage);
-                            if (message instanceof EndOfStream) {
-                                return;
+                        // Everything queued while the previous batch was being written goes out as the next batch
+                        int count = messages.size();
+                        boolean endOfStream = false;
+                        for (int i = 0; i < messages.size(); i++) {
+                            if (messages.get(i) instanceof EndOfStream) {
+                                count = i + 1;
+                                endOfStream = true;
+                                break;
                             }
                         }
+                        dispatch(messages.subList(0, count));
+                        if (endOfStream) {
+                            return;
+                        }
                         messages.clear();
                     }
                 } finally {
@@ -300,6 +311,16 @@ public class MessageHub implements AsyncStoppable {
                 errorHandler.execute(t);
             }
         }
+
+        private void dispatch(List<InterHubMessage> messages) {
+            if (remoteConnection != null) {
+                remoteConnection.dispatchAll(messages);
+                return;
+            }
+            for (InterHubMessage message : messages) {
+                connection.dispatch(message);
+            }
+        }
     }
 
     private class ChannelDispatch<T> implements Dispatch<T> {
@@ -89,4 +89,19 @@ class DefaultSerializerRegistryTest extends SerializerSpec {
         then:
         thrown(IllegalArgumentException)
     }
+
+    def "cannot read value with unknown type tag"() {
+        given:
+        def registry = new DefaultSerializerRegistry()
+        registry.register(Long, longSerializer)
+        registry.register(Integer, intSerializer)
+        def serializer = registry.build()
+
+        when:
+        fromBytes([2, 0] as byte[], serializer)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unexpected type tag 2 found."
+    }
 }
@@ -95,4 +95,37 @@ class KryoBackedCodecTest extends AbstractCodecTest {
         instr.available() == 0
         decoder.readPosition == 4108
     }
+
+    def "can reuse encoder to write to another stream"() {
+        def encoder = new KryoBackedEncoder(new ByteArrayOutputStream())
+        encoder.writeLong(1234)
+        encoder.writeString("unflushed")
+        def outstr = new ByteArrayOutputStream()
+
+        when:
+        encoder.reset(outstr)
+        encoder.writeString("value")
+        encoder.flush()
+
+        then:
+        encoder.writePosition == outstr.size()
+        new KryoBackedDecoder(new ByteArrayInputStream(outstr.toByteArray())).readString() == "value"
+    }
+
+    def "can reuse decoder to read from another stream"() {
+        def decoder = new KryoBackedDecoder(new ByteArrayInputStream(encode { it.writeString("first"); it.writeLong(1234) }))
+        decoder.readString()
+
+        when:
+        decoder.reset(new ByteArrayInputStream(encode { it.writeString("second") }))
+
+        then:
+        decoder.readString() == "second"
+
+        when:
+        decoder.readByte()
+
+        then:
+        thrown(EOFException)
+    }
 }
@@ -19,6 +19,7 @@ package org.gradle.messaging.remote.internal.hub
 import org.gradle.api.Action
 import org.gradle.messaging.dispatch.Dispatch
 import org.gradle.messaging.remote.internal.Connection
+import org.gradle.messaging.remote.internal.RemoteConnection
 import org.gradle.messaging.remote.internal.hub.protocol.ChannelIdentifier
 import org.gradle.messaging.remote.internal.hub.protocol.ChannelMessage
 import org.gradle.messaging.remote.internal.hub.protocol.EndOfStream
@@ -163,6 +164,25 @@ class MessageHubTest extends ConcurrentSpec {
         0 * _._
     }
 
+    def "queued outgoing messages are dispatched to remote connection as a single batch"() {
+        def batches = new CopyOnWriteArrayList()
+        def connection = new MockRemoteConnection(batches)
+
+        given:
+        hub.getOutgoing("channel1", String).dispatch("message1")
+        hub.getOutgoing("channel1", String).dispatch("message2")
+        hub.getOutgoing("channel2", Long).dispatch(12)
+
+        when:
+        hub.addConnection(connection)
+        hub.stop()
+
+        then:
+        batches[0].collect { it.payload } == ["message1", "message2", 12]
+        batches.last().last() instanceof EndOfStream
+        batches.flatten().size() == 4
+    }
+
     def "each outgoing message is dispatched in order to connection"() {
         def messages = new CopyOnWriteArrayList()
         Dispatch<InterHubMessage> outgoing = Mock()
@@ -652,6 +672,39 @@ class MessageHubTest extends ConcurrentSpec {
         }
     }
 
+    private static class MockRemoteConnection implements RemoteConnection<InterHubMessage> {
+        private final List<List<InterHubMessage>> batches
+        private final BlockingQueue<InterHubMessage> incoming = new LinkedBlockingQueue<>()
+
+        MockRemoteConnection(List<List<InterHubMessage>> batches) {
+            this.batches = batches
+        }
+
+        void dispatch(InterHubMessage message) {
+            dispatchAll([message])
+        }
+
+        void dispatchAll(Iterable<? extends InterHubMessage> messages) {
+            def batch = messages.collect()
+            batches.add(batch)
+            if (batch.last() instanceof EndOfStream) {
+                stop()
+            }
+        }
+
+        InterHubMessage receive() {
+            return incoming.take()
+        }
+
+        void requestStop() {
+            throw new UnsupportedOperationException()
+        }
+
+        void stop() {
+            incoming.put(new EndOfStream())
+        }
+    }
+
     private static class TestConnection implements Connection<InterHubMessage> {
         private final BlockingQueue<InterHubMessage> incoming = new LinkedBlockingQueue<>()
         private final BlockingQueue<InterHubMessage> outgoing = new LinkedBlockingQueue<>()
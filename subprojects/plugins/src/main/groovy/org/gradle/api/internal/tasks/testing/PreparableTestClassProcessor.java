@@ -0,0 +1,29 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing;
+
+/**
+ * A {@link TestClassProcessor} that can prepare for processing test classes before it receives the first of them, for example by starting a worker process.
+ */
+public interface PreparableTestClassProcessor extends TestClassProcessor {
+    /**
+     * Performs any preparation that would otherwise happen when the first test class is received. Does not process any test classes. Called after
+     * {@link #startProcessing(TestResultProcessor)}.
+     */
+    void prepare();
+}
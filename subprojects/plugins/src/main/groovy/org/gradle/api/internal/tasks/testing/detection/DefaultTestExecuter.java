@@ -32,16 +32,28 @@ import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
+    private final Map<String, Long> previousTestClassDurations;
 
     public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor) {
+        this(workerFactory, actorFactor, Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * @param previousTestClassDurations The duration in milliseconds of each test class from the previous execution, used to balance test classes across forks.
+     */
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, Map<String, Long> previousTestClassDurations) {
         this.workerFactory = workerFactory;
         this.actorFactor = actorFactor;
+        this.previousTestClassDurations = previousTestClassDurations;
     }
 
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
@@ -60,7 +72,7 @@ public class DefaultTestExecuter implements TestExecuter {
         };
 
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-            reforkingProcessorFactory, actorFactor);
+            reforkingProcessorFactory, actorFactor, previousTestClassDurations);
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -26,27 +26,40 @@ import org.gradle.messaging.actor.Actor;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.messaging.dispatch.DispatchException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
  * processors.
+ *
+ * <p>When the durations of the test classes from a previous run are known, the test classes are instead collected until the end of
+ * processing and then assigned longest first, each to the processor with the least total expected duration. Test classes without a
+ * previous duration are expected to take the average duration.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
     private TestResultProcessor resultProcessor;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
+    private final List<TestClassRunInfo> pending = new ArrayList<TestClassRunInfo>();
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * @param previousDurations The duration in milliseconds of each test class from a previous run, keyed by class name.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -55,14 +68,13 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     }
 
     public void processTestClass(TestClassRunInfo testClass) {
+        if (!previousDurations.isEmpty()) {
+            pending.add(testClass);
+            return;
+        }
         TestClassProcessor processor;
         if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+            processor = newProcessor();
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -72,9 +84,64 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
 
     public void stop() {
         try {
-            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
-        } catch (DispatchException e) {
-            throw UncheckedException.throwAsUncheckedException(e.getCause());
+            processPending();
+        } finally {
+            try {
+                CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+            } catch (DispatchException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+    }
+
+    private TestClassProcessor newProcessor() {
+        TestClassProcessor processor = factory.create();
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
+    private void processPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long total = 0;
+        for (Long duration : previousDurations.values()) {
+            total += duration;
+        }
+        final long averageDuration = total / previousDurations.size();
+        final Map<TestClassRunInfo, Long> expectedDurations = new HashMap<TestClassRunInfo, Long>();
+        for (TestClassRunInfo testClass : pending) {
+            Long duration = previousDurations.get(testClass.getTestClassName());
+            expectedDurations.put(testClass, duration == null ? averageDuration : duration);
+        }
+        // Stable sort, so that test classes with the same expected duration keep the order in which they were found
+        Collections.sort(pending, new Comparator<TestClassRunInfo>() {
+            public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+                return expectedDurations.get(right).compareTo(expectedDurations.get(left));
+            }
+        });
+
+        long[] expectedLoads = new long[maxProcessors];
+        for (TestClassRunInfo testClass : pending) {
+            int index;
+            if (processors.size() < maxProcessors) {
+                index = processors.size();
+                newProcessor();
+            } else {
+                index = 0;
+                for (int i = 1; i < processors.size(); i++) {
+                    if (expectedLoads[i] < expectedLoads[index]) {
+                        index = i;
+                    }
+                }
+            }
+            expectedLoads[index] += expectedDurations.get(testClass);
+            processors.get(index).processTestClass(testClass);
         }
+        pending.clear();
     }
 }
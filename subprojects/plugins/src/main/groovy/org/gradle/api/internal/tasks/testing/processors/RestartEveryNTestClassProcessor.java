@@ -17,15 +17,25 @@
 package org.gradle.api.internal.tasks.testing.processors;
 
 import org.gradle.internal.Factory;
+import org.gradle.api.internal.tasks.testing.PreparableTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.concurrent.CompositeStoppable;
 
+/**
+ * Hands test classes to a new delegate processor every N test classes.
+ *
+ * <p>A delegate that has received its last test class is not stopped straight away. It carries on with its remaining test classes
+ * while the delegate for the next batch is created and prepared, for example while a new worker process starts up. The new delegate
+ * is handed its first test class only once the previous delegate has stopped, so that the tests of only one batch run at a time.</p>
+ */
 public class RestartEveryNTestClassProcessor implements TestClassProcessor {
     private final Factory<TestClassProcessor> factory;
     private final long restartEvery;
     private long testCount;
     private TestClassProcessor processor;
+    private TestClassProcessor previousProcessor;
     private TestResultProcessor resultProcessor;
 
     public RestartEveryNTestClassProcessor(Factory<TestClassProcessor> factory, long restartEvery) {
@@ -41,7 +51,11 @@ public class RestartEveryNTestClassProcessor implements TestClassProcessor {
         if (processor == null) {
             processor = factory.create();
             processor.startProcessing(resultProcessor);
+            if (previousProcessor != null && processor instanceof PreparableTestClassProcessor) {
+                ((PreparableTestClassProcessor) processor).prepare();
+            }
         }
+        stopPreviousBatch();
         processor.processTestClass(testClass);
         testCount++;
         if (testCount == restartEvery) {
@@ -50,17 +64,28 @@ public class RestartEveryNTestClassProcessor implements TestClassProcessor {
     }
 
     public void stop() {
-        if (processor != null) {
-            endBatch();
-        }
-    }
-
-    private void endBatch() {
         try {
-            processor.stop();
+            CompositeStoppable.stoppable(previousProcessor, processor).stop();
         } finally {
+            previousProcessor = null;
             processor = null;
             testCount = 0;
         }
     }
+
+    private void endBatch() {
+        previousProcessor = processor;
+        processor = null;
+        testCount = 0;
+    }
+
+    private void stopPreviousBatch() {
+        if (previousProcessor != null) {
+            try {
+                previousProcessor.stop();
+            } finally {
+                previousProcessor = null;
+            }
+        }
+    }
 }
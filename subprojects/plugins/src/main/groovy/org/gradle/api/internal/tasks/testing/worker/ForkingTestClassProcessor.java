@@ -17,7 +17,7 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
-import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.PreparableTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
@@ -29,7 +29,7 @@ import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
 
-public class ForkingTestClassProcessor implements TestClassProcessor {
+public class ForkingTestClassProcessor implements PreparableTestClassProcessor {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final WorkerTestClassProcessorFactory processorFactory;
     private final JavaForkOptions options;
@@ -51,11 +51,14 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.resultProcessor = resultProcessor;
     }
 
-    public void processTestClass(TestClassRunInfo testClass) {
+    public void prepare() {
         if (remoteProcessor == null) {
             remoteProcessor = forkProcess();
         }
+    }
 
+    public void processTestClass(TestClassRunInfo testClass) {
+        prepare();
         remoteProcessor.processTestClass(testClass);
     }
 
@@ -167,4 +167,66 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         then:
         1 * asyncProcessor2.processTestClass(test)
     }
+
+    def assignsTestClassesLongestFirstToProcessorWithLeastExpectedWorkWhenPreviousDurationsAreKnown() {
+        def balancingProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [Slow: 100L, Medium: 60L, Fast1: 30L, Fast2: 20L])
+        def fast1 = testClass("Fast1")
+        def slow = testClass("Slow")
+        def fast2 = testClass("Fast2")
+        def medium = testClass("Medium")
+        def unknown = testClass("Unknown")
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+
+        given:
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        balancingProcessor.startProcessing(resultProcessor)
+
+        when:
+        [fast1, slow, fast2, medium, unknown].each { balancingProcessor.processTestClass(it) }
+
+        then:
+        0 * factory.create()
+
+        when:
+        balancingProcessor.stop()
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.processTestClass(slow)
+
+        then:
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor2.processTestClass(medium)
+
+        then:
+        1 * asyncProcessor2.processTestClass(unknown)
+
+        then:
+        1 * asyncProcessor1.processTestClass(fast1)
+
+        then:
+        1 * asyncProcessor2.processTestClass(fast2)
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
+
+    def testClass(String name) {
+        TestClassRunInfo testClass = Mock()
+        _ * testClass.testClassName >> name
+        return testClass
+    }
 }
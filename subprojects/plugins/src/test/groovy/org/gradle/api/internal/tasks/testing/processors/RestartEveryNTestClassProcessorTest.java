@@ -17,10 +17,12 @@
 package org.gradle.api.internal.tasks.testing.processors;
 
 import org.gradle.internal.Factory;
+import org.gradle.api.internal.tasks.testing.PreparableTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.jmock.Expectations;
+import org.jmock.Sequence;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import org.junit.Test;
@@ -53,7 +55,7 @@ public class RestartEveryNTestClassProcessorTest {
     }
 
     @Test
-    public void onNthTestEndsProcessingOnDelegateProcessor() {
+    public void onNthTestLeavesDelegateProcessorToFinishItsTestClasses() {
         context.checking(new Expectations() {{
             one(factory).create();
             will(returnValue(delegate));
@@ -61,7 +63,6 @@ public class RestartEveryNTestClassProcessorTest {
             one(delegate).startProcessing(resultProcessor);
             one(delegate).processTestClass(test1);
             one(delegate).processTestClass(test2);
-            one(delegate).stop();
         }});
 
         processor.startProcessing(resultProcessor);
@@ -70,23 +71,71 @@ public class RestartEveryNTestClassProcessorTest {
     }
 
     @Test
-    public void onNPlus1TestCreatesNewDelegateProcessor() {
+    public void onNPlus1TestCreatesNewDelegateProcessorAndEndsProcessingOnPreviousDelegateProcessorBeforeHandingOverTest() {
         context.checking(new Expectations() {{
+            Sequence sequence = context.sequence("sequence");
+
             one(factory).create();
             will(returnValue(delegate));
+            inSequence(sequence);
 
             one(delegate).startProcessing(resultProcessor);
+            inSequence(sequence);
             one(delegate).processTestClass(test1);
+            inSequence(sequence);
             one(delegate).processTestClass(test2);
-            one(delegate).stop();
+            inSequence(sequence);
 
             TestClassProcessor delegate2 = context.mock(TestClassProcessor.class, "delegate2");
 
             one(factory).create();
             will(returnValue(delegate2));
+            inSequence(sequence);
 
             one(delegate2).startProcessing(resultProcessor);
+            inSequence(sequence);
+            one(delegate).stop();
+            inSequence(sequence);
             one(delegate2).processTestClass(test3);
+            inSequence(sequence);
+        }});
+
+        processor.startProcessing(resultProcessor);
+        processor.processTestClass(test1);
+        processor.processTestClass(test2);
+        processor.processTestClass(test3);
+    }
+
+    @Test
+    public void onNPlus1TestPreparesNewDelegateProcessorBeforeEndingProcessingOnPreviousDelegateProcessor() {
+        context.checking(new Expectations() {{
+            Sequence sequence = context.sequence("sequence");
+
+            one(factory).create();
+            will(returnValue(delegate));
+            inSequence(sequence);
+
+            one(delegate).startProcessing(resultProcessor);
+            inSequence(sequence);
+            one(delegate).processTestClass(test1);
+            inSequence(sequence);
+            one(delegate).processTestClass(test2);
+            inSequence(sequence);
+
+            PreparableTestClassProcessor delegate2 = context.mock(PreparableTestClassProcessor.class, "delegate2");
+
+            one(factory).create();
+            will(returnValue(delegate2));
+            inSequence(sequence);
+
+            one(delegate2).startProcessing(resultProcessor);
+            inSequence(sequence);
+            one(delegate2).prepare();
+            inSequence(sequence);
+            one(delegate).stop();
+            inSequence(sequence);
+            one(delegate2).processTestClass(test3);
+            inSequence(sequence);
         }});
 
         processor.startProcessing(resultProcessor);
@@ -153,4 +202,32 @@ public class RestartEveryNTestClassProcessorTest {
         processor.processTestClass(test2);
         processor.stop();
     }
+
+    @Test
+    public void onEndOfProcessingEndsProcessingOnPreviousAndCurrentDelegateProcessors() {
+        processor = new RestartEveryNTestClassProcessor(factory, 1);
+
+        context.checking(new Expectations() {{
+            one(factory).create();
+            will(returnValue(delegate));
+
+            one(delegate).startProcessing(resultProcessor);
+            one(delegate).processTestClass(test1);
+            one(delegate).stop();
+
+            TestClassProcessor delegate2 = context.mock(TestClassProcessor.class, "delegate2");
+
+            one(factory).create();
+            will(returnValue(delegate2));
+
+            one(delegate2).startProcessing(resultProcessor);
+            one(delegate2).processTestClass(test2);
+            one(delegate2).stop();
+        }});
+
+        processor.startProcessing(resultProcessor);
+        processor.processTestClass(test1);
+        processor.processTestClass(test2);
+        processor.stop();
+    }
 }
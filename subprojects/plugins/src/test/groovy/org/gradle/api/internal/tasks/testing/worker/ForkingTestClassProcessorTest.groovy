@@ -43,4 +43,24 @@ class ForkingTestClassProcessorTest extends Specification {
         1 * remoteProcessor.processTestClass(test2)
         0 * remoteProcessor._
     }
+
+    def "starts worker process when prepared"() {
+        def test1 = Mock(TestClassRunInfo)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+
+        when:
+        processor.prepare()
+
+        then:
+        1 * processor.forkProcess() >> remoteProcessor
+        0 * remoteProcessor._
+
+        when:
+        processor.processTestClass(test1)
+
+        then:
+        0 * processor.forkProcess()
+        1 * remoteProcessor.processTestClass(test1)
+        0 * remoteProcessor._
+    }
 }
@@ -26,8 +26,10 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.params.AuthPolicy;
 import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.HttpProtocolParams;
 import org.apache.http.protocol.ExecutionContext;
 import org.apache.http.protocol.HttpContext;
@@ -42,6 +44,8 @@ import java.io.IOException;
 
 public class HttpClientConfigurer {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfigurer.class);
+    private static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 12;
 
     private final HttpSettings httpSettings;
 
@@ -55,6 +59,7 @@ public class HttpClientConfigurer {
         configureProxyCredentials(httpClient, httpSettings.getProxySettings());
         configureRetryHandler(httpClient);
         configureUserAgent(httpClient);
+        configureConnectionPool(httpClient);
     }
 
     private void configureCredentials(DefaultHttpClient httpClient, PasswordCredentials credentials) {
@@ -95,6 +100,16 @@ public class HttpClientConfigurer {
         });
     }
 
+    private void configureConnectionPool(DefaultHttpClient httpClient) {
+        // Keep enough connections to each host for the concurrent meta-data and artifact downloads, unless the user has chosen a limit
+        ClientConnectionManager connectionManager = httpClient.getConnectionManager();
+        if (connectionManager instanceof PoolingClientConnectionManager && System.getProperty(MAX_CONNECTIONS_PROPERTY) == null) {
+            PoolingClientConnectionManager poolingConnectionManager = (PoolingClientConnectionManager) connectionManager;
+            poolingConnectionManager.setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+            poolingConnectionManager.setMaxTotal(Math.max(poolingConnectionManager.getMaxTotal(), 2 * DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+        }
+    }
+
     public void configureUserAgent(DefaultHttpClient httpClient) {
         HttpProtocolParams.setUserAgent(httpClient.getParams(), UriResource.getUserAgentString());
     }
@@ -17,12 +17,17 @@ package org.gradle.internal.resource.transport.http
 
 import org.apache.http.auth.AuthScope
 import org.apache.http.impl.client.DefaultHttpClient
+import org.apache.http.impl.client.SystemDefaultHttpClient
+import org.apache.http.impl.conn.PoolingClientConnectionManager
 import org.apache.http.params.HttpProtocolParams
 import org.gradle.internal.resource.PasswordCredentials
 import org.gradle.internal.resource.UriResource
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Specification
 
 public class HttpClientConfigurerTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
     DefaultHttpClient httpClient = new DefaultHttpClient()
     PasswordCredentials credentials = Mock()
     HttpSettings httpSettings = Mock()
@@ -98,4 +103,32 @@ public class HttpClientConfigurerTest extends Specification {
         then:
         HttpProtocolParams.getUserAgent(httpClient.params) == UriResource.userAgentString
     }
+
+    def "configures pooled http client to keep more connections to each host"() {
+        def httpClient = new SystemDefaultHttpClient()
+        httpSettings.credentials >> credentials
+        httpSettings.proxySettings >> proxySettings
+
+        when:
+        configurer.configure(httpClient)
+
+        then:
+        def connectionManager = httpClient.connectionManager as PoolingClientConnectionManager
+        connectionManager.defaultMaxPerRoute == 12
+        connectionManager.maxTotal == 24
+    }
+
+    def "uses connection limit chosen by user"() {
+        System.setProperty("http.maxConnections", "3")
+        def httpClient = new SystemDefaultHttpClient()
+        httpSettings.credentials >> credentials
+        httpSettings.proxySettings >> proxySettings
+
+        when:
+        configurer.configure(httpClient)
+
+        then:
+        def connectionManager = httpClient.connectionManager as PoolingClientConnectionManager
+        connectionManager.defaultMaxPerRoute == 3
+    }
 }